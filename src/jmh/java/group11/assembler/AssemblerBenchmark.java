@@ -0,0 +1,52 @@
+package group11.assembler;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Both assembler passes (label resolution, then conversion) over a source
+ * file from sourcefiles/, without the console prompt and file output of
+ * Assembler.assemble(). Paths are resolved against -Dgroup11.bench.root
+ * (default: working directory).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AssemblerBenchmark {
+
+    @Param({ "part 3/program-2.txt", "part 3/program-2-print-prompt-find-two-page-word-counter.txt" })
+    public String source;
+
+    private String[] lines;
+
+    @Setup
+    public void setup() throws Exception {
+        Path root = Path.of(System.getProperty("group11.bench.root", "."));
+        lines = Files.readString(root.resolve("sourcefiles").resolve(source)).lines().toArray(String[]::new);
+    }
+
+    @Benchmark
+    public HashMap<Integer, AssemblerConverterResult> assemble() {
+        HashMap<Integer, AssemblerConverterResult> conversionResult = new HashMap<>();
+        SymbolTable labels = new AssemblerLabelResolver().process(lines, conversionResult);
+        new AssemblerConverter().convertInstructions(lines, labels, conversionResult);
+        return conversionResult;
+    }
+}
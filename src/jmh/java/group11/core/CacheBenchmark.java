@@ -0,0 +1,68 @@
+package group11.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import group11.events.EventBus;
+
+/**
+ * Cache.load/store on the hit and miss paths of the default cache. Miss
+ * benchmarks walk one word per block over all of memory, which is far more
+ * blocks than the cache holds, so every access misses and evicts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CacheBenchmark {
+
+    private static final int BLOCKS = Cache.WORDS_IN_MEMORY / Cache.LINE_SIZE_WORDS;
+
+    private Cache cache;
+    private int block;
+    private int value;
+
+    @Setup
+    public void setup() {
+        Memory memory = new Memory();
+        for (int i = 0; i < memory.MEMORY_SIZE; i++) {
+            memory.writeMemoryDirect(i, i);
+        }
+        cache = new Cache(memory, new EventBus());
+        cache.load(0);
+    }
+
+    @Benchmark
+    public int loadHit() {
+        return cache.load(3);
+    }
+
+    @Benchmark
+    public int loadMiss() {
+        block = (block + 1) % BLOCKS;
+        return cache.load(block << Cache.OFFSET_BITS);
+    }
+
+    @Benchmark
+    public void storeHit() {
+        cache.store(3, ++value);
+    }
+
+    @Benchmark
+    public void storeMiss() {
+        block = (block + 1) % BLOCKS;
+        cache.store(block << Cache.OFFSET_BITS, ++value);
+    }
+}
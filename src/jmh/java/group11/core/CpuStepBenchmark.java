@@ -0,0 +1,134 @@
+package group11.core;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import group11.core.ExecutionEngine.RunResult;
+import group11.core.ExecutionEngine.StopReason;
+import group11.events.EventBus;
+import group11.util.ResourceUtil;
+
+/**
+ * Interpreter throughput: runs a whole program per invocation through the
+ * headless engine. The "instructions" counter in the results is the number of
+ * CPU.step() calls per second.
+ *
+ * Programs:
+ * - print: sourcefiles/part 3/program-2-print-load-file.txt, prints the paragraph (IN device 2, OUT)
+ * - program2: the bundled Program 2 load file, searching the paragraph for one word of console input
+ * - loop: a register-only counting loop (AIR/SOB), no memory operands or I/O
+ *
+ * Tiers:
+ * - translated: straight-line blocks as a unit, hot ones translated (the engine default)
+ * - fused: straight-line blocks as a unit, always interpreted
+ * - stepped: every instruction through fetch
+ *
+ * Paths under sourcefiles/ are resolved against -Dgroup11.bench.root (default: working directory).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CpuStepBenchmark {
+
+    private static final long MAX_INSTRUCTIONS = 10_000_000;
+
+    @Param({ "print", "program2", "loop" })
+    public String program;
+
+    @Param({ "translated", "fused", "stepped" })
+    public String tier;
+
+    private Memory memory;
+    private CPU cpu;
+    private int[] image;
+    private int startPc;
+    private String input;
+
+    /** Instructions executed, reported by JMH next to the invocation rate. */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Executed {
+        public long instructions;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        memory = new Memory();
+        EventBus bus = new EventBus();
+        cpu = new CPU(memory, bus, new Cache(memory, bus), new RomLoader(memory));
+        cpu.setPC(0);
+        switch (program) {
+            case "print" -> {
+                cpu.loadFromROM(sourceFile("sourcefiles/part 3/program-2-print-load-file.txt"));
+                startPc = 024;
+            }
+            case "program2" -> {
+                cpu.loadFromROM(ResourceUtil.extractResourceToTemp("/test-files/load-file-program-2.txt", "rom-", ".txt"));
+                startPc = 6;
+                input = "the";
+            }
+            case "loop" -> {
+                // counts R1 up while SOB counts R0 down to zero
+                memory.writeMemory(6, (006 << 10) | (1 << 8) | 1); // AIR R1,1
+                memory.writeMemory(7, (016 << 10) | 6); // SOB R0,6
+                memory.writeMemory(8, 0); // HLT
+                startPc = 6;
+            }
+            default -> throw new IllegalArgumentException("unknown program " + program);
+        }
+        image = memory.memory.clone();
+        cpu.getEngine().setBlockFusion(!tier.equals("stepped"));
+        cpu.getEngine().setTranslation(tier.equals("translated"));
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        cpu.close();
+    }
+
+    @Benchmark
+    public RunResult run(Executed executed) {
+        memory.writeBlock(0, image, 0, image.length);
+        cpu.getCache().reset();
+        Arrays.fill(cpu.GPR, 0);
+        Arrays.fill(cpu.IXR, 0);
+        cpu.PC = startPc;
+        if ("loop".equals(program)) {
+            cpu.GPR[0] = 30_000;
+        }
+        ExecutionEngine engine = cpu.getEngine();
+        RunResult result = engine.runUntilHalt(MAX_INSTRUCTIONS);
+        executed.instructions += result.instructions();
+        while (result.reason() == StopReason.INPUT_PENDING) {
+            // hand the console line over synchronously instead of letting submitConsoleInput resume on the engine thread
+            cpu.running = false;
+            cpu.submitConsoleInput(input);
+            result = engine.runUntilHalt(MAX_INSTRUCTIONS);
+            executed.instructions += result.instructions();
+        }
+        return result;
+    }
+
+    private static Path sourceFile(String relative) {
+        return Path.of(System.getProperty("group11.bench.root", ".")).resolve(relative);
+    }
+}
@@ -0,0 +1,104 @@
+package group11.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import group11.core.ExecutionEngine.RunResult;
+import group11.events.EventBus;
+
+/**
+ * Effective address calculation under load: a loop of LDR/AMR/STR with every
+ * memory operand using the same addressing mode, counted down by SOB.
+ * With -prof gc, gc.alloc.rate.norm should stay at the few bytes each run
+ * allocates for its result and halt message, independent of ITERATIONS.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MemoryReferenceBenchmark {
+
+    private static final int ITERATIONS = 10_000;
+    private static final int POINTER = 20; // Mem[20] -> 200, operand for indirect mode
+    private static final int OPERAND = 200;
+
+    @Param({ "direct", "indexed", "indirect" })
+    public String mode;
+
+    private Memory memory;
+    private CPU cpu;
+
+    /** Instructions executed, reported by JMH next to the invocation rate. */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Executed {
+        public long instructions;
+    }
+
+    private static int enc(int opcodeOct, int r, int ix, int i, int addr5) {
+        return (opcodeOct << 10) | (r << 8) | (ix << 6) | (i << 5) | addr5;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        memory = new Memory();
+        EventBus bus = new EventBus();
+        cpu = new CPU(memory, bus, new Cache(memory, bus), new RomLoader(memory));
+
+        int ix = 0;
+        int i = 0;
+        int address = 21;
+        switch (mode) {
+            case "direct" -> {
+            }
+            case "indexed" -> {
+                ix = 1;
+                address = 1; // X1 = 180, so 181
+                cpu.IXR[1] = 180;
+            }
+            case "indirect" -> {
+                i = 1;
+                address = POINTER;
+            }
+            default -> throw new IllegalArgumentException("unknown mode " + mode);
+        }
+        // 6: LDR R2  7: AMR R2  8: STR R2  9: LDR R3  10: STR R3  11: SOB R0,6  12: HLT
+        memory.writeMemory(6, enc(001, 2, ix, i, address));
+        memory.writeMemory(7, enc(004, 2, ix, i, address));
+        memory.writeMemory(8, enc(002, 2, ix, i, address));
+        memory.writeMemory(9, enc(001, 3, ix, i, address));
+        memory.writeMemory(10, enc(002, 3, ix, i, address));
+        memory.writeMemory(11, enc(016, 0, 0, 0, 6));
+        memory.writeMemory(POINTER, OPERAND);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        cpu.close();
+    }
+
+    @Benchmark
+    public RunResult run(Executed executed) {
+        cpu.GPR[0] = ITERATIONS;
+        cpu.PC = 6;
+        RunResult result = cpu.getEngine().runUntilHalt(Long.MAX_VALUE);
+        executed.instructions += result.instructions();
+        return result;
+    }
+}
@@ -0,0 +1,74 @@
+package group11.core;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RomLoader.load on generated load files. 2048 lines fill memory once; the
+ * larger sizes keep overwriting it, as a long listing-derived file would.
+ * loadImage reads the same final memory contents from a binary LoadImage.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RomLoaderBenchmark {
+
+    @Param({ "2048", "65536" })
+    public int lines;
+
+    private Path file;
+    private Path image;
+    private RomLoader loader;
+
+    @Setup
+    public void setup() throws Exception {
+        file = Files.createTempFile("rom-bench-", ".txt");
+        Map<Integer, Integer> words = new HashMap<>();
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < lines; i++) {
+                int addr = i % 2048;
+                out.write(String.format("%06o %06o ; word %d%n", addr, (addr * 37) & 0xFFFF, i));
+                words.put(addr, (addr * 37) & 0xFFFF);
+            }
+        }
+        image = Files.createTempFile("rom-bench-", ".bin");
+        LoadImage.write(image, words);
+        loader = new RomLoader(new Memory());
+    }
+
+    @TearDown
+    public void teardown() throws Exception {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(image);
+    }
+
+    @Benchmark
+    public int load() throws Exception {
+        return loader.load(file);
+    }
+
+    @Benchmark
+    public int loadImage() throws Exception {
+        return loader.load(image);
+    }
+}
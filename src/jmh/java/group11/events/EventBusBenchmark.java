@@ -0,0 +1,69 @@
+package group11.events;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * EventBus.post throughput with 0, 1 and N synchronous subscribers, next to
+ * the hierarchy walk it replaced ({@link LegacyEventBus}, postLegacy), plus
+ * the cost of folding an event in coalescing mode (no delivery in the hot
+ * path).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventBusBenchmark {
+
+    @Param({ "0", "1", "4" })
+    public int subscribers;
+
+    private EventBus bus;
+    private LegacyEventBus legacyBus;
+    private EventBus coalescingBus;
+    private final PCChanged event = new PCChanged(6);
+    private Blackhole blackhole;
+
+    @Setup
+    public void setup(Blackhole bh) {
+        blackhole = bh;
+        bus = new EventBus();
+        legacyBus = new LegacyEventBus();
+        coalescingBus = new EventBus();
+        coalescingBus.enableCoalescing(0, Runnable::run); // manual flush only
+        for (int i = 0; i < subscribers; i++) {
+            bus.subscribe(PCChanged.class, e -> blackhole.consume(e.value()));
+            legacyBus.subscribe(PCChanged.class, e -> blackhole.consume(e.value()));
+            coalescingBus.subscribe(PCChanged.class, e -> blackhole.consume(e.value()));
+        }
+    }
+
+    @Benchmark
+    public void post() {
+        bus.post(event);
+    }
+
+    @Benchmark
+    public void postLegacy() {
+        legacyBus.post(event);
+    }
+
+    @Benchmark
+    public void postCoalesced() {
+        coalescingBus.post(event);
+    }
+}
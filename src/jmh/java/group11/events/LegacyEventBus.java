@@ -0,0 +1,41 @@
+package group11.events;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * EventBus.post as it was before dispatch plans: walks the event's class
+ * hierarchy and looks up each type on every post. Kept only as the baseline
+ * for {@link EventBusBenchmark}.
+ */
+final class LegacyEventBus {
+    private final Map<Class<?>, CopyOnWriteArrayList<Consumer<?>>> listeners = new ConcurrentHashMap<>();
+
+    <T> void subscribe(Class<T> type, Consumer<T> handler) {
+        listeners.computeIfAbsent(type, _ -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    void post(Object event) {
+        notifyType(event.getClass(), event);
+        Class<?> c = event.getClass().getSuperclass();
+        while (c != null) {
+            notifyType(c, event);
+            c = c.getSuperclass();
+        }
+        for (Class<?> iface : event.getClass().getInterfaces()) {
+            notifyType(iface, event);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void notifyType(Class<T> type, Object event) {
+        List<Consumer<?>> list = listeners.get(type);
+        if (list == null) return;
+        for (Consumer<?> raw : list) {
+            ((Consumer<T>) raw).accept(type.cast(event));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package group11.sim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import group11.core.CacheConfig;
+import group11.core.MachineSnapshot;
+import group11.util.ResourceUtil;
+
+/**
+ * Scaling of SimulationPool: a fixed batch of Program 2 searches, one word
+ * each, on 1..N workers. Time per batch should drop close to 1/N until N
+ * reaches the number of cores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimulationPoolBenchmark {
+
+    private static final String[] WORDS = { "the", "a", "of", "and", "to", "in", "is", "it",
+            "that", "was", "for", "on", "are", "with", "as", "be" };
+
+    @Param({ "1", "2", "4", "8" })
+    public int parallelism;
+
+    private SimulationPool pool;
+    private List<SimulationJob> jobs;
+
+    @Setup
+    public void setup() throws Exception {
+        MachineSnapshot program2 = SimulationPool.boot(
+                ResourceUtil.extractResourceToTemp("/test-files/load-file-program-2.txt", "rom-", ".txt"),
+                6, CacheConfig.DEFAULT);
+        jobs = new ArrayList<>();
+        for (String word : WORDS) {
+            jobs.add(SimulationJob.of(word, program2, word));
+        }
+        pool = new SimulationPool(parallelism);
+    }
+
+    @TearDown
+    public void teardown() {
+        pool.close();
+    }
+
+    @Benchmark
+    public SimulationReport batch() {
+        return pool.run(jobs);
+    }
+}
@@ -1,11 +1,13 @@
 package group11;
 
+import java.io.IOException;
 import java.nio.file.Path;
 
 import javax.swing.JFrame;
 import javax.swing.SwingUtilities;
 
 import group11.assembler.Assembler;
+import group11.core.BranchProfile;
 import group11.core.CPU;
 import group11.core.Cache;
 import group11.core.Memory;
@@ -17,13 +19,27 @@ import java.awt.Dimension;
 
 public class App 
 {
+    private static final int UI_REFRESH_HZ = 60;
+
     public static void main( String[] args )
     {
         Memory memory = new Memory();
         EventBus eventBus = new EventBus();
+        // fold CPU state changes and repaint at most UI_REFRESH_HZ times per second
+        eventBus.enableCoalescing(UI_REFRESH_HZ, SwingUtilities::invokeLater);
         RomLoader romLoader = new RomLoader(memory);
         Cache cache = new Cache(memory, eventBus);
         CPU cpu = new CPU(memory, eventBus, cache, romLoader);
+        String branchProfile = System.getProperty(BranchProfile.EXPORT_PROPERTY);
+        if (branchProfile != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    cpu.getBranchProfile().save(Path.of(branchProfile));
+                } catch (IOException e) {
+                    System.err.println("Could not write branch profile to " + branchProfile + ": " + e.getMessage());
+                }
+            }, "branch-profile-export"));
+        }
   
             SwingUtilities.invokeLater(() -> {
                 Path defaultRom = null;
@@ -16,6 +16,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 
+import group11.core.LoadImage;
+
 public class Assembler {
   String assemblerFilePath;
 
@@ -171,5 +173,27 @@ public class Assembler {
     }
     Path filePath = Paths.get("load-file.txt");
     System.out.println("Load file written at " + filePath.toAbsolutePath());
+    outputLoadImage(conversionResult);
+  }
+
+  /**
+   * Outputs the same words as the load file in the binary load image format
+   *
+   * @param conversionResult Map of conversion results
+   */
+  private void outputLoadImage(HashMap<Integer, AssemblerConverterResult> conversionResult) {
+    Map<Integer, Integer> words = new HashMap<>();
+    for (AssemblerConverterResult value : conversionResult.values()) {
+      words.put(value.getLocation(), value.getConversionResult());
+    }
+    Path filePath = Paths.get("load-file.bin");
+    try {
+      LoadImage.write(filePath, words);
+    } catch (IOException ex) {
+      System.out.println("A critical file error occurred during writing the load image");
+      ex.printStackTrace();
+      return;
+    }
+    System.out.println("Load image written at " + filePath.toAbsolutePath());
   }
 }
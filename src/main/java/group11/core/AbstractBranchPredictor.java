@@ -0,0 +1,122 @@
+package group11.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Stats, target prediction and snapshot plumbing shared by the predictors;
+ * subclasses only predict conditional branches and say how to save their
+ * tables.
+ */
+abstract class AbstractBranchPredictor implements BranchPredictor {
+    private final BranchPredictorConfig config;
+    // null unless the configuration asks for target prediction
+    private final BranchTargetBuffer targets;
+
+    private int branchCount = 0;
+    private int correctPredictions = 0;
+
+    AbstractBranchPredictor(BranchPredictorConfig config) {
+        this.config = config;
+        this.targets = config.predictsTargets()
+                ? new BranchTargetBuffer(config.btbEntries(), config.rasDepth())
+                : null;
+    }
+
+    // ------------- Direction tables -------------
+
+    /** Clears the tables to their initial state. */
+    abstract void clearTables();
+
+    /** @return bytes saveTables writes */
+    abstract int tableBytes();
+
+    abstract void saveTables(ByteBuffer out);
+
+    abstract void loadTables(ByteBuffer in);
+
+    /** @return whether a 2-bit counter predicts taken */
+    static boolean taken(byte counter) {
+        return counter >= 2;
+    }
+
+    /** @return the 2-bit counter moved one step towards the outcome, saturating */
+    static byte train(byte counter, boolean taken) {
+        if (taken)
+            return counter < 3 ? (byte) (counter + 1) : counter;
+        return counter > 0 ? (byte) (counter - 1) : counter;
+    }
+
+    // ------------- BranchPredictor -------------
+
+    @Override
+    public BranchPredictorConfig config() {
+        return config;
+    }
+
+    @Override
+    public int predictTarget(int branchPc, int opcode) {
+        return targets != null ? targets.predict(branchPc, opcode) : -1;
+    }
+
+    @Override
+    public void updateTarget(int branchPc, int opcode, int targetPc, int returnPc) {
+        if (targets != null)
+            targets.update(branchPc, opcode, targetPc, returnPc);
+    }
+
+    @Override
+    public void recordPredictionResult(boolean correct) {
+        branchCount++;
+        if (correct) {
+            correctPredictions++;
+        }
+    }
+
+    @Override
+    public int getBranchCount() {
+        return branchCount;
+    }
+
+    @Override
+    public int getCorrectPredictions() {
+        return correctPredictions;
+    }
+
+    @Override
+    public void reset() {
+        clearTables();
+        if (targets != null)
+            targets.clear();
+        branchCount = 0;
+        correctPredictions = 0;
+    }
+
+    // ------------- Snapshots -------------
+
+    @Override
+    public byte[] copyCounters() {
+        ByteBuffer out = ByteBuffer.allocate(stateBytes());
+        saveTables(out);
+        if (targets != null)
+            targets.save(out);
+        return out.array();
+    }
+
+    @Override
+    public void restore(byte[] counters, int branchCount, int correctPredictions) {
+        if (counters.length != stateBytes()) {
+            throw new IllegalArgumentException("expected " + stateBytes() + " bytes of " + config.kind()
+                    + " predictor state, got " + counters.length);
+        }
+        ByteBuffer in = ByteBuffer.wrap(counters);
+        loadTables(in);
+        if (targets != null)
+            targets.load(in);
+        this.branchCount = branchCount;
+        this.correctPredictions = correctPredictions;
+    }
+
+    private int stateBytes() {
+        return tableBytes() + (targets != null ? targets.stateBytes() : 0);
+    }
+}
@@ -0,0 +1,160 @@
+package group11.core;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Straight-line runs of instructions for the engine's fused path, keyed by
+ * the address execution enters them at. A block's body is the longest run of
+ * instructions that cannot transfer control, wait for a device or stop the
+ * machine on their own: loads/stores, immediate and register arithmetic,
+ * logic and shifts. The block ends before the first branch (opcodes
+ * 010-017), trap, I/O, floating point or vector instruction, or HLT; that
+ * instruction is left to the normal fetch path.
+ *
+ * A block only covers words it has read, so it must be dropped when one of
+ * them is written. Building a block marks its words as code in
+ * {@link Memory}, whose code write listener passes writes to marked pages on
+ * to {@link #written(int, int)}; each address keeps a count of live blocks
+ * covering it, so writes to data sharing a page with code cost an array read.
+ */
+final class BasicBlockCache {
+    static final int MAX_BLOCK_LENGTH = 32;
+
+    private static final boolean[] FUSABLE = new boolean[64];
+    static {
+        for (int op : new int[] { 001, 002, 003, 004, 005, 006, 007, // load/store, AMR/SMR, AIR/SIR
+                031, 032, // SRC, RRC
+                041, 042, // LDX, STX
+                070, 071, 072, 073, 074, 075 }) { // MLT, DVD, TRR, AND, ORR, NOT
+            FUSABLE[op] = true;
+        }
+    }
+
+    /**
+     * A block body, how often execution entered it, and its translation once
+     * it got hot.
+     */
+    static final class Block {
+        private final int start;
+        private final int[] words;
+        int entries;
+        MethodHandle translated;
+
+        /**
+         * @param start first address of the body
+         * @param words body instruction words, in address order; may be empty
+         */
+        Block(int start, int[] words) {
+            this.start = start;
+            this.words = words;
+        }
+
+        int start() {
+            return start;
+        }
+
+        int[] words() {
+            return words;
+        }
+
+        int length() {
+            return words.length;
+        }
+    }
+
+    private final Memory memory;
+    private final Block[] byStart;
+    // live blocks whose body covers each address
+    private final short[] coverage;
+    private long built;
+    private long invalidated;
+
+    BasicBlockCache(Memory memory) {
+        this.memory = memory;
+        this.byStart = new Block[memory.MEMORY_SIZE];
+        this.coverage = new short[memory.MEMORY_SIZE];
+    }
+
+    /**
+     * Whether the instruction word may sit inside a block body.
+     */
+    static boolean isFusable(int word) {
+        return word != 0 && FUSABLE[(word >> 10) & 0x3F];
+    }
+
+    /**
+     * @return the block starting at pc, building it on first use
+     */
+    Block lookup(int pc, IntUnaryOperator fetchWord) {
+        Block block = byStart[pc];
+        if (block == null) {
+            block = build(pc, fetchWord);
+        }
+        return block;
+    }
+
+    private Block build(int pc, IntUnaryOperator fetchWord) {
+        int[] words = new int[MAX_BLOCK_LENGTH];
+        int n = 0;
+        for (int addr = pc; n < MAX_BLOCK_LENGTH && addr < byStart.length; addr++) {
+            int word = fetchWord.applyAsInt(addr);
+            if (!isFusable(word))
+                break;
+            words[n++] = word;
+        }
+        Block block = new Block(pc, Arrays.copyOf(words, n));
+        for (int i = 0; i < n; i++)
+            coverage[pc + i]++;
+        memory.markCode(pc, n);
+        byStart[pc] = block;
+        built++;
+        return block;
+    }
+
+    /**
+     * Drops every block whose body covers one of len words from address.
+     *
+     * @return true if any block was dropped
+     */
+    boolean written(int address, int len) {
+        int end = Math.min(address + len, coverage.length);
+        boolean dropped = false;
+        for (int a = Math.max(0, address); a < end; a++) {
+            if (coverage[a] == 0)
+                continue;
+            for (int s = Math.max(0, a - MAX_BLOCK_LENGTH + 1); s <= a; s++) {
+                Block block = byStart[s];
+                if (block != null && s + block.length() > a)
+                    drop(block);
+            }
+            dropped = true;
+        }
+        return dropped;
+    }
+
+    private void drop(Block block) {
+        for (int i = 0; i < block.length(); i++)
+            coverage[block.start() + i]--;
+        byStart[block.start()] = null;
+        invalidated++;
+    }
+
+    /**
+     * Forgets every block.
+     */
+    void clear() {
+        Arrays.fill(byStart, null);
+        Arrays.fill(coverage, (short) 0);
+        memory.clearCodeMarks();
+    }
+
+    long getBuilt() {
+        return built;
+    }
+
+    long getInvalidated() {
+        return invalidated;
+    }
+}
@@ -0,0 +1,54 @@
+package group11.core;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A table of 2-bit saturating counters indexed by the low bits of the branch
+ * address. 128 entries is the simulator's original predictor.
+ */
+final class BimodalPredictor extends AbstractBranchPredictor {
+
+    // Each entry holds a 2-bit saturating counter [0..3]
+    private final byte[] bht;
+    private final int mask;
+
+    BimodalPredictor(BranchPredictorConfig config) {
+        super(config);
+        this.bht = new byte[config.entries()];
+        this.mask = config.entries() - 1;
+        clearTables();
+    }
+
+    @Override
+    public boolean predictTaken(int branchPc, int targetPc) {
+        return taken(bht[branchPc & mask]);
+    }
+
+    @Override
+    public void update(int branchPc, int targetPc, boolean actuallyTaken) {
+        int idx = branchPc & mask;
+        bht[idx] = train(bht[idx], actuallyTaken);
+    }
+
+    /** All counters "weakly not taken" (01b). */
+    @Override
+    void clearTables() {
+        Arrays.fill(bht, (byte) 1);
+    }
+
+    @Override
+    int tableBytes() {
+        return bht.length;
+    }
+
+    @Override
+    void saveTables(ByteBuffer out) {
+        out.put(bht);
+    }
+
+    @Override
+    void loadTables(ByteBuffer in) {
+        in.get(bht);
+    }
+}
@@ -0,0 +1,93 @@
+package group11.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+
+/**
+ * Second execution tier: turns a hot basic block body into one method handle
+ * chain. Each instruction becomes "latch as fetch would, run the opcode's
+ * handler, check whether to go on", with the address and word bound as
+ * constants and the opcode's entry in the CPU's handler table bound in as
+ * a constant instead of looked up per instruction. Once a chain has run often enough the JVM
+ * customizes and compiles it like any other method, so a hot loop body ends
+ * up as one piece of straight-line machine code.
+ *
+ * The chain runs the same handler methods as the interpreter, so a
+ * translated block behaves exactly like an interpreted one: a fault, stop or
+ * exception ends it after the instruction that caused it, and a store into
+ * code ends it after the store. A translation is attached to its
+ * {@link BasicBlockCache.Block} and dropped with it; the translator keeps the
+ * last one per address so a rebuilt block with the same words gets it back.
+ */
+final class BlockTranslator {
+    /** Block entries before a block body is translated. */
+    static final int HOT_ENTRIES = 1000;
+
+    private static final MethodHandle ENTER;
+    private static final MethodHandle FINISH;
+    private static final MethodHandle[] HANDLERS = new MethodHandle[64];
+    private static final MethodHandle COMPLETED;
+    private static final MethodHandle LEFT_EARLY;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            ENTER = lookup.findVirtual(CPU.class, "enterBlockInstruction",
+                    MethodType.methodType(void.class, int.class, int.class));
+            FINISH = lookup.findVirtual(CPU.class, "finishBlockInstruction", MethodType.methodType(boolean.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+        for (int op = 0; op < HANDLERS.length; op++)
+            HANDLERS[op] = CPU.handlerFor(op);
+        COMPLETED = MethodHandles.dropArguments(MethodHandles.constant(boolean.class, true), 0, CPU.class);
+        LEFT_EARLY = MethodHandles.dropArguments(MethodHandles.constant(boolean.class, false), 0, CPU.class);
+    }
+
+    // last translation per start address and the body it was made from
+    private final MethodHandle[] byStart;
+    private final int[][] source;
+    private long translated;
+
+    BlockTranslator(int size) {
+        this.byStart = new MethodHandle[size];
+        this.source = new int[size][];
+    }
+
+    /**
+     * Returns the translation of a body, reusing the last one made at start
+     * if the words are the same. Blocks are dropped whenever memory may have
+     * changed, so most of them come back unchanged and keep the chain the JVM
+     * has already compiled.
+     *
+     * @param start address of the first word
+     * @param words block body, as built by {@link BasicBlockCache}
+     * @return (CPU)boolean handle running the body; true if every
+     *         instruction ran and execution may go on to the terminator
+     */
+    MethodHandle translate(int start, int[] words) {
+        MethodHandle cached = byStart[start];
+        if (cached != null && Arrays.equals(source[start], words))
+            return cached;
+        MethodHandle rest = COMPLETED;
+        for (int k = words.length - 1; k >= 0; k--) {
+            int word = words[k];
+            MethodHandle handler = HANDLERS[(word >> 10) & 0x3F];
+            // enter; handler; finish -> (CPU)boolean
+            MethodHandle instruction = MethodHandles.foldArguments(FINISH, handler);
+            instruction = MethodHandles.foldArguments(instruction,
+                    MethodHandles.insertArguments(ENTER, 1, start + k, word));
+            rest = MethodHandles.guardWithTest(instruction, rest, LEFT_EARLY);
+        }
+        byStart[start] = rest;
+        source[start] = words;
+        translated++;
+        return rest;
+    }
+
+    long getTranslated() {
+        return translated;
+    }
+}
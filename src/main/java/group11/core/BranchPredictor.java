@@ -1,107 +1,84 @@
 package group11.core;
 
-import group11.events.BranchPredictionStatsChanged;
-import group11.events.EventBus;
+/**
+ * Predicts branches for the CPU and keeps its accuracy. The CPU asks for a
+ * prediction before it resolves a branch, records whether it was right and
+ * then trains the predictor with the real outcome.
+ *
+ * Conditional branches (JZ, JNE, JCC, SOB, JGE) are predicted taken or not
+ * taken. Predictors built with a branch target buffer or return address stack
+ * also predict where JMA, JSR and RFS go; those count as branches too. Pick
+ * an implementation with {@link #create(BranchPredictorConfig)} and hand it
+ * to the CPU's constructor.
+ */
+public interface BranchPredictor {
 
-public final class BranchPredictor {
-
-    // Each entry holds a 2-bit saturating counter [0..3]
-    private final byte[] bht;
-
-    // Optional stats
-    private int branchCount = 0;
-    private int correctPredictions = 0;
-    public EventBus eventBus;
-
-    private final int BHT_SIZE = 128;
-
-    // ------------- Constructors ------------//
-
-    public BranchPredictor(EventBus eventBus) {
-        this.eventBus = eventBus;
-        this.bht = new byte[BHT_SIZE];
-        reset();
-    }
-
-    private void postBranchPredictionStats() {
-        eventBus.post(new BranchPredictionStatsChanged(
-                getBranchCount(),
-                getCorrectPredictions(),
-                getAccuracy()));
+    /**
+     * @return a new predictor with cleared tables and stats
+     */
+    static BranchPredictor create(BranchPredictorConfig config) {
+        return switch (config.kind()) {
+            case ALWAYS_TAKEN, NEVER_TAKEN, BACKWARD_TAKEN -> new StaticPredictor(config);
+            case BIMODAL -> new BimodalPredictor(config);
+            case GSHARE -> new GSharePredictor(config);
+            case TOURNAMENT -> new TournamentPredictor(config);
+        };
     }
 
-    // ------------- Public API -------------
-
-    /** Reset all counters to "weakly not taken" (01b) and clear stats. */
-    public void reset() {
-        for (int i = 0; i < bht.length; i++) {
-            bht[i] = 1; // 01b = weakly not taken
-        }
-        branchCount = 0;
-        correctPredictions = 0;
-        this.postBranchPredictionStats();
-    }
+    BranchPredictorConfig config();
 
     /**
-     * Predict whether the branch at the given PC will be taken.
-     * Caller is responsible for passing the *branch instruction address*.
+     * Predict whether the conditional branch at branchPc will be taken.
+     *
+     * @param branchPc address of the branch instruction
+     * @param targetPc where the branch goes if taken
      */
-    public boolean predictTaken(int branchPc) {
-        int idx = index(branchPc);
-        int counter = bht[idx] & 0x03; // ensure [0..3]
-        // MSB of 2-bit counter: 1 => predict taken
-        return (counter & 0b10) != 0;
-    }
+    boolean predictTaken(int branchPc, int targetPc);
 
     /**
-     * Update the predictor with the actual outcome of the branch.
+     * Train the predictor with the actual outcome of the branch.
      */
-    public void update(int branchPc, boolean actuallyTaken) {
-        int idx = index(branchPc);
-        int counter = bht[idx] & 0x03;
+    void update(int branchPc, int targetPc, boolean actuallyTaken);
 
-        if (actuallyTaken) {
-            if (counter < 3)
-                counter++; // saturate at 3
-        } else {
-            if (counter > 0)
-                counter--; // saturate at 0
-        }
+    /**
+     * Predict where the JMA, JSR or RFS at branchPc goes.
+     *
+     * @param opcode 013 (JMA), 014 (JSR) or 015 (RFS)
+     * @return predicted target, or -1 if this predictor does not predict it
+     */
+    int predictTarget(int branchPc, int opcode);
 
-        bht[idx] = (byte) counter;
-    }
+    /**
+     * Train target prediction with where the JMA, JSR or RFS went.
+     *
+     * @param returnPc address after the instruction, pushed for a JSR
+     */
+    void updateTarget(int branchPc, int opcode, int targetPc, int returnPc);
 
     /**
      * Record whether a particular prediction was correct.
-     * (You can call this from CPU after comparing predicted vs actual next PC.)
      */
-    public void recordPredictionResult(boolean correct) {
-        branchCount++;
-        if (correct) {
-            correctPredictions++;
-        }
-        this.postBranchPredictionStats();
-    }
+    void recordPredictionResult(boolean correct);
 
-    public int getBranchCount() {
-        return branchCount;
-    }
+    int getBranchCount();
 
-    public int getCorrectPredictions() {
-        return correctPredictions;
-    }
+    int getCorrectPredictions();
 
-    public double getAccuracy() {
-        if (branchCount == 0)
+    default double getAccuracy() {
+        if (getBranchCount() == 0)
             return 1.0;
-        return (double) correctPredictions / branchCount;
+        return (double) getCorrectPredictions() / getBranchCount();
     }
 
-    // ------------- Internal helpers -------------
+    /** Clear all tables and stats. */
+    void reset();
 
-    private int index(int pc) {
-        // Map PC to a BHT index. If your memory is 0..2047, you can mask low bits.
-        int masked = pc & 0x7FF; // keep 11 bits if you like
-        return masked & (BHT_SIZE - 1); // bhtSize is power of 2
-    }
-}
\ No newline at end of file
+    /** @return copy of the predictor's tables, for machine snapshots */
+    byte[] copyCounters();
+
+    /**
+     * Restores tables and stats captured by a machine snapshot of a predictor
+     * with the same configuration.
+     */
+    void restore(byte[] counters, int branchCount, int correctPredictions);
+}
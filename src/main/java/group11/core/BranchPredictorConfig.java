@@ -0,0 +1,109 @@
+package group11.core;
+
+/**
+ * Which branch predictor a CPU uses and how big its tables are. Table sizes
+ * must be powers of two.
+ *
+ * @param kind        how conditional branches (JZ, JNE, JCC, SOB, JGE) are predicted
+ * @param entries     2-bit counters per table; 0 for the static kinds
+ * @param historyBits outcomes kept in the global history register (gshare, tournament)
+ * @param btbEntries  branch target buffer entries predicting JMA/JSR/RFS targets, 0 for none
+ * @param rasDepth    return address stack entries predicting RFS from JSR, 0 for none
+ */
+public record BranchPredictorConfig(Kind kind, int entries, int historyBits, int btbEntries, int rasDepth) {
+
+    /** How conditional branches are predicted. */
+    public enum Kind {
+        /** Every branch is predicted taken. */
+        ALWAYS_TAKEN,
+        /** Every branch is predicted not taken. */
+        NEVER_TAKEN,
+        /** Backward taken, forward not taken: loop branches are predicted taken. */
+        BACKWARD_TAKEN,
+        /** One 2-bit counter per branch, indexed by the low bits of its address. */
+        BIMODAL,
+        /** 2-bit counters indexed by the branch address XOR the global history. */
+        GSHARE,
+        /** Bimodal and gshare side by side; a 2-bit chooser per address picks the one to trust. */
+        TOURNAMENT;
+
+        boolean hasTables() {
+            return this == BIMODAL || this == GSHARE || this == TOURNAMENT;
+        }
+
+        boolean hasHistory() {
+            return this == GSHARE || this == TOURNAMENT;
+        }
+    }
+
+    /** Longest global history; the register is kept in a short in snapshots. */
+    public static final int MAX_HISTORY_BITS = 16;
+    /** Largest table, BTB or stack; keeps addresses and state sizes small. */
+    public static final int MAX_ENTRIES = 4096;
+
+    /** The original predictor: 128 bimodal counters, no target prediction. */
+    public static final BranchPredictorConfig DEFAULT = bimodal(128);
+
+    public BranchPredictorConfig {
+        if (kind == null) {
+            throw new IllegalArgumentException("predictor kind is required");
+        }
+        if (kind.hasTables()) {
+            requirePowerOfTwo("entries", entries);
+        } else if (entries != 0) {
+            throw new IllegalArgumentException(kind + " has no tables: entries must be 0, got " + entries);
+        }
+        if (kind.hasHistory() ? historyBits < 1 || historyBits > MAX_HISTORY_BITS : historyBits != 0) {
+            throw new IllegalArgumentException(kind + " cannot keep " + historyBits + " history bits");
+        }
+        if (btbEntries != 0)
+            requirePowerOfTwo("btbEntries", btbEntries);
+        if (rasDepth < 0 || rasDepth > MAX_ENTRIES) {
+            throw new IllegalArgumentException("rasDepth must be in 0.." + MAX_ENTRIES + ": " + rasDepth);
+        }
+    }
+
+    public static BranchPredictorConfig alwaysTaken() {
+        return new BranchPredictorConfig(Kind.ALWAYS_TAKEN, 0, 0, 0, 0);
+    }
+
+    public static BranchPredictorConfig neverTaken() {
+        return new BranchPredictorConfig(Kind.NEVER_TAKEN, 0, 0, 0, 0);
+    }
+
+    public static BranchPredictorConfig backwardTaken() {
+        return new BranchPredictorConfig(Kind.BACKWARD_TAKEN, 0, 0, 0, 0);
+    }
+
+    public static BranchPredictorConfig bimodal(int entries) {
+        return new BranchPredictorConfig(Kind.BIMODAL, entries, 0, 0, 0);
+    }
+
+    public static BranchPredictorConfig gshare(int entries, int historyBits) {
+        return new BranchPredictorConfig(Kind.GSHARE, entries, historyBits, 0, 0);
+    }
+
+    public static BranchPredictorConfig tournament(int entries, int historyBits) {
+        return new BranchPredictorConfig(Kind.TOURNAMENT, entries, historyBits, 0, 0);
+    }
+
+    /**
+     * Adds target prediction for JMA/JSR/RFS.
+     *
+     * @param btbEntries branch target buffer entries, 0 for none
+     * @param rasDepth   return address stack entries, 0 for none
+     */
+    public BranchPredictorConfig withTargets(int btbEntries, int rasDepth) {
+        return new BranchPredictorConfig(kind, entries, historyBits, btbEntries, rasDepth);
+    }
+
+    public boolean predictsTargets() {
+        return btbEntries > 0 || rasDepth > 0;
+    }
+
+    private static void requirePowerOfTwo(String name, int value) {
+        if (value <= 0 || value > MAX_ENTRIES || Integer.bitCount(value) != 1) {
+            throw new IllegalArgumentException(name + " must be a power of two up to " + MAX_ENTRIES + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package group11.core;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Per-address branch statistics: how often each branch ran, how often it was
+ * taken, how often the predictor got it wrong, and which instruction it is.
+ * Counters live in plain arrays indexed by the branch's address, so recording
+ * a branch is a few array increments.
+ *
+ * {@link #writeCsv} and {@link #writeJson} list every branch that ran, worst
+ * predicted first, to find the hot, badly predicted branches in a program.
+ * Set the {@value #EXPORT_PROPERTY} system property to a file name to have
+ * the simulator write its CPU's profile there on exit.
+ */
+public final class BranchProfile {
+    /** File the simulator writes the profile to on exit; .json for JSON, CSV otherwise. */
+    public static final String EXPORT_PROPERTY = "group11.branchprofile";
+
+    private static final String[] MNEMONICS = new String[64];
+    static {
+        MNEMONICS[010] = "JZ";
+        MNEMONICS[011] = "JNE";
+        MNEMONICS[012] = "JCC";
+        MNEMONICS[013] = "JMA";
+        MNEMONICS[014] = "JSR";
+        MNEMONICS[015] = "RFS";
+        MNEMONICS[016] = "SOB";
+        MNEMONICS[017] = "JGE";
+    }
+
+    private final int[] executions;
+    private final int[] taken;
+    private final int[] mispredictions;
+    // opcode of the last branch recorded at each address
+    private final byte[] opcode;
+
+    BranchProfile(int size) {
+        this.executions = new int[size];
+        this.taken = new int[size];
+        this.mispredictions = new int[size];
+        this.opcode = new byte[size];
+    }
+
+    void record(int pc, int opcode, boolean wasTaken, boolean correct) {
+        executions[pc]++;
+        taken[pc] += wasTaken ? 1 : 0;
+        mispredictions[pc] += correct ? 0 : 1;
+        this.opcode[pc] = (byte) opcode;
+    }
+
+    public void reset() {
+        Arrays.fill(executions, 0);
+        Arrays.fill(taken, 0);
+        Arrays.fill(mispredictions, 0);
+        Arrays.fill(opcode, (byte) 0);
+    }
+
+    public int getExecutions(int pc) {
+        return executions[pc];
+    }
+
+    public int getTaken(int pc) {
+        return taken[pc];
+    }
+
+    public int getMispredictions(int pc) {
+        return mispredictions[pc];
+    }
+
+    public int getOpcode(int pc) {
+        return opcode[pc];
+    }
+
+    /**
+     * @return addresses of every branch that ran, most mispredictions first,
+     *         then most executions, then by address
+     */
+    public int[] sites() {
+        int n = 0;
+        for (int count : executions)
+            n += count > 0 ? 1 : 0;
+        Integer[] sites = new Integer[n];
+        for (int pc = 0, i = 0; pc < executions.length; pc++) {
+            if (executions[pc] > 0)
+                sites[i++] = pc;
+        }
+        Arrays.sort(sites, (a, b) -> mispredictions[a] != mispredictions[b]
+                ? Integer.compare(mispredictions[b], mispredictions[a])
+                : executions[a] != executions[b]
+                        ? Integer.compare(executions[b], executions[a])
+                        : Integer.compare(a, b));
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++)
+            result[i] = sites[i];
+        return result;
+    }
+
+    /**
+     * One line per branch: address (decimal and octal), mnemonic,
+     * executions, taken, mispredictions and prediction accuracy.
+     */
+    public void writeCsv(Appendable out) throws IOException {
+        out.append("address,octal,instruction,executions,taken,mispredictions,accuracy\n");
+        for (int pc : sites()) {
+            out.append(Integer.toString(pc)).append(',')
+                    .append(Integer.toOctalString(pc)).append(',')
+                    .append(mnemonic(pc)).append(',')
+                    .append(Integer.toString(executions[pc])).append(',')
+                    .append(Integer.toString(taken[pc])).append(',')
+                    .append(Integer.toString(mispredictions[pc])).append(',')
+                    .append(accuracy(pc)).append('\n');
+        }
+    }
+
+    /**
+     * The same rows as {@link #writeCsv} as a JSON array of objects.
+     */
+    public void writeJson(Appendable out) throws IOException {
+        out.append('[');
+        int[] sites = sites();
+        for (int i = 0; i < sites.length; i++) {
+            int pc = sites[i];
+            out.append(i == 0 ? "\n" : ",\n")
+                    .append("  {\"address\": ").append(Integer.toString(pc))
+                    .append(", \"octal\": \"").append(Integer.toOctalString(pc))
+                    .append("\", \"instruction\": \"").append(mnemonic(pc))
+                    .append("\", \"executions\": ").append(Integer.toString(executions[pc]))
+                    .append(", \"taken\": ").append(Integer.toString(taken[pc]))
+                    .append(", \"mispredictions\": ").append(Integer.toString(mispredictions[pc]))
+                    .append(", \"accuracy\": ").append(accuracy(pc)).append('}');
+        }
+        out.append(sites.length == 0 ? "]\n" : "\n]\n");
+    }
+
+    /**
+     * Writes the profile as JSON if the file name ends in .json, CSV otherwise.
+     */
+    public void save(Path path) throws IOException {
+        try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            if (path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json")) {
+                writeJson(out);
+            } else {
+                writeCsv(out);
+            }
+        }
+    }
+
+    private String mnemonic(int pc) {
+        String name = MNEMONICS[opcode[pc] & 0x3F];
+        return name != null ? name : "op" + Integer.toOctalString(opcode[pc] & 0x3F);
+    }
+
+    private String accuracy(int pc) {
+        return String.format(Locale.ROOT, "%.4f", 1.0 - (double) mispredictions[pc] / executions[pc]);
+    }
+}
@@ -0,0 +1,102 @@
+package group11.core;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Target prediction for JMA, JSR and RFS. The branch target buffer is a
+ * direct-mapped table of the last target seen per branch address; a miss
+ * predicts fall-through. The return address stack pushes the address after
+ * every JSR and predicts each RFS from its top; when it is empty (or there
+ * is none) RFS falls back to the BTB. A full stack drops its oldest entry.
+ */
+final class BranchTargetBuffer {
+    static final int JMA = 013;
+    static final int JSR = 014;
+    static final int RFS = 015;
+
+    // branch address + 1 per entry, 0 when empty
+    private final short[] tags;
+    private final short[] targets;
+    private final int mask;
+    // circular: top is the next free slot, depth the number of live entries
+    private final short[] stack;
+    private int top;
+    private int depth;
+
+    BranchTargetBuffer(int entries, int stackDepth) {
+        this.tags = new short[entries];
+        this.targets = new short[entries];
+        this.mask = entries - 1;
+        this.stack = new short[stackDepth];
+    }
+
+    /**
+     * @return predicted target, or -1 if neither structure predicts it
+     */
+    int predict(int branchPc, int opcode) {
+        if (opcode == RFS && depth > 0)
+            return stack[(top - 1 + stack.length) % stack.length];
+        if (tags.length == 0)
+            return -1;
+        int idx = branchPc & mask;
+        return tags[idx] == (short) (branchPc + 1) ? targets[idx] & 0xFFFF : branchPc + 1;
+    }
+
+    void update(int branchPc, int opcode, int targetPc, int returnPc) {
+        if (stack.length > 0) {
+            if (opcode == JSR) {
+                stack[top] = (short) returnPc;
+                top = (top + 1) % stack.length;
+                depth = Math.min(depth + 1, stack.length);
+            } else if (opcode == RFS && depth > 0) {
+                top = (top - 1 + stack.length) % stack.length;
+                depth--;
+            }
+        }
+        if (tags.length > 0) {
+            int idx = branchPc & mask;
+            tags[idx] = (short) (branchPc + 1);
+            targets[idx] = (short) targetPc;
+        }
+    }
+
+    void clear() {
+        Arrays.fill(tags, (short) 0);
+        Arrays.fill(targets, (short) 0);
+        top = 0;
+        depth = 0;
+    }
+
+    int stateBytes() {
+        return 2 * (tags.length + targets.length + stack.length) + 4;
+    }
+
+    void save(ByteBuffer out) {
+        for (short tag : tags)
+            out.putShort(tag);
+        for (short target : targets)
+            out.putShort(target);
+        for (short entry : stack)
+            out.putShort(entry);
+        out.putShort((short) top);
+        out.putShort((short) depth);
+    }
+
+    void load(ByteBuffer in) {
+        for (int i = 0; i < tags.length; i++)
+            tags[i] = in.getShort();
+        for (int i = 0; i < targets.length; i++)
+            targets[i] = in.getShort();
+        for (int i = 0; i < stack.length; i++)
+            stack[i] = in.getShort();
+        int savedTop = in.getShort();
+        int savedDepth = in.getShort();
+        if (savedTop < 0 || savedDepth < 0 || savedDepth > stack.length || savedTop >= Math.max(stack.length, 1)) {
+            throw new IllegalArgumentException("return address stack state out of range: top " + savedTop
+                    + ", depth " + savedDepth);
+        }
+        top = savedTop;
+        depth = savedDepth;
+    }
+}
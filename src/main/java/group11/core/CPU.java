@@ -3,7 +3,9 @@ package group11.core;
 import java.io.IOException;
 
 import group11.core.RomLoader.LoadException;
+import group11.events.BranchPredictionStatsChanged;
 import group11.events.CChanged;
+import group11.events.EngineStateChanged;
 import group11.events.EventBus;
 import group11.events.GPRChanged;
 import group11.events.IRChanged;
@@ -18,19 +20,91 @@ import group11.events.SetIXR;
 import group11.events.SetMAR;
 import group11.events.SetMBR;
 import group11.events.SetPC;
-import group11.util.ResourceUtil;
+import group11.trace.TraceLevel;
+import group11.trace.Tracer;
 
-import javax.swing.Timer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.InputMismatchException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
 
 // assisted by chatgpt
 public class CPU implements AutoCloseable {
 
+    // one handler per 6-bit opcode, indexed by the octal opcode; unassigned slots raise an illegal opcode fault
+    private static final InstructionHandler[] HANDLERS = new InstructionHandler[64];
+    static {
+        Arrays.fill(HANDLERS, (InstructionHandler) CPU::illegalOpcode);
+        HANDLERS[001] = CPU::ldr;
+        HANDLERS[002] = CPU::str;
+        HANDLERS[003] = CPU::lda;
+        HANDLERS[004] = CPU::amr;
+        HANDLERS[005] = CPU::smr;
+        HANDLERS[006] = CPU::air;
+        HANDLERS[007] = CPU::sir;
+        HANDLERS[010] = CPU::jz;
+        HANDLERS[011] = CPU::jne;
+        HANDLERS[012] = CPU::jcc;
+        HANDLERS[013] = CPU::jma;
+        HANDLERS[014] = CPU::jsr;
+        HANDLERS[015] = CPU::rfs;
+        HANDLERS[016] = CPU::sob;
+        HANDLERS[017] = CPU::jge;
+        HANDLERS[030] = CPU::trap;
+        HANDLERS[031] = CPU::src;
+        HANDLERS[032] = CPU::rrc;
+        HANDLERS[033] = CPU::fadd;
+        HANDLERS[034] = CPU::fsub;
+        HANDLERS[035] = CPU::vadd;
+        HANDLERS[036] = CPU::vsub;
+        HANDLERS[037] = CPU::cnvrt;
+        HANDLERS[041] = CPU::ldx;
+        HANDLERS[042] = CPU::stx;
+        HANDLERS[050] = CPU::ldfr;
+        HANDLERS[051] = CPU::stfr;
+        HANDLERS[061] = CPU::in;
+        HANDLERS[062] = CPU::out;
+        HANDLERS[063] = CPU::chk;
+        HANDLERS[070] = CPU::mlt;
+        HANDLERS[071] = CPU::dvd;
+        HANDLERS[072] = CPU::trr;
+        HANDLERS[073] = CPU::and;
+        HANDLERS[074] = CPU::orr;
+        HANDLERS[075] = CPU::not;
+    }
+
+    private static final MethodHandle EXECUTE;
+    static {
+        try {
+            EXECUTE = MethodHandles.publicLookup().findVirtual(InstructionHandler.class, "execute",
+                    MethodType.methodType(void.class, CPU.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * @return (CPU)void handle running the opcode's entry in the handler
+     *         table, for {@link BlockTranslator}
+     */
+    static MethodHandle handlerFor(int opcode) {
+        return EXECUTE.bindTo(HANDLERS[opcode]);
+    }
+
     // event bus and subscriptions
     private final EventBus bus;
     private final BranchPredictor branchPredictor;
+    private final BranchProfile branchProfile;
+    // set per branch on the engine thread, taken by whichever thread posts the stats event (the
+    // event bus tick or the engine at the end of a run); a release store keeps the per-branch set cheap
+    private final AtomicBoolean branchStatsChanged = new AtomicBoolean();
+    private final AutoCloseable refreshTick;
     private final Cache cache;
 
     private final AutoCloseable SetGPRSub;
@@ -45,11 +119,16 @@ public class CPU implements AutoCloseable {
 
     public int[] FR = new int[2]; // FR0 and FR1
 
-    public Integer PC = null; // Program Counter
-    public Integer IR = null; // Instruction Register
+    public int PC; // Program Counter
+    public int IR; // Instruction Register
     public int MFR = 0; // Machine Fault Register (4-bit: 0-15)
 
-    public boolean running = false;
+    // which of PC/IR hold a value; both are unset until the front panel, a reset or a fetch sets them
+    private static final int PC_VALID = 1;
+    private static final int IR_VALID = 2;
+    private int validRegisters;
+
+    public volatile boolean running = false;
     public Memory memory;
     public RomLoader romLoader;
 
@@ -63,48 +142,103 @@ public class CPU implements AutoCloseable {
     public int opcode;
     public String message;
 
+    // printer (OUT device 1), the console message area unless replaced
+    private IntConsumer printer = this::printToConsole;
+    // card reader (IN device 2), null until set or first used
+    private CardReader cardReader;
+
     // --- Console input coordination (non-blocking wait) ---
     private volatile boolean waitingForConsoleInput = false;
     private int waitingInDestReg = -1;
     private Integer inputBaseAddr = null;
 
-    public Timer cpuTick;
+    // pre-decoded instructions by fetch address, and the entry of the one executing
+    private final DecodeCache decodeCache;
+    private int decoded;
+    private final EffectiveAddressUnit eaUnit;
+    // straight-line blocks for the engine's fused path, and how far the last one got
+    private final BasicBlockCache blocks;
+    private final IntUnaryOperator blockFetch;
+    private final BlockTranslator translator;
+    private int blockExecuted;
+    // a write dropped a block since the current one was entered
+    private boolean codeWritten;
+
+    // headless execution engine driving run()
+    private final ExecutionEngine engine;
+    private boolean faulted = false;
+
+    // debug tracing, off unless -Dgroup11.trace=<level> is given
+    private final Tracer tracer;
+
     public boolean[] CC = new boolean[4]; // CC[0]=OVERFLOW, CC[1]=UNDERFLOW, CC[2]=DIVZERO, CC[3]=EQUALORNOT
     private int carry = 0; // 0 or 1
 
     public CPU(Memory memory, EventBus bus, Cache cache, RomLoader romLoader) {
+        this(memory, bus, cache, romLoader, BranchPredictor.create(BranchPredictorConfig.DEFAULT));
+    }
+
+    /**
+     * @param branchPredictor predictor for this CPU alone, see {@link BranchPredictor#create}
+     */
+    public CPU(Memory memory, EventBus bus, Cache cache, RomLoader romLoader, BranchPredictor branchPredictor) {
         this.memory = memory;
         this.bus = bus;
         this.romLoader = romLoader;
         this.cache = cache;
-        this.branchPredictor = new BranchPredictor(bus);
+        this.branchPredictor = branchPredictor;
+        this.branchProfile = new BranchProfile(memory.MEMORY_SIZE);
+        this.refreshTick = bus.onTick(this::refresh);
+        this.decodeCache = new DecodeCache(memory.MEMORY_SIZE);
+        this.eaUnit = new EffectiveAddressUnit(decodeCache, memory.MEMORY_SIZE);
+        this.blocks = new BasicBlockCache(memory);
+        memory.setCodeWriteListener(this::codeWritten);
+        this.translator = new BlockTranslator(memory.MEMORY_SIZE);
+        this.blockFetch = cache::peek; // coherent with a write-back cache, like fetch
+        this.engine = new ExecutionEngine(this);
+        this.tracer = Tracer.fromSystemProperties();
 
         // initialize listeners on input fields to watch for changes
         this.SetGPRSub = bus.subscribe(SetGPR.class, cmd -> {
-            this.GPR[cmd.GPRNum()] = cmd.value();
+            if (!refuseWhileRunning("Setting GPR " + cmd.GPRNum()))
+                this.GPR[cmd.GPRNum()] = cmd.value();
         });
         this.SetIXRSub = bus.subscribe(SetIXR.class, cmd -> {
-            this.IXR[cmd.IXRNum()] = cmd.value();
+            if (!refuseWhileRunning("Setting IXR " + cmd.IXRNum()))
+                this.IXR[cmd.IXRNum()] = cmd.value();
         });
         this.SetMARSub = bus.subscribe(SetMAR.class, cmd -> {
-            this.memory.MAR = cmd.value();
+            if (!refuseWhileRunning("Setting MAR"))
+                this.memory.setMAR(cmd.value());
         });
         this.SetMBRSub = bus.subscribe(SetMBR.class, cmd -> {
-            this.memory.MBR = cmd.value();
+            if (!refuseWhileRunning("Setting MBR"))
+                this.memory.setMBR(cmd.value());
         });
         this.SetPCSub = bus.subscribe(SetPC.class, cmd -> {
-            this.PC = cmd.value();
+            if (!refuseWhileRunning("Setting PC"))
+                setPC(cmd.value());
         });
     }
 
     // https://chatgpt.com/share/69041255-bacc-8007-a578-4898db192eb6
     /**
      * Function that takes in and parses console input for numbers.
-     * Continues program execution if program is running
+     * Continues program execution if program is running. While the engine is
+     * still winding down a run the input is handed to its thread and taken
+     * once the run has stopped.
      * 
      * @param line Console input
      */
     public void submitConsoleInput(String line) {
+        if (engine.isActive()) {
+            engine.runAfterCurrentRun(() -> acceptConsoleInput(line));
+            return;
+        }
+        acceptConsoleInput(line);
+    }
+
+    private void acceptConsoleInput(String line) {
         if (!waitingForConsoleInput) {
             bus.post(new MessageChanged("No IN pending; submit ignored."));
             return;
@@ -129,7 +263,8 @@ public class CPU implements AutoCloseable {
                     try {
                         int address = (inputBaseAddr + i) & 0x7FF;
                         cache.store(address, wordToInt);
-                        System.out.printf("IN write addr=%04o (%d) val=%d%n", address, address, wordToInt);
+                        if (tracing(TraceLevel.MICRO_OP))
+                            tracer.log(TraceLevel.MICRO_OP, "IN write addr=%04o (%d) val=%d", address, address, wordToInt);
                     } catch (NumberFormatException e) {
                         throw new InputMismatchException(
                                 "Input from IN includes invalid numbers. Numbers must be between -32,768 and 32,767. Please try again.");
@@ -143,12 +278,12 @@ public class CPU implements AutoCloseable {
 
             // set register value to first value
             GPR[r] = value;
-            bus.post(new GPRChanged(r, GPR[r]));
+            publishGPR(r);
             bus.post(new MessageChanged("Input accepted."));
             waitingInDestReg = -1;
             waitingForConsoleInput = false;
             if (running) {
-                cpuTick.start();
+                startEngine();
             }
         } catch (Exception e) {
             bus.post(new MessageChanged("IN failed: " + e.getMessage()));
@@ -161,26 +296,60 @@ public class CPU implements AutoCloseable {
     private void fetch() {
         // fetch instruction from memory and read into IR
         this.memory.writeMARAddress(PC); // Send address to memory
-        this.memory.readMemory(PC); // Memory loads MBR
+        this.memory.writeMBR(cache.peek(PC)); // Memory loads MBR (a write-back cache may hold a newer word)
         this.IR = memory.readMBR(); // Place into IR
-        this.bus.post(new PCChanged(this.PC));
+        this.validRegisters = PC_VALID | IR_VALID;
+        this.decoded = decodeCache.decode(PC, IR); // reuses the previous decode unless the word changed
+        if (bus.hasSubscribers(PCChanged.class))
+            this.bus.post(new PCChanged(this.PC));
         this.PC++;
-        this.bus.post(new IRChanged(this.IR));
+        if (bus.hasSubscribers(IRChanged.class))
+            this.bus.post(new IRChanged(this.IR));
+    }
+
+    private void publishGPR(int r) {
+        if (bus.hasSubscribers(GPRChanged.class))
+            this.bus.post(new GPRChanged(r, GPR[r]));
+    }
+
+    private void publishIXR(int x) {
+        if (bus.hasSubscribers(IXRChanged.class))
+            this.bus.post(new IXRChanged(x, IXR[x]));
+    }
+
+    private void publishCC() {
+        if (bus.hasSubscribers(CChanged.class))
+            this.bus.post(new CChanged(Arrays.toString(CC)));
+    }
+
+    /**
+     * Publishes MAR and MBR after a memory access. Like the other publish
+     * helpers, nothing is built when no one listens, so a headless run does
+     * not allocate per instruction.
+     */
+    private void publishMemoryRegisters() {
+        if (bus.hasSubscribers(MARChanged.class))
+            this.bus.post(new MARChanged(this.memory.getMAR()));
+        if (bus.hasSubscribers(MBRChanged.class))
+            this.bus.post(new MBRChanged(this.memory.getMBR()));
     }
 
     /**
      * Allows user to load the value of an arbitrary address outside of run
      */
     public void loadFrontPanel() {
+        if (refuseWhileRunning("Load"))
+            return;
         try {
-            if (this.memory.MAR == null) {
+            if (!this.memory.isMARSet()) {
                 this.bus.post(new MessageChanged("MAR must be defined to use the load button."));
                 return;
             }
-            memory.readMemory(this.memory.MAR);
+            memory.writeMARAddress(this.memory.MAR);
+            memory.writeMBR(cache.peek(this.memory.MAR)); // coherent with a write-back cache
             this.bus.post(new MessageChanged(
                     "Value " + this.memory.MBR + " was previously stored at address " + this.memory.MAR + "."));
-            this.bus.post(new MBRChanged(this.memory.MBR));
+            this.bus.post(new MBRChanged(this.memory.getMBR()));
         } catch (Exception e) {
             this.bus.post(new MessageChanged(e.getMessage()));
         }
@@ -191,14 +360,16 @@ public class CPU implements AutoCloseable {
      * run
      */
     public void storeFrontPanel() {
-
+        if (refuseWhileRunning("Store"))
+            return;
         try {
-            if (this.memory.MAR == null || this.memory.MBR == null) {
+            if (!this.memory.isMARSet() || !this.memory.isMBRSet()) {
                 this.bus.post(new MessageChanged("MAR and MBR must be defined to use the store button."));
                 return;
             }
 
-            memory.writeMemory(this.memory.MAR, this.memory.MBR);
+            memory.writeMARAddress(this.memory.MAR);
+            cache.poke(this.memory.MAR, this.memory.MBR); // memory and any cached copy
             this.bus.post(new MessageChanged("MBR " + this.memory.MBR + " stored at address " + this.memory.MAR + "."));
         } catch (Exception e) {
             this.bus.post(new MessageChanged(e.getMessage()));
@@ -211,6 +382,15 @@ public class CPU implements AutoCloseable {
      * instructions one at a time
      */
     public void step() {
+        if (refuseWhileRunning("Step"))
+            return;
+        stepInstruction();
+    }
+
+    /**
+     * {@link #step()} for the engine's own loop.
+     */
+    void stepInstruction() {
         if (waitingForConsoleInput)
             return;
         fetch();
@@ -218,20 +398,155 @@ public class CPU implements AutoCloseable {
         this.completedInstructions++;
     }
 
+    /**
+     * Executes the basic block at PC for the engine: the block's straight-line
+     * body without going through fetch, then the instruction that ends it with
+     * a normal {@link #step()}. With translate set, a body entered
+     * {@link BlockTranslator#HOT_ENTRIES} times is translated and from then on
+     * runs as one method handle chain. Body instructions still leave PC, IR and
+     * MAR/MBR exactly as fetch would, so a fault, an exception or a stop
+     * request in the middle of the block leaves the machine as if it had been
+     * stepped one instruction at a time. Only the PC/IR events of the body are
+     * skipped; they are posted once when the block ends.
+     *
+     * A write into any block's body, reported by memory's code write
+     * listener, drops that block and ends this one after the writing
+     * instruction, so rewritten instructions are fetched fresh.
+     *
+     * @param budget    most instructions to execute
+     * @param translate whether hot bodies may run translated
+     */
+    void stepBlock(long budget, boolean translate) {
+        blockExecuted = 0;
+        codeWritten = false;
+        int pc = PC;
+        if (waitingForConsoleInput || pc < 0 || pc >= memory.MEMORY_SIZE) {
+            blockExecuted = 1;
+            stepInstruction();
+            return;
+        }
+        BasicBlockCache.Block block = blocks.lookup(pc, blockFetch);
+        int[] words = block.words();
+        int n = (int) Math.min(words.length, budget);
+        MethodHandle translated = translate && n == words.length ? translation(block) : null;
+        boolean completed = translated != null ? runTranslated(translated) : interpretBody(words, pc, n);
+        pc = PC;
+        if (!completed || n < words.length || blockExecuted >= budget
+                || n == BasicBlockCache.MAX_BLOCK_LENGTH || pc >= memory.MEMORY_SIZE) {
+            // stopped inside the body, out of budget, or the next block starts here
+            publishFetched();
+            return;
+        }
+        // the instruction ending the block
+        blockExecuted++;
+        stepInstruction();
+    }
+
+    /**
+     * Runs the first n body instructions through the handler table.
+     *
+     * @return false if the body was left early
+     */
+    private boolean interpretBody(int[] words, int pc, int n) {
+        for (int k = 0; k < n; k++) {
+            enterBlockInstruction(pc + k, words[k]);
+            HANDLERS[opcode].execute(this);
+            if (!finishBlockInstruction())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Counts an entry into the block and translates it once it is hot.
+     *
+     * @return the block's translation, or null while it is still interpreted
+     */
+    private MethodHandle translation(BasicBlockCache.Block block) {
+        if (block.translated == null && block.length() > 0 && ++block.entries >= BlockTranslator.HOT_ENTRIES) {
+            block.translated = translator.translate(block.start(), block.words());
+        }
+        return block.translated;
+    }
+
+    private boolean runTranslated(MethodHandle body) {
+        try {
+            return (boolean) body.invokeExact(this);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t); // handlers throw no checked exceptions
+        }
+    }
+
+    /**
+     * Start of a body instruction: PC, IR and MAR/MBR as fetch leaves them,
+     * without fetch's memory read and events.
+     */
+    void enterBlockInstruction(int pc, int word) {
+        memory.setMAR(pc);
+        memory.setMBR(word);
+        IR = word;
+        validRegisters = PC_VALID | IR_VALID;
+        decoded = decodeCache.decode(pc, word);
+        PC = pc + 1;
+        opcode = decodeCache.opcode[decoded];
+        blockExecuted++;
+    }
+
+    /**
+     * End of a body instruction.
+     *
+     * @return false if the block must stop here: the CPU stopped, or a write
+     *         hit the code of a block
+     */
+    boolean finishBlockInstruction() {
+        completedInstructions++;
+        return running && !codeWritten;
+    }
+
+    /**
+     * @return instructions started by the last stepBlock, including one that threw
+     */
+    int blockExecuted() {
+        return blockExecuted;
+    }
+
+    /**
+     * @return translations made since the CPU was created, not counting reuse
+     */
+    long translatedBlocks() {
+        return translator.getTranslated();
+    }
+
+    // memory's code write listener
+    private void codeWritten(int address, int len) {
+        if (blocks.written(address, len))
+            codeWritten = true;
+    }
+
+    private void publishFetched() {
+        if (bus.hasSubscribers(PCChanged.class))
+            this.bus.post(new PCChanged(this.PC));
+        if (bus.hasSubscribers(IRChanged.class))
+            this.bus.post(new IRChanged(this.IR));
+    }
+
     /**
      * Allows user to load the value of an arbitrary address outside of run.
      * Increments MAR to next address location after load.
      */
     public void loadPlus() {
+        if (refuseWhileRunning("Load+"))
+            return;
         try {
-            if (this.memory.MAR == null) {
+            if (!this.memory.isMARSet()) {
                 this.bus.post(new MessageChanged("MAR must be defined to use loadPlus."));
                 return;
             }
-            this.memory.MBR = this.cache.load(this.memory.MAR);
+            this.memory.setMBR(this.cache.load(this.memory.MAR));
             // update +1 MAR before load plus is read again if applicable
-            this.bus.post(new MARChanged(this.memory.MAR));
-            this.bus.post(new MBRChanged(this.memory.MBR));
+            publishMemoryRegisters();
             this.bus.post(new MessageChanged("Value of " + this.memory.MBR + " was stored at address " + this.memory.MAR
                     + ".New MAR at " + this.memory.MAR + 1));
             memory.writeMARAddress(this.memory.MAR + 1);
@@ -246,8 +561,10 @@ public class CPU implements AutoCloseable {
      * Increments MAR to next address after store is complete.
      */
     public void storePlus() {
+        if (refuseWhileRunning("Store+"))
+            return;
         try {
-            if (this.memory.MAR == null || this.memory.MBR == null) {
+            if (!this.memory.isMARSet() || !this.memory.isMBRSet()) {
                 this.bus.post(new MessageChanged("MAR and MBR must be defined to use storePlus."));
                 return;
             }
@@ -256,9 +573,8 @@ public class CPU implements AutoCloseable {
                     + ". New MAR at " + this.memory.MAR + 1));
             int newMAR = memory.readMARAddress() + 1;
             memory.writeMARAddress(newMAR);
-            this.memory.MBR = null;
-            this.bus.post(new MARChanged(this.memory.MAR));
-            this.bus.post(new MBRChanged(this.memory.MBR));
+            this.memory.clearMBR();
+            publishMemoryRegisters();
         } catch (Exception e) {
             this.bus.post(new MessageChanged(e.getMessage()));
         }
@@ -268,22 +584,22 @@ public class CPU implements AutoCloseable {
      * Loads value into given index register from memory (cache)
      */
     public void loadIndexRegister() {
-        // EA computed already with setEffectiveAddress(opcode)
+        // EA computed already with setEffectiveAddress()
         int value = cache.load(effectiveAddress) & 0xFFFF;
 
         // Update front-panel regs
-        this.memory.MAR = effectiveAddress;
-        this.memory.MBR = value;
-        this.bus.post(new MARChanged(this.memory.MAR));
-        this.bus.post(new MBRChanged(this.memory.MBR));
+        this.memory.setMAR(effectiveAddress);
+        this.memory.setMBR(value);
+        publishMemoryRegisters();
 
         // *** Use IX (1..3) as the destination index register ***
         if (IX < 1 || IX > 3) {
             throw new IllegalArgumentException("LDX: index register must be 1..3, got " + IX);
         }
         IXR[IX] = value;
-        this.bus.post(new IXRChanged(IX, IXR[IX]));
-        System.out.printf("LDX debug: set IXR[%d]=%o from EA=%o%n", IX, IXR[IX], effectiveAddress);
+        publishIXR(IX);
+        if (tracing(TraceLevel.MICRO_OP))
+            tracer.log(TraceLevel.MICRO_OP, "LDX debug: set IXR[%d]=%o from EA=%o", IX, IXR[IX], effectiveAddress);
     }
 
     /**
@@ -296,128 +612,70 @@ public class CPU implements AutoCloseable {
         cache.store(effectiveAddress, IXR[IX] & 0xFFFF);
 
         // Keep simulator-visible memory regs consistent
-        this.memory.MAR = effectiveAddress;
-        this.memory.MBR = IXR[IX] & 0xFFFF;
-        this.bus.post(new MARChanged(this.memory.MAR));
-        this.bus.post(new MBRChanged(this.memory.MBR));
+        this.memory.setMAR(effectiveAddress);
+        this.memory.setMBR(IXR[IX] & 0xFFFF);
+        publishMemoryRegisters();
     }
 
     /**
-     * Gets if effective address is valid
+     * Sets R, IX, I and effectiveAddress for the current instruction, following
+     * one level of indirection through the cache when I is set.
+     * While running, an invalid address raises its machine fault and false is
+     * returned so the instruction is not carried out. Outside of run (the user
+     * can reach the reserved locations from the front panel) an invalid address
+     * throws instead.
      *
-     * @param ignoreReserved          Whether we should ignore reserved memory
-     *                                addresses for
-     *                                validation (user can mess with reserved memory
-     *                                outside
-     *                                of run).
-     * @param pendingEffectiveAddress address to check
-     * @return true if valid or triggers machine fault if not
+     * @return true if effectiveAddress is valid
      */
-    private boolean getIsValidAddress(Boolean ignoreReserved, boolean allowIndexingInEA, int pendingEffectiveAddress) {
-        // Machine Fault 3: Illegal Memory Address beyond 2047
-        if (pendingEffectiveAddress >= this.memory.MEMORY_SIZE || pendingEffectiveAddress < 0) {
-            if (running) {
-                raiseMachineFault(3); // Triggers fault and halts
+    private boolean setEffectiveAddress() {
+        R = decodeCache.r[decoded];
+        IX = decodeCache.ix[decoded];
+        I = decodeCache.i[decoded];
+        boolean indexedEA = decodeCache.indexedEA[decoded];
+
+        int address = eaUnit.direct(decoded, IXR);
+        if (I == 1) {
+            if (!checkEffectiveAddress(address, indexedEA))
                 return false;
-            } else {
-                throw new IllegalArgumentException("Memory out of bounds access");
-            }
+            // Use cache for coherence with LDR/LDX paths
+            int ptrWord = cache.load(address) & 0xFFFF;
+            // Keep MAR/MBR + bus in sync (like LDR path)
+            this.memory.setMAR(address & 0x7FF);
+            this.memory.setMBR(ptrWord);
+            publishMemoryRegisters();
+            // FINAL EA becomes the pointee
+            address = ptrWord & 0x7FF;
         }
+        if (!checkEffectiveAddress(address, indexedEA))
+            return false;
 
-        // Machine Fault 0: Illegal Memory Access to Reserved Locations (0-5)
-        // Only enforce during program execution, not during manual front-panel
-        // operations
-        if (!!ignoreReserved && !allowIndexingInEA && (pendingEffectiveAddress >= 0 && pendingEffectiveAddress <= 5)) {
-            if (running) {
-                raiseMachineFault(0); // Triggers fault and halts
-                return false;
-            } else {
-                throw new IllegalArgumentException(
-                        "Illegal memory register access at effective address " + pendingEffectiveAddress);
-            }
-        }
+        this.effectiveAddress = address & 0x7FF;
+        if (tracing(TraceLevel.MICRO_OP))
+            tracer.log(TraceLevel.MICRO_OP, "EA debug: r=%d x=%d i=%d a5=%o ix=%o -> EA=%o",
+                    R, IX, I, IR & 0x1F, (IX == 0 ? 0 : IXR[IX] & 0x7FF), effectiveAddress);
         return true;
     }
 
     /**
-     * Sets effective address given load/store arguments.
-     * If effective address is invalid, an error will be thrown and execution will
-     * cease.
-     * 
-     * @param opcode octal opcode of instruction
-     */
-    private void setEffectiveAddress(int opcode) {
-        int[] pendingEffectiveAddressInfo = calculateEffectiveAddress(opcode);
-        this.effectiveAddress = pendingEffectiveAddressInfo[3];
-        R = pendingEffectiveAddressInfo[1];
-        IX = pendingEffectiveAddressInfo[0];
-        I = pendingEffectiveAddressInfo[2];
-    }
-
-    /**
-     * Calculates effective address given r, ix, i, opcode.
-     * 
-     * @param opcode 10 bit number indicating operation
-     * @return int [] array of info about instruction
+     * Applies the side effects of an invalid effective address: a machine fault
+     * while running, an IllegalArgumentException otherwise.
+     *
+     * @return true if the address is valid
      */
-    private int[] calculateEffectiveAddress(int opcode) {
-        int pendingEffectiveAddress = 0;
-        int r = (IR >> 8) & 0x03; // [9..8] R
-        int ix = (IR >> 6) & 0x03; // [7..6] X
-        int i = (IR >> 5) & 0x01; // [5] I
-        pendingEffectiveAddress = IR & 0x1F;
-
-        boolean allowIndexingInEA = !(opcode == 041 || opcode == 042);
-        if (ix != 0 && allowIndexingInEA) {
-            if (ix < 1 || ix > 3) {
-                throw new IllegalArgumentException("Bad index register in instruction");
-            }
-            pendingEffectiveAddress += (IXR[ix] & 0x7FF);
-        }
-
-        if (r < 0 || r > 3) {
-            throw new IllegalArgumentException("Bad general purpose register. in instruction. GPR can be 0, 1, 2, 3");
-        }
-
-        if (i == 1) {
-            // check bounds before reading
-            try {
-                getIsValidAddress(running, allowIndexingInEA, pendingEffectiveAddress);
-                // Use cache for coherence with LDR/LDX paths
-                int ptrWord = cache.load(pendingEffectiveAddress) & 0xFFFF;
-                // int ptrWord = memory.getMemoryValueAt(pendingEffectiveAddress);
-                // Keep MAR/MBR + bus in sync (like LDR path)
-                this.memory.MAR = pendingEffectiveAddress & 0x7FF;
-                this.memory.MBR = ptrWord;
-                this.bus.post(new MARChanged(this.memory.MAR));
-                this.bus.post(new MBRChanged(this.memory.MBR));
-
-                // FINAL EA becomes the pointee
-                pendingEffectiveAddress = ptrWord & 0x7FF;
-            } catch (Exception e) {
-                System.out.printf("EA debug: r=%d x=%d i=%d a5=%o ix=%o -> EA=%o%n",
-                        r, ix, i, IR & 0x1F, (ix == 0 ? 0 : IXR[ix]), pendingEffectiveAddress & 0x7FF);
-                throw e;
-            }
-        }
-
-        // check returned address if indirect or if calculated based on index register
-        // above
-        try {
-            getIsValidAddress(running, allowIndexingInEA, pendingEffectiveAddress);
-        } catch (Exception e) {
-            System.out.printf("EA debug: r=%d x=%d i=%d a5=%o ix=%o -> EA=%o%n",
-                    r, ix, i, IR & 0x1F, (ix == 0 ? 0 : IXR[ix]), pendingEffectiveAddress & 0x7FF);
-
-            throw e;
+    private boolean checkEffectiveAddress(int address, boolean indexedEA) {
+        int fault = eaUnit.validate(address, indexedEA, running);
+        if (fault == EffectiveAddressUnit.NO_FAULT)
+            return true;
+        if (tracing(TraceLevel.MICRO_OP))
+            tracer.log(TraceLevel.MICRO_OP, "EA debug: r=%d x=%d i=%d a5=%o ix=%o -> invalid EA=%o",
+                    R, IX, I, IR & 0x1F, (IX == 0 ? 0 : IXR[IX]), address);
+        if (running) {
+            raiseMachineFault(fault); // Triggers fault and halts
+            return false;
         }
-
-        int eaMasked = pendingEffectiveAddress & 0x7FF;
-        int[] result = { ix, r, i, eaMasked };
-        System.out.printf("EA debug: r=%d x=%d i=%d a5=%o ix=%o -> EA=%o%n",
-                r, ix, i, IR & 0x1F, (ix == 0 ? 0 : IXR[ix] & 0x7FF), eaMasked);
-        return result;
-
+        if (fault == EffectiveAddressUnit.FAULT_RESERVED)
+            throw new IllegalArgumentException("Illegal memory register access at effective address " + address);
+        throw new IllegalArgumentException("Memory out of bounds access");
     }
 
     // helpers for logical/shift/rotate
@@ -477,7 +735,10 @@ public class CPU implements AutoCloseable {
      * machine
      */
     public void reset() {
+        if (refuseWhileRunning("Reset"))
+            return;
         running = false;
+        faulted = false;
         pendingInstructions = 0;
         completedInstructions = 0;
         effectiveAddress = 0;
@@ -491,1151 +752,1318 @@ public class CPU implements AutoCloseable {
         CC = new boolean[4];
         PC = 0; // Program Counter
         IR = 0; // Instruction Register
+        validRegisters = PC_VALID | IR_VALID;
         MFR = 0; // Machine Fault Register
 
         FR = new int[2];
 
         branchPredictor.reset();
+        branchProfile.reset();
+        branchStatsChanged.set(false);
+        postBranchPredictionStats();
+        if (cardReader != null)
+            cardReader.rewind();
 
         memory.reset();
         cache.reset();
-        this.bus.post(new GPRChanged(0, GPR[0]));
-        this.bus.post(new GPRChanged(1, GPR[1]));
-        this.bus.post(new GPRChanged(2, GPR[2]));
-        this.bus.post(new GPRChanged(3, GPR[3]));
-        this.bus.post(new IXRChanged(1, IXR[1]));
-        this.bus.post(new IXRChanged(2, IXR[2]));
-        this.bus.post(new IXRChanged(3, IXR[3]));
-        this.bus.post(new MBRChanged(this.memory.MBR));
-        this.bus.post(new MARChanged(this.memory.MAR));
+        blocks.clear(); // memory is all zeros, so no page holds code any more
+        publishRegisterFile();
+        this.bus.post(new MessageChanged(message));
+    }
+
+    /**
+     * Publishes every register shown on the front panel.
+     */
+    private void publishRegisterFile() {
+        publishGPR(0);
+        publishGPR(1);
+        publishGPR(2);
+        publishGPR(3);
+        publishIXR(1);
+        publishIXR(2);
+        publishIXR(3);
+        this.bus.post(new MBRChanged(this.memory.getMBR()));
+        this.bus.post(new MARChanged(this.memory.getMAR()));
         this.bus.post(new PCChanged(PC));
         this.bus.post(new IRChanged(IR));
         this.bus.post(new MFRChanged(MFR));
-        this.bus.post(new CChanged(Arrays.toString(CC)));
-        this.bus.post(new MessageChanged(message));
+        publishCC();
+    }
+
+    /**
+     * Captures registers, memory, cache and branch predictor. Take snapshots
+     * while the CPU is stopped.
+     */
+    public MachineSnapshot snapshot() {
+        return snapshot(null);
+    }
+
+    /**
+     * Same as {@link #snapshot()}, but memory pages that are unchanged since
+     * base are shared with it instead of copied.
+     *
+     * @param base earlier snapshot of this machine, or null
+     */
+    public MachineSnapshot snapshot(MachineSnapshot base) {
+        int cc = 0;
+        for (int i = 0; i < CC.length; i++) {
+            if (CC[i])
+                cc |= 1 << i;
+        }
+        MachineSnapshot.Registers registers = new MachineSnapshot.Registers(PC, IR, validRegisters, MFR, cc, carry,
+                GPR.clone(), IXR.clone(), FR.clone());
+        MachineSnapshot.Predictor predictor = new MachineSnapshot.Predictor(branchPredictor.config(),
+                branchPredictor.copyCounters(), branchPredictor.getBranchCount(),
+                branchPredictor.getCorrectPredictions());
+        return MachineSnapshot.capture(registers, memory, base, cache.captureState(), predictor);
+    }
+
+    /**
+     * Puts the machine back into a snapshot's state. The CPU is left stopped
+     * with no console input pending.
+     *
+     * @throws IllegalStateException    while a program is running
+     * @throws IllegalArgumentException if the snapshot's cache or branch predictor configuration differs from
+     *                                  this machine's
+     */
+    public void restore(MachineSnapshot snapshot) {
+        if (running) {
+            throw new IllegalStateException("Stop the CPU before restoring a snapshot");
+        }
+        BranchPredictorConfig predictorConfig = snapshot.predictor().config();
+        if (!predictorConfig.equals(branchPredictor.config())) {
+            throw new IllegalArgumentException("predictor state for " + predictorConfig + " does not fit "
+                    + branchPredictor.config());
+        }
+        cache.restoreState(snapshot.cacheState());
+        snapshot.restoreMemory(memory);
+
+        MachineSnapshot.Registers registers = snapshot.registers();
+        PC = registers.pc();
+        IR = registers.ir();
+        validRegisters = registers.validMask();
+        MFR = registers.mfr();
+        for (int i = 0; i < CC.length; i++) {
+            CC[i] = (registers.conditionCodes() & (1 << i)) != 0;
+        }
+        carry = registers.carry();
+        System.arraycopy(registers.gpr(), 0, GPR, 0, GPR.length);
+        System.arraycopy(registers.ixr(), 0, IXR, 0, IXR.length);
+        System.arraycopy(registers.fr(), 0, FR, 0, FR.length);
+
+        MachineSnapshot.Predictor predictor = snapshot.predictor();
+        branchPredictor.restore(predictor.counters(), predictor.branchCount(), predictor.correctPredictions());
+        postBranchPredictionStats();
+
+        faulted = false;
+        waitingForConsoleInput = false;
+        waitingInDestReg = -1;
+        publishRegisterFile();
+    }
+
+    /**
+     * Saves a snapshot of the machine to a file.
+     */
+    public void save(Path path) throws IOException {
+        snapshot().save(path);
+    }
+
+    /**
+     * Restores the machine from a file written by {@link #save(Path)}.
+     */
+    public void restore(Path path) throws IOException {
+        restore(MachineSnapshot.load(path));
     }
 
     /**
-     * Decodes and executes instruction from file.
+     * Decodes and executes instruction from file. Each opcode has its own
+     * small handler in HANDLERS, so every handler stays within what the JIT
+     * will compile and inline.
      */
     private void decodeAndExecute() {
         // case to ensure we don't mix halt with just data
         if (IR == 0) {
             halt();
         } else {
-            opcode = (IR >> 10) & 0x3F; // Top 6 bits
+            opcode = decodeCache.opcode[decoded]; // Top 6 bits, pre-decoded by fetch
+            HANDLERS[opcode].execute(this);
+        }
+    }
 
-            switch (opcode) {
-                // LDR
-                case 01: {
-                    System.out.printf("Before LDR: IXR[1]=%o IXR[2]=%o IXR[3]=%o%n", IXR[1], IXR[2], IXR[3]);
-                    try {
-                        this.setEffectiveAddress(opcode);
-                        System.out.printf("LDR effective address before execution: EA=%o%n",
-                                this.effectiveAddress);
-                        // Read from cache (which will load the block on miss)
-                        int word = cache.load(effectiveAddress) & 0xFFFF; // ensure 16-bit
-                        System.out.printf(
-                                "LDR executed. Loaded from cache and or memory: word=%d from address=%o%n", word,
-                                effectiveAddress);
-                        // Update simulator-visible memory registers so bus events are correct
-                        this.memory.MAR = effectiveAddress;
-                        this.memory.MBR = word;
-
-                        // Post bus events just like before
-                        this.bus.post(new MARChanged(this.memory.MAR));
-                        this.bus.post(new MBRChanged(this.memory.MBR));
-                        GPR[R] = word;
-                        this.bus.post(new GPRChanged(R, GPR[R]));
-                    } catch (Exception e) {
-                        System.out.println(e.getMessage());
-                        this.bus.post(new MessageChanged(e.getMessage()));
-                        this.halt();
-                    }
-                    break;
-                }
-                // STR
-                case 02: {
-                    try {
-                        this.setEffectiveAddress(opcode);
-                        System.out.printf("STR effective address: EA=%o%n",
-                                this.effectiveAddress);
-                        // Update cache
-                        cache.store(effectiveAddress, GPR[R] & 0xFFFF);
-                        System.out.println(
-                                "STR EXECUTED. " + "memory address " + effectiveAddress + "=" + (GPR[R] & 0xFFFF));
-                        // Keep simulator-visible memory registers consistent for bus listeners
-                        this.memory.MAR = effectiveAddress;
-                        this.memory.MBR = GPR[R] & 0xFFFF;
-
-                        this.bus.post(new MARChanged(this.memory.MAR));
-                        this.bus.post(new MBRChanged(this.memory.MBR));
-                    } catch (Exception e) {
-                        System.out.println(e.getMessage());
-                        this.bus.post(new MessageChanged(e.getMessage()));
-                        this.halt();
-                    }
-                    break;
-                }
-                // LDA
-                case 03: {
-                    try {
-                        int[] addressInfo = this.calculateEffectiveAddress(opcode);
-                        R = addressInfo[1];
-                        effectiveAddress = addressInfo[3];
-                        System.out.printf("LDA effective address: EA=%o%n",
-                                this.effectiveAddress);
-                        GPR[R] = effectiveAddress;
-                        System.out.println("LDA EXECUTED " + "effectiveAddress=" + effectiveAddress);
-                        this.bus.post(new GPRChanged(addressInfo[1], GPR[addressInfo[1]]));
-
-                    } catch (Exception e) {
-                        System.out.println(e.getMessage());
-                        this.bus.post(new MessageChanged(e.getMessage()));
-                        this.halt();
-                    }
-                    break;
-                }
-                // LDX x, address[,I]
-                case 041: {
-                    try {
-                        this.setEffectiveAddress(opcode);
-                        System.out.printf("LDX effective address before execution: EA=%o%n",
-                                this.effectiveAddress);
-                        loadIndexRegister();
-                        System.out.println("LDX EXECUTED. IXR 1: " + IXR[1] + "IXR 2: " + IXR[2] + "IXR 3: " + IXR[3]);
-                    } catch (Exception e) {
-                        System.out.println(e.getMessage());
-                        this.bus.post(new MessageChanged(e.getMessage()));
-                        this.halt();
-                    }
-                    break;
-                }
-                // STX x, address[,I]
-                case 042: {
-                    System.out.println("STX exec: IR=" + Integer.toOctalString(IR));
-                    try {
-                        this.setEffectiveAddress(opcode);
-                        System.out.println("STX effective address R:" + R + " ix: " + IX + " i flag: " + I
-                                + " effective address: " + this.effectiveAddress);
-                        storeIndexRegister();
-                        System.out.println("STX EXECUTED. IXR 1: " + IXR[1] + "IXR 2: " + IXR[2] + "IXR 3: " + IXR[3]);
-                    } catch (Exception e) {
-                        System.out.println(e.getMessage());
-                        this.bus.post(new MessageChanged(e.getMessage()));
-                        this.halt();
-                    }
-                    break;
-                }
-                case 04: { // AMR r,x,address[,I]
-                    System.out.println("AMR exec: IR=" + Integer.toOctalString(IR));
-                    try {
-                        this.setEffectiveAddress(opcode);
-                        System.out.printf("AMR effective address: EA=%o%n",
-                                this.effectiveAddress);
-                        // Read via cache (fills block on miss)
-                        int memValue = cache.load(effectiveAddress) & 0xFFFF;
-
-                        // Keep MAR/MBR consistent for bus listeners
-                        this.memory.MAR = effectiveAddress;
-                        this.memory.MBR = memValue;
-                        this.bus.post(new MARChanged(this.memory.MAR));
-                        this.bus.post(new MBRChanged(this.memory.MBR));
-
-                        // --- Signed-overflow detection for 16-bit add (two's complement) ---
-                        int a = GPR[R] & 0xFFFF;
-                        int b = memValue & 0xFFFF;
-                        int sum = (a + b) & 0xFFFF;
-
-                        // https://chatgpt.com/share/6906f0ff-36d8-8007-a4d1-f8dac5a1f999
-                        // Interpret sign bits (bit 15) for two's-complement overflow
-                        boolean sameSignOperands = ((a ^ b) & 0x8000) == 0;
-                        boolean resultSignDiffers = ((a ^ sum) & 0x8000) != 0;
-                        boolean overflow = sameSignOperands && resultSignDiffers;
-
-                        // Update register
-                        GPR[R] = sum;
-                        bus.post(new GPRChanged(R, GPR[R]));
-
-                        // --- Condition Codes per ISA ---
-                        CC[0] = overflow; // OVERFLOW
-                        CC[1] = false; // UNDERFLOW (not used for addition)
-                        bus.post(new CChanged(Arrays.toString(CC)));
-                        System.out.println("AMR executed: R" + R + " = " + GPR[R]);
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged("AMR failed: " + e.getMessage()));
-                        halt();
-                    }
-                    break;
-                }
-                case 05: { // SMR r,x,address[,I]
+    // LDR r,x,address[,I]
+    private void ldr() {
+        if (tracing(TraceLevel.MICRO_OP))
+            tracer.log(TraceLevel.MICRO_OP, "Before LDR: IXR[1]=%o IXR[2]=%o IXR[3]=%o", IXR[1], IXR[2], IXR[3]);
+        try {
+            if (!this.setEffectiveAddress())
+                return;
+            if (tracing(TraceLevel.MICRO_OP))
+                tracer.log(TraceLevel.MICRO_OP, "LDR effective address before execution: EA=%o",
+                        this.effectiveAddress);
+            // Read from cache (which will load the block on miss)
+            int word = cache.load(effectiveAddress) & 0xFFFF; // ensure 16-bit
+            if (tracing(TraceLevel.INSTRUCTION))
+                tracer.log(TraceLevel.INSTRUCTION,
+                        "LDR executed. Loaded from cache and or memory: word=%d from address=%o", word,
+                        effectiveAddress);
+            // Update simulator-visible memory registers so bus events are correct
+            this.memory.setMAR(effectiveAddress);
+            this.memory.setMBR(word);
+
+            // Post bus events just like before
+            publishMemoryRegisters();
+            GPR[R] = word;
+            publishGPR(R);
+        } catch (Exception e) {
+            if (tracing(TraceLevel.SUMMARY))
+                tracer.log(TraceLevel.SUMMARY, e.getMessage());
+            this.bus.post(new MessageChanged(e.getMessage()));
+            this.halt();
+        }
+    }
 
-                    try {
-                        this.setEffectiveAddress(opcode);
-                        System.out.printf("SMR effective address: EA=%o%n",
-                                this.effectiveAddress);
-                        // Read via cache (fills block on miss)
-                        int memValue = cache.load(effectiveAddress) & 0xFFFF;
-
-                        // Keep MAR/MBR consistent for bus listeners
-                        this.memory.MAR = effectiveAddress;
-                        this.memory.MBR = memValue;
-                        this.bus.post(new MARChanged(this.memory.MAR));
-                        this.bus.post(new MBRChanged(this.memory.MBR));
-
-                        // https://chatgpt.com/share/6906f0ff-36d8-8007-a4d1-f8dac5a1f999
-                        // --- Signed-underflow detection for 16-bit add (two's complement) ---
-                        int a = GPR[R] & 0xFFFF;
-                        int b = memValue & 0xFFFF;
-
-                        int diff = (a - b) & 0xFFFF;
-
-                        boolean underflow = subOverflow16(a, b, diff);
-
-                        GPR[R] = diff;
-                        bus.post(new GPRChanged(R, GPR[R]));
-
-                        // CC: mark UNDERFLOW for subtract; clear OVERFLOW (reserved for add)
-                        CC[0] = false; // OVERFLOW (for addition)
-                        CC[1] = underflow; // UNDERFLOW (for subtraction
-                        bus.post(new CChanged(Arrays.toString(CC)));
-                        bus.post(new MessageChanged("SMR executed: R" + R + " = " + GPR[R]));
-                        System.out.println("SMR executed: R" + R + " = " + GPR[R]);
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged("SMR failed: " + e.getMessage()));
-                        halt();
-                    }
-                    break;
-                }
-                case 06: { // AIR r, immed
-                    System.out.println("AIR exec: IR=" + Integer.toOctalString(IR));
+    // STR r,x,address[,I]
+    private void str() {
+        try {
+            if (!this.setEffectiveAddress())
+                return;
+            if (tracing(TraceLevel.MICRO_OP))
+                tracer.log(TraceLevel.MICRO_OP, "STR effective address: EA=%o",
+                        this.effectiveAddress);
+            // Update cache
+            cache.store(effectiveAddress, GPR[R] & 0xFFFF);
+            if (tracing(TraceLevel.INSTRUCTION))
+                tracer.log(TraceLevel.INSTRUCTION,
+                        "STR EXECUTED. " + "memory address " + effectiveAddress + "=" + (GPR[R] & 0xFFFF));
+            // Keep simulator-visible memory registers consistent for bus listeners
+            this.memory.setMAR(effectiveAddress);
+            this.memory.setMBR(GPR[R] & 0xFFFF);
+
+            publishMemoryRegisters();
+        } catch (Exception e) {
+            if (tracing(TraceLevel.SUMMARY))
+                tracer.log(TraceLevel.SUMMARY, e.getMessage());
+            this.bus.post(new MessageChanged(e.getMessage()));
+            this.halt();
+        }
+    }
 
-                    try {
-                        int r = (IR >> 8) & 0x03; // R at bits 9..8
-                        int immed = IR & 0x1F; // lower 6 bits (adjust depending on ISA spec)
-                        System.out.printf("AIR pre: R%d=%d (oct %o), imm=%d\n", r, GPR[r], GPR[r], immed);
-                        System.out.println("AIR decoded:=" + Integer.toOctalString(r) + " immed: " + immed);
-                        if (r < 0 || r > 3) {
-                            throw new Exception("Bad register number at AIR instruction");
-                        }
-
-                        if (immed == 0) {
-                            bus.post(new MessageChanged("AIR skipped (Immed = 0)"));
-                            break;
-                        }
-
-                        if (GPR[r] == 0) {
-                            GPR[r] = immed;
-                        } else {
-                            GPR[r] = (GPR[r] + immed) & 0xFFFF;
-                        }
-
-                        bus.post(new GPRChanged(r, GPR[r]));
-                        System.out.println("AIR executed: R" + r + " = " + GPR[r]);
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged("AIR failed: " + e.getMessage()));
-                        halt();
-                    }
-                    break;
-                }
+    // LDA r,x,address[,I]
+    private void lda() {
+        try {
+            if (!this.setEffectiveAddress())
+                return;
+            if (tracing(TraceLevel.MICRO_OP))
+                tracer.log(TraceLevel.MICRO_OP, "LDA effective address: EA=%o",
+                        this.effectiveAddress);
+            GPR[R] = effectiveAddress;
+            if (tracing(TraceLevel.INSTRUCTION))
+                tracer.log(TraceLevel.INSTRUCTION, "LDA EXECUTED " + "effectiveAddress=" + effectiveAddress);
+            publishGPR(R);
 
-                case 07: { // SIR r, immed
-                    try {
-                        int r = (IR >> 8) & 0x03; // R at bits 9..8
-                        int imm5 = IR & 0x1F;
-                        System.out.printf("PAR_PTR value at octal address 000356 (decimal 238) prior to SIR:" +
-                                this.memory.dump(238, 239));
-
-                        if (r < 0 || r > 3) {
-                            throw new Exception("Bad register number at SIR instruction");
-                        }
-
-                        if (imm5 == 0) {
-                            bus.post(new MessageChanged("SIR skipped (Immed = 0)"));
-                            break;
-                        }
-
-                        int a = GPR[r] & 0xFFFF;
-                        int b = imm5 & 0xFFFF;
-
-                        int diff = (a - b) & 0xFFFF;
-                        boolean underflow = subOverflow16(a, b, diff);
-
-                        GPR[r] = diff;
-                        bus.post(new GPRChanged(r, GPR[r]));
-
-                        CC[0] = false; // OVERFLOW (for add)
-                        CC[1] = underflow; // UNDERFLOW (for subtract)
-                        bus.post(new CChanged(Arrays.toString(CC)));
-                        bus.post(new MessageChanged("SIR executed: R" + r + " = " + GPR[r]));
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged("SIR failed: " + e.getMessage()));
-                        halt();
-                    }
-                    break;
-                }
-                // written with gpt assistance
-                case 010: { // JZ r,x,address[,I]
-                    try {
-                        this.setEffectiveAddress(opcode);
-                        System.out.printf("JZ effective address: EA=%o%n",
-                                this.effectiveAddress);
-                        System.out.printf("PAR_PTR value at octal address 000356 (decimal 238) prior to JZ:" +
-                                this.memory.dump(238, 239));
-
-                        int branchPC = (this.PC - 1) & 0x7FF; // address of this JZ
-                        int fallthroughPC = this.PC; // PC was incremented in fetch()
-                        int targetPC = this.effectiveAddress;
-
-                        // --- prediction ---
-                        boolean predictedTaken = branchPredictor.predictTaken(branchPC);
-                        int predictedNextPC = predictedTaken ? targetPC : fallthroughPC;
-
-                        // --- actual outcome ---
-                        boolean isZero = (GPR[R] & 0xFFFF) == 0;
-                        CC[3] = isZero; // EQUAL flag
-
-                        boolean actuallyTaken = isZero;
-                        int actualNextPC = actuallyTaken ? targetPC : fallthroughPC;
-
-                        // --- record stats + update predictor ---
-                        boolean correct = (predictedNextPC == actualNextPC);
-                        branchPredictor.recordPredictionResult(correct);
-
-                        branchPredictor.update(branchPC, actuallyTaken);
-
-                        // --- commit real next PC ---
-                        this.PC = actualNextPC;
-
-                        if (actuallyTaken) {
-                            System.out.println("JZ taken, R is 0: R" + R + "=0 → PC=" + this.PC);
-                        } else {
-                            System.out.println("JZ not taken, R is not 0: R" + R + "=" + GPR[R]);
-                        }
-                        bus.post(new CChanged(Arrays.toString(CC)));
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged("JZ failed: " + e.getMessage()));
-                        halt();
-                    }
-                    break;
-                }
+        } catch (Exception e) {
+            if (tracing(TraceLevel.SUMMARY))
+                tracer.log(TraceLevel.SUMMARY, e.getMessage());
+            this.bus.post(new MessageChanged(e.getMessage()));
+            this.halt();
+        }
+    }
 
-                case 011: { // JNE r,x,address[,I]
-                    try {
-                        this.setEffectiveAddress(opcode);
-                        boolean notZero = (GPR[R] & 0xFFFF) != 0;
-                        CC[3] = !notZero ? true : false; // If equal, set; if not equal, clear
-
-                        int branchPC = (this.PC - 1) & 0x7FF; // address of this jne
-                        int fallthroughPC = this.PC; // PC was incremented in fetch()
-                        int targetPC = this.effectiveAddress;
-
-                        // --- prediction ---
-                        boolean predictedTaken = branchPredictor.predictTaken(branchPC);
-                        int predictedNextPC = predictedTaken ? targetPC : fallthroughPC;
-
-                        boolean actuallyTaken = notZero;
-                        int actualNextPC = actuallyTaken ? targetPC : fallthroughPC;
-
-                        // --- record stats + update predictor ---
-                        boolean correct = (predictedNextPC == actualNextPC);
-                        branchPredictor.recordPredictionResult(correct);
-
-                        branchPredictor.update(branchPC, actuallyTaken);
-
-                        // --- commit real next PC ---
-                        this.PC = actualNextPC;
-
-                        if (notZero) {
-                            bus.post(new MessageChanged("JNE taken: R" + R + "!=0 → PC=" + this.PC));
-                        } else {
-                            bus.post(new MessageChanged("JNE not taken: R" + R + "=0"));
-                        }
-                        bus.post(new CChanged(Arrays.toString(CC)));
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged("JNE failed: " + e.getMessage()));
-                        halt();
-                    }
-                    break;
-                }
+    // LDX x,address[,I]
+    private void ldx() {
+        try {
+            if (!this.setEffectiveAddress())
+                return;
+            if (tracing(TraceLevel.MICRO_OP))
+                tracer.log(TraceLevel.MICRO_OP, "LDX effective address before execution: EA=%o",
+                        this.effectiveAddress);
+            loadIndexRegister();
+            if (tracing(TraceLevel.INSTRUCTION))
+                tracer.log(TraceLevel.INSTRUCTION, "LDX EXECUTED. IXR 1: " + IXR[1] + "IXR 2: " + IXR[2] + "IXR 3: " + IXR[3]);
+        } catch (Exception e) {
+            if (tracing(TraceLevel.SUMMARY))
+                tracer.log(TraceLevel.SUMMARY, e.getMessage());
+            this.bus.post(new MessageChanged(e.getMessage()));
+            this.halt();
+        }
+    }
 
-                case 012: { // JCC cc,x,address[,I]
-                    try {
-                        this.setEffectiveAddress(opcode);
-                        int ccIndex = R; // R field = condition code bit index (0–3)
-                        if (ccIndex < 0 || ccIndex > 3)
-                            throw new IllegalArgumentException("Invalid CC index: " + ccIndex);
-
-                        int branchPC = (this.PC - 1) & 0x7FF; // address of this JCC
-                        int fallthroughPC = this.PC; // PC was incremented in fetch()
-                        int targetPC = this.effectiveAddress;
-
-                        // --- prediction ---
-                        boolean predictedTaken = branchPredictor.predictTaken(branchPC);
-                        int predictedNextPC = predictedTaken ? targetPC : fallthroughPC;
-
-                        boolean actuallyTaken = CC[ccIndex];
-                        int actualNextPC = actuallyTaken ? targetPC : fallthroughPC;
-
-                        // --- record stats + update predictor ---
-                        boolean correct = (predictedNextPC == actualNextPC);
-                        branchPredictor.recordPredictionResult(correct);
-                        branchPredictor.update(branchPC, actuallyTaken);
-
-                        // --- commit real next PC ---
-                        this.PC = actualNextPC;
-
-                        if (CC[ccIndex]) {
-                            bus.post(new MessageChanged("JCC taken: CC[" + ccIndex + "]=1 → PC=" + this.PC));
-                        } else {
-                            bus.post(new MessageChanged("JCC not taken: CC[" + ccIndex + "]=0"));
-                        }
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged("JCC failed: " + e.getMessage()));
-                        halt();
-                    }
-                    break;
-                }
+    // STX x,address[,I]
+    private void stx() {
+        if (tracing(TraceLevel.MICRO_OP))
+            tracer.log(TraceLevel.MICRO_OP, "STX exec: IR=" + Integer.toOctalString(IR));
+        try {
+            if (!this.setEffectiveAddress())
+                return;
+            if (tracing(TraceLevel.MICRO_OP))
+                tracer.log(TraceLevel.MICRO_OP, "STX effective address R:" + R + " ix: " + IX + " i flag: " + I
+                        + " effective address: " + this.effectiveAddress);
+            storeIndexRegister();
+            if (tracing(TraceLevel.INSTRUCTION))
+                tracer.log(TraceLevel.INSTRUCTION, "STX EXECUTED. IXR 1: " + IXR[1] + "IXR 2: " + IXR[2] + "IXR 3: " + IXR[3]);
+        } catch (Exception e) {
+            if (tracing(TraceLevel.SUMMARY))
+                tracer.log(TraceLevel.SUMMARY, e.getMessage());
+            this.bus.post(new MessageChanged(e.getMessage()));
+            this.halt();
+        }
+    }
 
-                case 013: { // JMA x,address[,I] – unconditional jump
-                    try {
-                        this.setEffectiveAddress(opcode);
-                        this.PC = this.effectiveAddress;
-                        System.out.printf("JMA effective address: EA=%o%n",
-                                this.effectiveAddress);
-                        System.out.println("JMA executed: PC <- " + this.PC);
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged("JMA failed: " + e.getMessage()));
-                        halt();
-                    }
-                    break;
-                }
+    // AMR r,x,address[,I]
+    private void amr() {
+        if (tracing(TraceLevel.MICRO_OP))
+            tracer.log(TraceLevel.MICRO_OP, "AMR exec: IR=" + Integer.toOctalString(IR));
+        try {
+            if (!this.setEffectiveAddress())
+                return;
+            if (tracing(TraceLevel.MICRO_OP))
+                tracer.log(TraceLevel.MICRO_OP, "AMR effective address: EA=%o",
+                        this.effectiveAddress);
+            // Read via cache (fills block on miss)
+            int memValue = cache.load(effectiveAddress) & 0xFFFF;
+
+            // Keep MAR/MBR consistent for bus listeners
+            this.memory.setMAR(effectiveAddress);
+            this.memory.setMBR(memValue);
+            publishMemoryRegisters();
+
+            // --- Signed-overflow detection for 16-bit add (two's complement) ---
+            int a = GPR[R] & 0xFFFF;
+            int b = memValue & 0xFFFF;
+            int sum = (a + b) & 0xFFFF;
+
+            // https://chatgpt.com/share/6906f0ff-36d8-8007-a4d1-f8dac5a1f999
+            // Interpret sign bits (bit 15) for two's-complement overflow
+            boolean sameSignOperands = ((a ^ b) & 0x8000) == 0;
+            boolean resultSignDiffers = ((a ^ sum) & 0x8000) != 0;
+            boolean overflow = sameSignOperands && resultSignDiffers;
+
+            // Update register
+            GPR[R] = sum;
+            publishGPR(R);
+
+            // --- Condition Codes per ISA ---
+            CC[0] = overflow; // OVERFLOW
+            CC[1] = false; // UNDERFLOW (not used for addition)
+            publishCC();
+            if (tracing(TraceLevel.INSTRUCTION))
+                tracer.log(TraceLevel.INSTRUCTION, "AMR executed: R" + R + " = " + GPR[R]);
+        } catch (Exception e) {
+            bus.post(new MessageChanged("AMR failed: " + e.getMessage()));
+            halt();
+        }
+    }
 
-                case 014: { // JSR x,address[,I]
-                    try {
-                        this.setEffectiveAddress(opcode);
-                        System.out.printf("JSR effective address: EA=%o%n",
-                                this.effectiveAddress);
-                        // Save return address (current PC, which already points to next instruction)
-                        GPR[3] = this.PC & 0xFFFF;
-                        bus.post(new GPRChanged(3, GPR[3]));
-
-                        // Jump to subroutine target
-                        this.PC = this.effectiveAddress;
-                        System.out.println("JSR executed: Saved R3=" + GPR[3] + ", PC=" + this.PC);
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged("JSR failed: " + e.getMessage()));
-                        halt();
-                    }
-                    break;
-                }
-                case 015: { // RFS immed – return from subroutine
-                    try {
-                        int immed = this.IR & 0x1F; // lower 5 bits are immediate
-                        GPR[0] = immed & 0xFFFF;
-                        bus.post(new GPRChanged(0, GPR[0]));
-
-                        // Restore PC from R3
-                        this.PC = GPR[3] & 0xFFFF;
-                        System.out.println("RFS executed: R0 <- " + immed + ", PC <- " + this.PC);
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged("RFS failed: " + e.getMessage()));
-                        halt();
-                    }
-                    break;
-                }
+    // SMR r,x,address[,I]
+    private void smr() {
+        try {
+            if (!this.setEffectiveAddress())
+                return;
+            if (tracing(TraceLevel.MICRO_OP))
+                tracer.log(TraceLevel.MICRO_OP, "SMR effective address: EA=%o",
+                        this.effectiveAddress);
+            // Read via cache (fills block on miss)
+            int memValue = cache.load(effectiveAddress) & 0xFFFF;
+
+            // Keep MAR/MBR consistent for bus listeners
+            this.memory.setMAR(effectiveAddress);
+            this.memory.setMBR(memValue);
+            publishMemoryRegisters();
+
+            // https://chatgpt.com/share/6906f0ff-36d8-8007-a4d1-f8dac5a1f999
+            // --- Signed-underflow detection for 16-bit add (two's complement) ---
+            int a = GPR[R] & 0xFFFF;
+            int b = memValue & 0xFFFF;
+
+            int diff = (a - b) & 0xFFFF;
+
+            boolean underflow = subOverflow16(a, b, diff);
+
+            GPR[R] = diff;
+            publishGPR(R);
+
+            // CC: mark UNDERFLOW for subtract; clear OVERFLOW (reserved for add)
+            CC[0] = false; // OVERFLOW (for addition)
+            CC[1] = underflow; // UNDERFLOW (for subtraction
+            publishCC();
+            if (bus.hasSubscribers(MessageChanged.class))
+                bus.post(new MessageChanged("SMR executed: R" + R + " = " + GPR[R]));
+            if (tracing(TraceLevel.INSTRUCTION))
+                tracer.log(TraceLevel.INSTRUCTION, "SMR executed: R" + R + " = " + GPR[R]);
+        } catch (Exception e) {
+            bus.post(new MessageChanged("SMR failed: " + e.getMessage()));
+            halt();
+        }
+    }
 
-                case 016: { // SOB r,x,address[,I]
-                    System.out.println("SOB exec: IR=" + Integer.toOctalString(IR));
-                    try {
-                        System.out.println("SOB effective address R:" + R + " ix: " + IX + " i flag: " + I
-                                + " effective address: " + this.effectiveAddress);
-                        this.setEffectiveAddress(opcode);
-                        int before = GPR[R];
-                        int after = (before - 1) & 0xFFFF;
-                        GPR[R] = after;
-                        bus.post(new GPRChanged(R, GPR[R]));
-
-                        // Update EQUAL flag: if result == 0, CC[3]=true
-                        CC[3] = (after == 0);
-
-                        int branchPC = (this.PC - 1) & 0x7FF; // address of this SOB
-                        int fallthroughPC = this.PC; // PC was incremented in fetch()
-                        int targetPC = this.effectiveAddress;
-
-                        // --- prediction ---
-                        boolean predictedTaken = branchPredictor.predictTaken(branchPC);
-                        int predictedNextPC = predictedTaken ? targetPC : fallthroughPC;
-
-                        boolean actuallyTaken = (short) after > 0;
-                        int actualNextPC = actuallyTaken ? targetPC : fallthroughPC;
-
-                        // --- record stats + update predictor ---
-                        boolean correct = (predictedNextPC == actualNextPC);
-                        branchPredictor.recordPredictionResult(correct);
-
-                        branchPredictor.update(branchPC, actuallyTaken);
-
-                        // --- commit real next PC ---
-                        this.PC = actualNextPC;
-
-                        if ((short) after > 0) {
-                            bus.post(new MessageChanged(
-                                    "SOB taken: R" + R + " " + before + "→" + after + ", PC=" + this.PC));
-                            System.out.println("SOB taken: R" + R + " " + before + "→" + after + ", PC=" + this.PC);
-                        } else {
-                            bus.post(new MessageChanged("SOB not taken: R" + R + " " + before + "→" + after));
-                            System.out.println("SOB not taken: R" + R + " " + before + "→" + after);
-                        }
-                        bus.post(new CChanged(Arrays.toString(CC)));
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged("SOB failed: " + e.getMessage()));
-                        halt();
-                    }
-                    break;
-                }
+    // AIR r, immed
+    private void air() {
+        if (tracing(TraceLevel.MICRO_OP))
+            tracer.log(TraceLevel.MICRO_OP, "AIR exec: IR=" + Integer.toOctalString(IR));
 
-                case 017: { // JGE r,x,address[,I]
-                    System.out.println("JGE exec: IR=" + Integer.toOctalString(IR));
-                    try {
-                        this.setEffectiveAddress(opcode);
-                        System.out.println("JGE effective address R:" + R + " ix: " + IX + " i flag: " + I
-                                + " effective address: " + this.effectiveAddress);
-                        int signedVal = (short) GPR[R];
-                        CC[3] = (signedVal == 0); // equal flag if exactly zero
-
-                        int branchPC = (this.PC - 1) & 0x7FF; // address of this JGE
-                        int fallthroughPC = this.PC; // PC was incremented in fetch()
-                        int targetPC = this.effectiveAddress;
-
-                        // --- prediction ---
-                        boolean predictedTaken = branchPredictor.predictTaken(branchPC);
-                        int predictedNextPC = predictedTaken ? targetPC : fallthroughPC;
-
-                        boolean actuallyTaken = signedVal >= 0;
-                        int actualNextPC = actuallyTaken ? targetPC : fallthroughPC;
-
-                        // --- record stats + update predictor ---
-                        boolean correct = (predictedNextPC == actualNextPC);
-                        branchPredictor.recordPredictionResult(correct);
-
-                        branchPredictor.update(branchPC, actuallyTaken);
-
-                        // --- commit real next PC ---
-                        this.PC = actualNextPC;
-
-                        if (signedVal >= 0) {
-                            System.out.println("JGE taken: R" + R + "=" + signedVal + " ≥ 0 → PC=" + this.PC);
-                            bus.post(new MessageChanged("JGE taken: R" + R + "=" + signedVal + " ≥ 0 → PC=" + this.PC));
-                        } else {
-                            System.out.println("JGE not taken: R" + R + "=" + signedVal + " < 0");
-                            bus.post(new MessageChanged("JGE not taken: R" + R + "=" + signedVal + " < 0"));
-                        }
-                        bus.post(new CChanged(Arrays.toString(CC)));
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged("JGE failed: " + e.getMessage()));
-                        halt();
-                    }
-                    break;
-                }
+        try {
+            int r = (IR >> 8) & 0x03; // R at bits 9..8
+            int immed = IR & 0x1F; // lower 6 bits (adjust depending on ISA spec)
+            if (tracing(TraceLevel.MICRO_OP))
+                tracer.log(TraceLevel.MICRO_OP, "AIR pre: R%d=%d (oct %o), imm=%d", r, GPR[r], GPR[r], immed);
+            if (tracing(TraceLevel.MICRO_OP))
+                tracer.log(TraceLevel.MICRO_OP, "AIR decoded:=" + Integer.toOctalString(r) + " immed: " + immed);
+            if (r < 0 || r > 3) {
+                throw new Exception("Bad register number at AIR instruction");
+            }
 
-                case 030: { // TRAP trapcode
-                    System.out.println("TRAP exec: IR=" + Integer.toOctalString(IR));
-                    try {
-                        // TRAP instruction format (opcode 30₈):
-                        // Bits [15:10] = opcode (030)
-                        // Bits [4:0] = trap code (0-31)
-                        int trapCode = IR & 0x1F; // Extract trap code from bits [4:0]
-
-                        System.out.println("TRAP trapCode=" + trapCode);
-
-                        // Execute trap using helper method
-                        // This will:
-                        // 1. Save PC+1 to Memory[2]
-                        // 2. Read trap table base from Memory[0]
-                        // 3. Load handler address from Memory[base + trapCode]
-                        // 4. Jump to handler
-                        executeTrap(trapCode);
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged("TRAP failed: " + e.getMessage()));
-                        System.out.println("TRAP failed: " + e.getMessage());
-                        halt();
-                    }
-                    break;
-                }
+            if (immed == 0) {
+                if (bus.hasSubscribers(MessageChanged.class))
+                    bus.post(new MessageChanged("AIR skipped (Immed = 0)"));
+                return;
+            }
 
-                // https://chatgpt.com/share/6901599b-9c2c-8007-861c-a8aa5f7043d4
-                case 031: { // SRC r, count, L/R, A/L
-                    try {
-                        int r = srFieldR(IR);
-                        int al = srFieldAL(IR);
-                        int lr = srFieldLR(IR);
-                        int count = srFieldCount(IR) & 0x0F;
-
-                        if (r < 0 || r > 3) {
-                            throw new Exception("Bad register number at SRC instruction (must be 0, 1, 2, 3)");
-                        }
-
-                        if (al != 0 && al != 1) {
-                            throw new IllegalArgumentException("Bad AL arg in SRC instruction");
-                        }
-
-                        if (lr != 0 && lr != 1) {
-                            throw new IllegalArgumentException("Bad LR arg in SRC instruction");
-                        }
-
-                        if (count < 0 || count > 15) {
-                            throw new IllegalArgumentException("Bad count arg in SRC instruction");
-                        }
-
-                        if (count == 0) {
-                            bus.post(new MessageChanged("SRC skipped (Count=0)"));
-                            break;
-                        }
-
-                        int v = GPR[r] & 0xFFFF;
-                        int lastOut = 0; // the bit that will become carry after the operation
-
-                        // For left shifts (lr == 1)
-                        if (lr == 1) {
-                            // treat arithmetic-left the same as logical-left (common ISA convention).
-                            // logical left: fill LSB with zeros
-                            int n = count & 0x0F; // 1..15 (count==0 already handled)
-                            // compute lastOut = bit that will be shifted out last:
-                            lastOut = (n == 0) ? getCarry() : ((v >> (16 - n)) & 0x1);
-                            v = (v << n) & 0xFFFF;
-                        } else {
-                            // right shifts (lr == 0)
-                            int n = count & 0x0F;
-                            // lastOut: the last bit shifted out from the LSB side is bit (n-1)
-                            lastOut = (n == 0) ? getCarry() : ((v >> (n - 1)) & 0x1);
-
-                            if (al == 1) {
-                                // L == logical right shift (fill with zeros)
-                                v = (v & 0xFFFF) >>> n;
-                            } else {
-                                // A == arithmetic right shift: preserve sign
-                                // sign-extend the 16-bit value to 32-bit signed int, shift arithmetically, mask
-                                // back
-                                int signed = (v & 0x8000) != 0 ? (v | 0xFFFF0000) : v;
-                                int shifted = signed >> n; // arithmetic shift in Java
-                                v = shifted & 0xFFFF;
-                            }
-                        }
-
-                        // Set carry to lastOut
-                        setCarry(lastOut);
-
-                        // Store result
-                        GPR[r] = v & 0xFFFF;
-                        bus.post(new GPRChanged(r, GPR[r]));
-
-                        // Update EQUALORNOT (CC[3]) - 1 if result == 0 else 0
-                        CC[3] = (GPR[r] == 0) ? true : false;
-                        bus.post(new CChanged(Arrays.toString(CC)));
-                        bus.post(new GPRChanged(r, GPR[r]));
-                        bus.post(new MessageChanged(
-                                "SRC executed: R" + r + " = " + GPR[r]) +
-                                " (count=" + count + ", " + (lr == 1 ? "L" : "R") + ")");
-                        System.out.println("SRC executed: R" + r + " = " + GPR[r] +
-                                " (count=" + count + ", " + (lr == 1 ? "L" : "R") + ")");
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged("SRC failed: " + e.getMessage()));
-                        halt();
-                    }
-                    break;
-                }
-                case 032: { // RRC r, count, L/R, A/L
-                    try {
-                        int r = srFieldR(IR);
-                        int lr = srFieldLR(IR);
-                        int count = srFieldCount(IR) & 0x0F;
-                        int al = srFieldAL(IR) & 0x01; // 1 => A (through-carry), 0 => L (logical)
-
-                        if (r < 0 || r > 3) {
-                            throw new Exception("Bad register number at SRC instruction (must be 0, 1, 2, 3)");
-                        }
-
-                        if (al != 0 && al != 1) {
-                            throw new IllegalArgumentException("Bad AL arg in SRC instruction");
-                        }
-
-                        if (lr != 0 && lr != 1) {
-                            throw new IllegalArgumentException("Bad LR arg in SRC instruction");
-                        }
-
-                        if (count < 0 || count > 15) {
-                            throw new IllegalArgumentException("Bad count arg in SRC instruction");
-                        }
-
-                        if (count == 0) {
-                            bus.post(new MessageChanged("RRC skipped (Count=0)"));
-                            break;
-                        }
-
-                        int v = GPR[r] & 0xFFFF;
-                        if (al == 0) {
-                            if (lr == 1) {
-                                v = rotLeft16(v, count);
-                                int lastOut = (v >> (16 - (count % 16))) & 0x1;
-                                setCarry(lastOut);
-                            } else { // right
-                                v = rotRight16(v, count);
-                                // lastOut is the bit that was shifted out on the right (LSB) after count
-                                // rotates:
-                                int lastOut = (v >> ((count - 1) % 16)) & 0x1; // (count-1) maps to the LSB moved out
-                                setCarry(lastOut);
-                            }
-                        } else {
-                            // --- Rotate THROUGH carry (A/L == A) ---
-                            // rotate acro ss 17 bits: 16-bit register + carry bit.
-                            // Effective rotation size is 17, so reduce count mod 17.
-                            int currentCarry = getCarry();
-                            int n = count % 17;
-                            for (int i = 0; i < n; i++) {
-                                if (lr == 1) { // left through carry
-                                    int newCarry = (v >> 15) & 0x1; // MSB becomes new carry
-                                    v = ((v << 1) & 0xFFFF) | (carry & 0x1);
-                                    carry = newCarry;
-                                } else { // right through carry
-                                    int newCarry = v & 0x1; // LSB becomes new carry
-                                    v = ((carry & 0x1) << 15) | (v >>> 1);
-                                    carry = newCarry;
-                                }
-                            }
-                            setCarry(currentCarry);
-                        }
-
-                        GPR[r] = v & 0XFFFF;
-
-                        // Update equality flag CC[3] according to result == 0.
-                        CC[3] = GPR[r] == 0 ? true : false;
-                        bus.post(new CChanged(Arrays.toString(CC)));
-                        bus.post(new GPRChanged(r, GPR[r]));
-                        bus.post(new MessageChanged(
-                                "RRC executed: R" + r + " = " + String.format("0x%04X", GPR[r]) +
-                                        " (count=" + count + ", " + (lr == 1 ? "L" : "R") + ")"));
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged("RRC failed: " + e.getMessage()));
-                        halt();
-                    }
-                    break;
-                }
-                // 033- 51 witten with GPT assistance
-                case 033: { // FADD
-                    this.setEffectiveAddress(opcode);
+            if (GPR[r] == 0) {
+                GPR[r] = immed;
+            } else {
+                GPR[r] = (GPR[r] + immed) & 0xFFFF;
+            }
 
-                    if (R > 1) {
-                        bus.post(new MessageChanged("FADD error: FR must be 0 or 1"));
-                        break;
-                    }
+            publishGPR(r);
+            if (tracing(TraceLevel.INSTRUCTION))
+                tracer.log(TraceLevel.INSTRUCTION, "AIR executed: R" + r + " = " + GPR[r]);
+        } catch (Exception e) {
+            bus.post(new MessageChanged("AIR failed: " + e.getMessage()));
+            halt();
+        }
+    }
 
-                    int operand;
-                    if (I == 1) {
-                        int indirectAddr = cache.load(effectiveAddress) & 0x7FF;
-                        operand = cache.load(indirectAddr) & 0xFFFF;
-                    } else {
-                        operand = cache.load(effectiveAddress) & 0xFFFF;
-                    }
+    // SIR r, immed
+    private void sir() {
+        try {
+            int r = (IR >> 8) & 0x03; // R at bits 9..8
+            int imm5 = IR & 0x1F;
+            if (tracing(TraceLevel.MICRO_OP))
+                tracer.log(TraceLevel.MICRO_OP, "PAR_PTR value at octal address 000356 (decimal 238) prior to SIR:" +
+                        this.memory.dump(238, 239));
+
+            if (r < 0 || r > 3) {
+                throw new Exception("Bad register number at SIR instruction");
+            }
 
-                    FR[R] = floatingAdd(FR[R], operand, false);
-                    bus.post(new MessageChanged("FADD complete on FR" + R));
-                    break;
-                }
-                case 034: { // FSUB
-                    this.setEffectiveAddress(opcode);
+            if (imm5 == 0) {
+                if (bus.hasSubscribers(MessageChanged.class))
+                    bus.post(new MessageChanged("SIR skipped (Immed = 0)"));
+                return;
+            }
 
-                    if (R > 1) {
-                        bus.post(new MessageChanged("FSUB error: FR must be 0 or 1"));
-                        break;
-                    }
+            int a = GPR[r] & 0xFFFF;
+            int b = imm5 & 0xFFFF;
 
-                    int operand;
-                    if (I == 1) {
-                        int indirectAddr = cache.load(effectiveAddress) & 0x7FF;
-                        operand = cache.load(indirectAddr) & 0xFFFF;
-                    } else {
-                        operand = cache.load(effectiveAddress) & 0xFFFF;
-                    }
+            int diff = (a - b) & 0xFFFF;
+            boolean underflow = subOverflow16(a, b, diff);
 
-                    FR[R] = floatingAdd(FR[R], operand, true);
-                    bus.post(new MessageChanged("FSUB complete on FR" + R));
-                    break;
-                }
+            GPR[r] = diff;
+            publishGPR(r);
 
-                case 035: { // VADD
-                    this.setEffectiveAddress(opcode);
+            CC[0] = false; // OVERFLOW (for add)
+            CC[1] = underflow; // UNDERFLOW (for subtract)
+            publishCC();
+            if (bus.hasSubscribers(MessageChanged.class))
+                bus.post(new MessageChanged("SIR executed: R" + r + " = " + GPR[r]));
+        } catch (Exception e) {
+            bus.post(new MessageChanged("SIR failed: " + e.getMessage()));
+            halt();
+        }
+    }
 
-                    int length = FR[R];
-                    int ptr1 = cache.load(effectiveAddress);
-                    int ptr2 = cache.load(effectiveAddress + 1);
+    /**
+     * Predicts the conditional branch at PC - 1 to effectiveAddress, records
+     * whether the prediction was right and trains the predictor.
+     *
+     * @return the real next PC
+     */
+    private int resolveBranch(boolean actuallyTaken) {
+        int branchPC = (this.PC - 1) & 0x7FF;
+        int fallthroughPC = this.PC; // PC was incremented in fetch()
+        int targetPC = this.effectiveAddress;
+
+        int predictedNextPC = branchPredictor.predictTaken(branchPC, targetPC) ? targetPC : fallthroughPC;
+        int actualNextPC = actuallyTaken ? targetPC : fallthroughPC;
+        recordPrediction(branchPC, actuallyTaken, predictedNextPC == actualNextPC);
+        branchPredictor.update(branchPC, targetPC, actuallyTaken);
+        return actualNextPC;
+    }
 
-                    for (int i = 0; i < length; i++) {
-                        int v1 = cache.load(ptr1 + i);
-                        int v2 = cache.load(ptr2 + i);
+    /**
+     * Same for the JMA, JSR or RFS at PC - 1 going to targetPC; only counted
+     * when the predictor predicts targets.
+     */
+    private void resolveTarget(int targetPC) {
+        int branchPC = (this.PC - 1) & 0x7FF;
+        int predictedPC = branchPredictor.predictTarget(branchPC, opcode);
+        if (predictedPC >= 0)
+            recordPrediction(branchPC, true, predictedPC == targetPC);
+        branchPredictor.updateTarget(branchPC, opcode, targetPC, this.PC);
+    }
 
-                        int result = (v1 + v2) & 0xFFFF;
-                        cache.store(ptr1 + i, result);
+    private void recordPrediction(int branchPC, boolean taken, boolean correct) {
+        branchPredictor.recordPredictionResult(correct);
+        branchProfile.record(branchPC, opcode, taken, correct);
+        branchStatsChanged.setRelease(true);
+    }
 
-                        memory.MAR = ptr1 + i;
-                        memory.MBR = result;
-                    }
+    /**
+     * Event bus refresh tick: asks the cache for a snapshot and posts cache
+     * and branch stats that changed since the last tick.
+     */
+    private void refresh() {
+        cache.requestSnapshot();
+        cache.publishStats();
+        publishBranchStats();
+    }
 
-                    bus.post(new MessageChanged("VADD done length " + length));
-                    break;
-                }
+    /**
+     * Posts the prediction stats if a branch ran since they were last
+     * posted. Runs once per event bus refresh tick and when a run stops,
+     * so the event goes out at most that often however many branches run.
+     */
+    void publishBranchStats() {
+        if (branchStatsChanged.getAndSet(false)) {
+            postBranchPredictionStats();
+        }
+    }
 
-                case 036: { // VSUB
-                    this.setEffectiveAddress(opcode);
+    private void postBranchPredictionStats() {
+        if (bus.hasSubscribers(BranchPredictionStatsChanged.class))
+            bus.post(new BranchPredictionStatsChanged(branchPredictor.getBranchCount(),
+                    branchPredictor.getCorrectPredictions(), branchPredictor.getAccuracy()));
+    }
 
-                    int length = FR[R];
-                    int ptr1 = cache.load(effectiveAddress);
-                    int ptr2 = cache.load(effectiveAddress + 1);
+    // written with gpt assistance
+    // JZ r,x,address[,I]
+    private void jz() {
+        try {
+            if (!this.setEffectiveAddress())
+                return;
+            if (tracing(TraceLevel.MICRO_OP))
+                tracer.log(TraceLevel.MICRO_OP, "JZ effective address: EA=%o",
+                        this.effectiveAddress);
+            if (tracing(TraceLevel.MICRO_OP))
+                tracer.log(TraceLevel.MICRO_OP, "PAR_PTR value at octal address 000356 (decimal 238) prior to JZ:" +
+                        this.memory.dump(238, 239));
 
-                    for (int i = 0; i < length; i++) {
-                        int v1 = cache.load(ptr1 + i);
-                        int v2 = cache.load(ptr2 + i);
+            boolean isZero = (GPR[R] & 0xFFFF) == 0;
+            CC[3] = isZero; // EQUAL flag
 
-                        int result = (v1 - v2) & 0xFFFF;
-                        cache.store(ptr1 + i, result);
+            this.PC = resolveBranch(isZero);
 
-                        memory.MAR = ptr1 + i;
-                        memory.MBR = result;
-                    }
+            if (isZero) {
+                if (tracing(TraceLevel.INSTRUCTION))
+                    tracer.log(TraceLevel.INSTRUCTION, "JZ taken, R is 0: R" + R + "=0 → PC=" + this.PC);
+            } else {
+                if (tracing(TraceLevel.INSTRUCTION))
+                    tracer.log(TraceLevel.INSTRUCTION, "JZ not taken, R is not 0: R" + R + "=" + GPR[R]);
+            }
+            publishCC();
+        } catch (Exception e) {
+            bus.post(new MessageChanged("JZ failed: " + e.getMessage()));
+            halt();
+        }
+    }
 
-                    bus.post(new MessageChanged("VSUB done length " + length));
-                    break;
-                }
+    // JNE r,x,address[,I]
+    private void jne() {
+        try {
+            if (!this.setEffectiveAddress())
+                return;
+            boolean notZero = (GPR[R] & 0xFFFF) != 0;
+            CC[3] = !notZero ? true : false; // If equal, set; if not equal, clear
 
-                case 037: { // CNVRT
-                    this.setEffectiveAddress(opcode);
+            this.PC = resolveBranch(notZero);
 
-                    int memValue = cache.load(effectiveAddress) & 0xFFFF;
+            if (notZero) {
+                if (bus.hasSubscribers(MessageChanged.class))
+                    bus.post(new MessageChanged("JNE taken: R" + R + "!=0 → PC=" + this.PC));
+            } else {
+                if (bus.hasSubscribers(MessageChanged.class))
+                    bus.post(new MessageChanged("JNE not taken: R" + R + "=0"));
+            }
+            publishCC();
+        } catch (Exception e) {
+            bus.post(new MessageChanged("JNE failed: " + e.getMessage()));
+            halt();
+        }
+    }
 
-                    if (GPR[R] == 0) {
-                        // Convert floating to fixed
-                        GPR[R] = floatingToFixed(memValue);
-                    } else {
-                        // Convert fixed to floating (goes into FR0 always)
-                        FR[0] = fixedToFloating(memValue);
-                    }
+    // JCC cc,x,address[,I]
+    private void jcc() {
+        try {
+            if (!this.setEffectiveAddress())
+                return;
+            int ccIndex = R; // R field = condition code bit index (0–3)
+            if (ccIndex < 0 || ccIndex > 3)
+                throw new IllegalArgumentException("Invalid CC index: " + ccIndex);
 
-                    bus.post(new MessageChanged("CNVRT executed"));
-                    break;
-                }
-                case 050: { // LDFR
-                    this.setEffectiveAddress(opcode);
+            this.PC = resolveBranch(CC[ccIndex]);
 
-                    if (R > 1) {
-                        bus.post(new MessageChanged("LDFR error: FR must be 0 or 1"));
-                        break;
-                    }
+            if (CC[ccIndex]) {
+                if (bus.hasSubscribers(MessageChanged.class))
+                    bus.post(new MessageChanged("JCC taken: CC[" + ccIndex + "]=1 → PC=" + this.PC));
+            } else {
+                if (bus.hasSubscribers(MessageChanged.class))
+                    bus.post(new MessageChanged("JCC not taken: CC[" + ccIndex + "]=0"));
+            }
+        } catch (Exception e) {
+            bus.post(new MessageChanged("JCC failed: " + e.getMessage()));
+            halt();
+        }
+    }
 
-                    FR[R] = cache.load(effectiveAddress) & 0xFFFF;
-                    bus.post(new MessageChanged("LDFR loaded FR" + R));
-                    break;
-                }
-                case 051: { // STFR
-                    this.setEffectiveAddress(opcode);
+    // JMA x,address[,I] – unconditional jump
+    private void jma() {
+        try {
+            if (!this.setEffectiveAddress())
+                return;
+            resolveTarget(this.effectiveAddress);
+            this.PC = this.effectiveAddress;
+            if (tracing(TraceLevel.MICRO_OP))
+                tracer.log(TraceLevel.MICRO_OP, "JMA effective address: EA=%o",
+                        this.effectiveAddress);
+            if (tracing(TraceLevel.INSTRUCTION))
+                tracer.log(TraceLevel.INSTRUCTION, "JMA executed: PC <- " + this.PC);
+        } catch (Exception e) {
+            bus.post(new MessageChanged("JMA failed: " + e.getMessage()));
+            halt();
+        }
+    }
 
-                    if (R > 1) {
-                        bus.post(new MessageChanged("STFR error: FR must be 0 or 1"));
-                        break;
-                    }
+    // JSR x,address[,I]
+    private void jsr() {
+        try {
+            if (!this.setEffectiveAddress())
+                return;
+            if (tracing(TraceLevel.MICRO_OP))
+                tracer.log(TraceLevel.MICRO_OP, "JSR effective address: EA=%o",
+                        this.effectiveAddress);
+            // Save return address (current PC, which already points to next instruction)
+            GPR[3] = this.PC & 0xFFFF;
+            publishGPR(3);
+
+            // Jump to subroutine target
+            resolveTarget(this.effectiveAddress);
+            this.PC = this.effectiveAddress;
+            if (tracing(TraceLevel.INSTRUCTION))
+                tracer.log(TraceLevel.INSTRUCTION, "JSR executed: Saved R3=" + GPR[3] + ", PC=" + this.PC);
+        } catch (Exception e) {
+            bus.post(new MessageChanged("JSR failed: " + e.getMessage()));
+            halt();
+        }
+    }
 
-                    cache.store(effectiveAddress, FR[R]);
+    // RFS immed – return from subroutine
+    private void rfs() {
+        try {
+            int immed = this.IR & 0x1F; // lower 5 bits are immediate
+            GPR[0] = immed & 0xFFFF;
+            publishGPR(0);
+
+            // Restore PC from R3
+            resolveTarget(GPR[3] & 0xFFFF);
+            this.PC = GPR[3] & 0xFFFF;
+            if (tracing(TraceLevel.INSTRUCTION))
+                tracer.log(TraceLevel.INSTRUCTION, "RFS executed: R0 <- " + immed + ", PC <- " + this.PC);
+        } catch (Exception e) {
+            bus.post(new MessageChanged("RFS failed: " + e.getMessage()));
+            halt();
+        }
+    }
 
-                    memory.MAR = effectiveAddress;
-                    memory.MBR = FR[R];
+    // SOB r,x,address[,I]
+    private void sob() {
+        if (tracing(TraceLevel.MICRO_OP))
+            tracer.log(TraceLevel.MICRO_OP, "SOB exec: IR=" + Integer.toOctalString(IR));
+        try {
+            if (tracing(TraceLevel.MICRO_OP))
+                tracer.log(TraceLevel.MICRO_OP, "SOB effective address R:" + R + " ix: " + IX + " i flag: " + I
+                        + " effective address: " + this.effectiveAddress);
+            if (!this.setEffectiveAddress())
+                return;
+            int before = GPR[R];
+            int after = (before - 1) & 0xFFFF;
+            GPR[R] = after;
+            publishGPR(R);
+
+            // Update EQUAL flag: if result == 0, CC[3]=true
+            CC[3] = (after == 0);
+
+            this.PC = resolveBranch((short) after > 0);
+
+            if ((short) after > 0) {
+                if (bus.hasSubscribers(MessageChanged.class))
+                    bus.post(new MessageChanged(
+                            "SOB taken: R" + R + " " + before + "→" + after + ", PC=" + this.PC));
+                if (tracing(TraceLevel.INSTRUCTION))
+                    tracer.log(TraceLevel.INSTRUCTION, "SOB taken: R" + R + " " + before + "→" + after + ", PC=" + this.PC);
+            } else {
+                if (bus.hasSubscribers(MessageChanged.class))
+                    bus.post(new MessageChanged("SOB not taken: R" + R + " " + before + "→" + after));
+                if (tracing(TraceLevel.INSTRUCTION))
+                    tracer.log(TraceLevel.INSTRUCTION, "SOB not taken: R" + R + " " + before + "→" + after);
+            }
+            publishCC();
+        } catch (Exception e) {
+            bus.post(new MessageChanged("SOB failed: " + e.getMessage()));
+            halt();
+        }
+    }
 
-                    bus.post(new MessageChanged("STFR stored FR" + R));
-                    break;
-                }
+    // JGE r,x,address[,I]
+    private void jge() {
+        if (tracing(TraceLevel.MICRO_OP))
+            tracer.log(TraceLevel.MICRO_OP, "JGE exec: IR=" + Integer.toOctalString(IR));
+        try {
+            if (!this.setEffectiveAddress())
+                return;
+            if (tracing(TraceLevel.MICRO_OP))
+                tracer.log(TraceLevel.MICRO_OP, "JGE effective address R:" + R + " ix: " + IX + " i flag: " + I
+                        + " effective address: " + this.effectiveAddress);
+            int signedVal = (short) GPR[R];
+            CC[3] = (signedVal == 0); // equal flag if exactly zero
+
+            this.PC = resolveBranch(signedVal >= 0);
+
+            if (signedVal >= 0) {
+                if (tracing(TraceLevel.INSTRUCTION))
+                    tracer.log(TraceLevel.INSTRUCTION, "JGE taken: R" + R + "=" + signedVal + " ≥ 0 → PC=" + this.PC);
+                if (bus.hasSubscribers(MessageChanged.class))
+                    bus.post(new MessageChanged("JGE taken: R" + R + "=" + signedVal + " ≥ 0 → PC=" + this.PC));
+            } else {
+                if (tracing(TraceLevel.INSTRUCTION))
+                    tracer.log(TraceLevel.INSTRUCTION, "JGE not taken: R" + R + "=" + signedVal + " < 0");
+                if (bus.hasSubscribers(MessageChanged.class))
+                    bus.post(new MessageChanged("JGE not taken: R" + R + "=" + signedVal + " < 0"));
+            }
+            publishCC();
+        } catch (Exception e) {
+            bus.post(new MessageChanged("JGE failed: " + e.getMessage()));
+            halt();
+        }
+    }
 
-                case 070: { // MLT rx, ry
-                    try {
-                        int rx = (IR >> 8) & 0x03;
-                        int ry = (IR >> 6) & 0x03;
-
-                        if ((rx != 0 && rx != 2) || (ry != 0 && ry != 2)) {
-                            throw new IllegalArgumentException("MLT: rx and ry must be 0 or 2.");
-                        }
-
-                        long result = (long) GPR[rx] * (long) GPR[ry];
-                        GPR[rx] = (int) ((result >> 16) & 0xFFFF); // high order bits
-                        GPR[rx + 1] = (int) (result & 0xFFFF); // low order bits
-
-                        // Set overflow flag if result exceeds 32 bits
-                        if (result > 0xFFFFFFFFL || result < 0) {
-                            CC[0] = true; // Overflow flag
-                        } else {
-                            CC[0] = false;
-                        }
-                        bus.post(new CChanged(Arrays.toString(CC)));
-                        bus.post(new GPRChanged(rx, GPR[rx]));
-                        bus.post(new GPRChanged(rx + 1, GPR[rx + 1]));
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged(e.getMessage()));
-                        halt();
-                    }
-                    break;
-                }
+    // TRAP trapcode
+    private void trap() {
+        if (tracing(TraceLevel.MICRO_OP))
+            tracer.log(TraceLevel.MICRO_OP, "TRAP exec: IR=" + Integer.toOctalString(IR));
+        try {
+            // TRAP instruction format (opcode 30₈):
+            // Bits [15:10] = opcode (030)
+            // Bits [4:0] = trap code (0-31)
+            int trapCode = IR & 0x1F; // Extract trap code from bits [4:0]
+
+            if (tracing(TraceLevel.MICRO_OP))
+                tracer.log(TraceLevel.MICRO_OP, "TRAP trapCode=" + trapCode);
+
+            // Execute trap using helper method
+            // This will:
+            // 1. Save PC+1 to Memory[2]
+            // 2. Read trap table base from Memory[0]
+            // 3. Load handler address from Memory[base + trapCode]
+            // 4. Jump to handler
+            executeTrap(trapCode);
+        } catch (Exception e) {
+            bus.post(new MessageChanged("TRAP failed: " + e.getMessage()));
+            if (tracing(TraceLevel.SUMMARY))
+                tracer.log(TraceLevel.SUMMARY, "TRAP failed: " + e.getMessage());
+            halt();
+        }
+    }
 
-                case 071: { // DVD rx, ry
-                    try {
-                        int rx = (IR >> 8) & 0x03;
-                        int ry = (IR >> 6) & 0x03;
-
-                        if ((rx != 0 && rx != 2) || (ry != 0 && ry != 2)) {
-                            throw new IllegalArgumentException("DVD: rx and ry must be 0 or 2.");
-                        }
-
-                        if (GPR[ry] == 0) {
-                            CC[2] = true; // DIVZERO flag
-                            throw new ArithmeticException("Division by zero in DVD instruction.");
-                        }
-
-                        int quotient = GPR[rx] / GPR[ry];
-                        int remainder = GPR[rx] % GPR[ry];
-                        GPR[rx] = quotient;
-                        GPR[rx + 1] = remainder;
-                        bus.post(new CChanged(Arrays.toString(CC)));
-                        bus.post(new GPRChanged(rx, GPR[rx]));
-                        bus.post(new GPRChanged(rx + 1, GPR[rx + 1]));
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged(e.getMessage()));
-                        halt();
-                    }
-                    break;
-                }
+    // https://chatgpt.com/share/6901599b-9c2c-8007-861c-a8aa5f7043d4
+    // SRC r, count, L/R, A/L
+    private void src() {
+        try {
+            int r = srFieldR(IR);
+            int al = srFieldAL(IR);
+            int lr = srFieldLR(IR);
+            int count = srFieldCount(IR) & 0x0F;
 
-                case 072: { // TRR rx, ry
-                    try {
-                        int rx = (IR >> 8) & 0x03;
-                        int ry = (IR >> 6) & 0x03;
-                        if ((rx < 0 || rx > 3) || (ry < 0 && ry > 3)) {
-                            throw new IllegalArgumentException("TRR: rx and ry must be 0, 1, 2, 3.");
-                        }
-
-                        if (GPR[rx] == GPR[ry]) {
-                            CC[3] = true; // EQUAL flag
-                        } else {
-                            CC[3] = false;
-                        }
-                        bus.post(new CChanged(Arrays.toString(CC)));
-                        bus.post(new MessageChanged("TRR executed. rx=" + GPR[rx] + ", ry=" + GPR[ry] +
-                                ", EqualFlag=" + CC[3]));
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged(e.getMessage()));
-                        halt();
-                    }
-                    break;
-                }
+            if (r < 0 || r > 3) {
+                throw new Exception("Bad register number at SRC instruction (must be 0, 1, 2, 3)");
+            }
 
-                case 073: { // AND rx, ry
-                    try {
-                        int rx = (IR >> 8) & 0x03;
-                        int ry = (IR >> 6) & 0x03;
-                        ;
-                        GPR[rx] = (GPR[rx] & GPR[ry]) & 0xFFFF;
-                        bus.post(new GPRChanged(rx, GPR[rx]));
-                        bus.post(new MessageChanged("AND executed: R" + rx + " = " + GPR[rx] + " (& R" + ry + ")"));
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged(e.getMessage()));
-                        halt();
-                    }
-                    break;
-                }
+            if (al != 0 && al != 1) {
+                throw new IllegalArgumentException("Bad AL arg in SRC instruction");
+            }
 
-                case 074: { // ORR rx, ry
-                    try {
-                        int rx = (IR >> 8) & 0x03;
-                        int ry = (IR >> 6) & 0x03;
-                        if ((rx < 0 || rx > 3) || (ry < 0 && ry > 3)) {
-                            throw new IllegalArgumentException("ORR: rx and ry must be 0, 1, 2, 3.");
-                        }
-                        GPR[rx] = (GPR[rx] | GPR[ry]) & 0xFFFF;
-                        bus.post(new GPRChanged(rx, GPR[rx]));
-                        bus.post(new MessageChanged("ORR executed: R" + rx + " = " + GPR[rx] + " (| R" + ry + ")"));
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged(e.getMessage()));
-                        halt();
-                    }
-                    break;
-                }
+            if (lr != 0 && lr != 1) {
+                throw new IllegalArgumentException("Bad LR arg in SRC instruction");
+            }
 
-                case 075: { // NOT rx
-                    try {
-                        int rx = (IR >> 8) & 0x03;
-                        if ((rx < 0 || rx > 3)) {
-                            throw new IllegalArgumentException("NOT: rx must be 0, 1, 2, 3.");
-                        }
-                        GPR[rx] = (~GPR[rx]) & 0xFFFF;
-                        bus.post(new GPRChanged(rx, GPR[rx]));
-                        bus.post(new MessageChanged("NOT executed: R" + rx + " = " + GPR[rx]));
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged(e.getMessage()));
-                        halt();
-                    }
-                    break;
+            if (count < 0 || count > 15) {
+                throw new IllegalArgumentException("Bad count arg in SRC instruction");
+            }
+
+            if (count == 0) {
+                if (bus.hasSubscribers(MessageChanged.class))
+                    bus.post(new MessageChanged("SRC skipped (Count=0)"));
+                return;
+            }
+
+            int v = GPR[r] & 0xFFFF;
+            int lastOut = 0; // the bit that will become carry after the operation
+
+            // For left shifts (lr == 1)
+            if (lr == 1) {
+                // treat arithmetic-left the same as logical-left (common ISA convention).
+                // logical left: fill LSB with zeros
+                int n = count & 0x0F; // 1..15 (count==0 already handled)
+                // compute lastOut = bit that will be shifted out last:
+                lastOut = (n == 0) ? getCarry() : ((v >> (16 - n)) & 0x1);
+                v = (v << n) & 0xFFFF;
+            } else {
+                // right shifts (lr == 0)
+                int n = count & 0x0F;
+                // lastOut: the last bit shifted out from the LSB side is bit (n-1)
+                lastOut = (n == 0) ? getCarry() : ((v >> (n - 1)) & 0x1);
+
+                if (al == 1) {
+                    // L == logical right shift (fill with zeros)
+                    v = (v & 0xFFFF) >>> n;
+                } else {
+                    // A == arithmetic right shift: preserve sign
+                    // sign-extend the 16-bit value to 32-bit signed int, shift arithmetically, mask
+                    // back
+                    int signed = (v & 0x8000) != 0 ? (v | 0xFFFF0000) : v;
+                    int shifted = signed >> n; // arithmetic shift in Java
+                    v = shifted & 0xFFFF;
                 }
+            }
 
-                case 061: { // IN r, devid
+            // Set carry to lastOut
+            setCarry(lastOut);
+
+            // Store result
+            GPR[r] = v & 0xFFFF;
+            publishGPR(r);
+
+            // Update EQUALORNOT (CC[3]) - 1 if result == 0 else 0
+            CC[3] = (GPR[r] == 0) ? true : false;
+            publishCC();
+            publishGPR(r);
+            if (bus.hasSubscribers(MessageChanged.class))
+                bus.post(new MessageChanged(
+                        "SRC executed: R" + r + " = " + GPR[r]) +
+                        " (count=" + count + ", " + (lr == 1 ? "L" : "R") + ")");
+            if (tracing(TraceLevel.INSTRUCTION))
+                tracer.log(TraceLevel.INSTRUCTION, "SRC executed: R" + r + " = " + GPR[r] +
+                        " (count=" + count + ", " + (lr == 1 ? "L" : "R") + ")");
+        } catch (Exception e) {
+            bus.post(new MessageChanged("SRC failed: " + e.getMessage()));
+            halt();
+        }
+    }
 
-                    int r = (IR >> 8) & 0x03;
-                    int devid = (IR >> 3) & 0x1F;
-                    if ((r < 0 || r > 3)) {
-                        throw new IllegalArgumentException("IN: r must be 0, 1, 2, 3.");
-                    }
-                    if ((devid < 0 || devid == 1 || devid > 31)) {
-                        throw new IllegalArgumentException(
-                                "IN: devid must be 0 (keyboard), 2 (card reader), or 3-31 (misc)");
-                    }
-                    if (devid == 0) {
-                        inputBaseAddr = GPR[r] & 0x7FF; // word address in 0..2047
-                        waitingInDestReg = r;
-                        waitingForConsoleInput = true;
-
-                        if (running) {
-                            cpuTick.stop();
-                        }
-
-                    } else if (devid == 2) {
-                        int paragraphBase = 300;
-                        int addr = paragraphBase;
-
-                        Path defaultRom = null;
-                        try {
-                            defaultRom = ResourceUtil.extractResourceToTemp("/test-files/program2-paragraph.txt",
-                                    "rom-", ".txt");
-                        } catch (Exception e) {
-                            bus.post(new MessageChanged("IN failed: " + e.getMessage()));
-                            halt();
-                            e.printStackTrace();
-                        }
-                        try (java.io.Reader reader = new java.io.InputStreamReader(
-                                new java.io.FileInputStream(defaultRom.toString()),
-                                java.nio.charset.StandardCharsets.US_ASCII)) {
-
-                            int ch;
-                            while ((ch = reader.read()) != -1 && addr < 2048) {
-                                // ch is 0..255, we store it into a 16-bit word
-                                int word = ch & 0xFF; // lower 8 bits = character
-                                cache.store(addr, word);
-                                memory.writeMemory(addr, word);
-                                System.out.println("WRITE char " + ch + " as integer word " + word + " at " + addr);
-                                addr++;
-                            }
-
-                            // store 0 terminator after reading in content
-                            cache.store(addr, 0);
-                            System.out.println("memory at 280-520 after IN write");
-                            System.out.println(this.memory.dump(280, 520));
-                        } catch (Exception e) {
-                            bus.post(new MessageChanged("IN failed: " + e.getMessage()));
-                            halt();
-                        }
-                    } else {
-                        // your existing device path (if any)
-                        int value = 0;
-                        GPR[r] = value & 0xFFFF;
-                        bus.post(new GPRChanged(r, GPR[r]));
-                    }
-                    break;
+    // RRC r, count, L/R, A/L
+    private void rrc() {
+        try {
+            int r = srFieldR(IR);
+            int lr = srFieldLR(IR);
+            int count = srFieldCount(IR) & 0x0F;
+            int al = srFieldAL(IR) & 0x01; // 1 => A (through-carry), 0 => L (logical)
+
+            if (r < 0 || r > 3) {
+                throw new Exception("Bad register number at SRC instruction (must be 0, 1, 2, 3)");
+            }
+
+            if (al != 0 && al != 1) {
+                throw new IllegalArgumentException("Bad AL arg in SRC instruction");
+            }
+
+            if (lr != 0 && lr != 1) {
+                throw new IllegalArgumentException("Bad LR arg in SRC instruction");
+            }
+
+            if (count < 0 || count > 15) {
+                throw new IllegalArgumentException("Bad count arg in SRC instruction");
+            }
+
+            if (count == 0) {
+                if (bus.hasSubscribers(MessageChanged.class))
+                    bus.post(new MessageChanged("RRC skipped (Count=0)"));
+                return;
+            }
+
+            int v = GPR[r] & 0xFFFF;
+            if (al == 0) {
+                if (lr == 1) {
+                    v = rotLeft16(v, count);
+                    int lastOut = (v >> (16 - (count % 16))) & 0x1;
+                    setCarry(lastOut);
+                } else { // right
+                    v = rotRight16(v, count);
+                    // lastOut is the bit that was shifted out on the right (LSB) after count
+                    // rotates:
+                    int lastOut = (v >> ((count - 1) % 16)) & 0x1; // (count-1) maps to the LSB moved out
+                    setCarry(lastOut);
                 }
-                case 062: { // OUT r, devid
-                    try {
-                        int r = (IR >> 8) & 0x03; // [9..8] OK
-                        int devid = (IR >> 3) & 0x1F; // [7..3] ✅
-                        int value = GPR[r] & 0xFF;
-                        if ((r < 0 || r > 3)) {
-                            throw new IllegalArgumentException("OUT: r must be 0, 1, 2, 3.");
-                        }
-
-                        if ((devid < 0 || (devid < 3 && devid != 1) || devid > 31)) {
-                            throw new IllegalArgumentException("OUT:s devid must be 1 (printer) or 3-31 (misc)");
-                        }
-                        if (devid == 1) { // console / guidance
-                            char ch = (char) value;
-                            this.bus.post(new MessageChanged("" + ch + ""));
-                            System.out.printf(
-                                    "OUT sanity: R0=%04o R1=%04o R2=%04o R3(dec)=%d (octal %06o) IR=%06o MBR=%06o\n",
-                                    GPR[0] & 0x7FF, GPR[1] & 0x7FF, GPR[2] & 0x7FF, GPR[3] & 0xFFFF,
-                                    GPR[3] & 0xFFFF, IR & 0xFFFF, memory.MBR & 0xFFFF);
-                        } else {
-                            System.out.println("OUT dbg: r=" + r + " devid=" + devid + " val=" + value);
-                        }
-
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged("OUT failed: " + e.getMessage()));
-                        halt();
+            } else {
+                // --- Rotate THROUGH carry (A/L == A) ---
+                // rotate acro ss 17 bits: 16-bit register + carry bit.
+                // Effective rotation size is 17, so reduce count mod 17.
+                int currentCarry = getCarry();
+                int n = count % 17;
+                for (int i = 0; i < n; i++) {
+                    if (lr == 1) { // left through carry
+                        int newCarry = (v >> 15) & 0x1; // MSB becomes new carry
+                        v = ((v << 1) & 0xFFFF) | (carry & 0x1);
+                        carry = newCarry;
+                    } else { // right through carry
+                        int newCarry = v & 0x1; // LSB becomes new carry
+                        v = ((carry & 0x1) << 15) | (v >>> 1);
+                        carry = newCarry;
                     }
-                    break;
                 }
+                setCarry(currentCarry);
+            }
 
-                case 063: { // CHK r, devid
-                    System.out.println("CHK exec: IR=" + Integer.toOctalString(IR));
-                    try {
-                        // CHK instruction format (opcode 63₈):
-                        // Bits [15:10] = opcode (063)
-                        // Bits [9:8] = r (register 0-3)
-                        // Bits [7:3] = devid (device ID 0-31)
-                        int r = (IR >> 8) & 0x03; // Extract r from bits [9:8]
-                        int devid = (IR >> 3) & 0x1F; // Extract devid from bits [7:3]
-
-                        if (r < 0 || r > 3) {
-                            throw new IllegalArgumentException("CHK: r must be 0, 1, 2, 3.");
-                        }
-
-                        if (devid < 0 || devid > 31) {
-                            throw new IllegalArgumentException("CHK: devid must be 0-31.");
-                        }
-
-                        // Check device status and return in register r
-                        // Per ISA spec: 0 = device not ready, 1 = device ready
-                        int deviceStatus;
-
-                        // Device status logic - integrate with existing I/O model
-                        // For this implementation, we'll use simple heuristics:
-                        if (devid == 0) {
-                            // Keyboard (console input) - ready if not waiting for input
-                            deviceStatus = waitingForConsoleInput ? 0 : 1;
-                        } else if (devid == 1) {
-                            // Printer (console output) - always ready
-                            deviceStatus = 1;
-                        } else if (devid == 2) {
-                            // Card reader - always ready (for simplicity)
-                            deviceStatus = 1;
-                        } else {
-                            // Other devices (3-31) - assume ready
-                            deviceStatus = 1;
-                        }
-
-                        // Store device status in register r
-                        GPR[r] = deviceStatus & 0xFFFF;
-                        bus.post(new GPRChanged(r, GPR[r]));
-
-                        bus.post(new MessageChanged("CHK: Device " + devid + " status=" + deviceStatus +
-                                " (0=not ready, 1=ready) -> R" + r));
-                        System.out.printf("CHK executed: devid=%d, status=%d, R%d=%d%n",
-                                devid, deviceStatus, r, GPR[r]);
-                    } catch (Exception e) {
-                        bus.post(new MessageChanged("CHK failed: " + e.getMessage()));
-                        System.out.println("CHK failed: " + e.getMessage());
-                        halt();
-                    }
-                    break;
-                }
+            GPR[r] = v & 0XFFFF;
+
+            // Update equality flag CC[3] according to result == 0.
+            CC[3] = GPR[r] == 0 ? true : false;
+            publishCC();
+            publishGPR(r);
+            if (bus.hasSubscribers(MessageChanged.class))
+                bus.post(new MessageChanged(
+                        "RRC executed: R" + r + " = " + String.format("0x%04X", GPR[r]) +
+                                " (count=" + count + ", " + (lr == 1 ? "L" : "R") + ")"));
+        } catch (Exception e) {
+            bus.post(new MessageChanged("RRC failed: " + e.getMessage()));
+            halt();
+        }
+    }
+
+    // 033- 51 witten with GPT assistance
+    // FADD
+    private void fadd() {
+        if (!this.setEffectiveAddress())
+            return;
+
+        if (R > 1) {
+            bus.post(new MessageChanged("FADD error: FR must be 0 or 1"));
+            return;
+        }
+
+        int operand;
+        if (I == 1) {
+            int indirectAddr = cache.load(effectiveAddress) & 0x7FF;
+            operand = cache.load(indirectAddr) & 0xFFFF;
+        } else {
+            operand = cache.load(effectiveAddress) & 0xFFFF;
+        }
+
+        FR[R] = floatingAdd(FR[R], operand, false);
+        if (bus.hasSubscribers(MessageChanged.class))
+            bus.post(new MessageChanged("FADD complete on FR" + R));
+    }
+
+    // FSUB
+    private void fsub() {
+        if (!this.setEffectiveAddress())
+            return;
+
+        if (R > 1) {
+            bus.post(new MessageChanged("FSUB error: FR must be 0 or 1"));
+            return;
+        }
+
+        int operand;
+        if (I == 1) {
+            int indirectAddr = cache.load(effectiveAddress) & 0x7FF;
+            operand = cache.load(indirectAddr) & 0xFFFF;
+        } else {
+            operand = cache.load(effectiveAddress) & 0xFFFF;
+        }
+
+        FR[R] = floatingAdd(FR[R], operand, true);
+        if (bus.hasSubscribers(MessageChanged.class))
+            bus.post(new MessageChanged("FSUB complete on FR" + R));
+    }
+
+    // VADD
+    private void vadd() {
+        if (!this.setEffectiveAddress())
+            return;
+
+        int length = FR[R];
+        int ptr1 = cache.load(effectiveAddress);
+        int ptr2 = cache.load(effectiveAddress + 1);
+
+        for (int i = 0; i < length; i++) {
+            int v1 = cache.load(ptr1 + i);
+            int v2 = cache.load(ptr2 + i);
+
+            int result = (v1 + v2) & 0xFFFF;
+            cache.store(ptr1 + i, result);
+
+            memory.setMAR(ptr1 + i);
+            memory.setMBR(result);
+        }
+
+        if (bus.hasSubscribers(MessageChanged.class))
+            bus.post(new MessageChanged("VADD done length " + length));
+    }
+
+    // VSUB
+    private void vsub() {
+        if (!this.setEffectiveAddress())
+            return;
 
-                default: {
-                    // Unknown opcode triggers Machine Fault 2 (Illegal Operation Code)
-                    System.out.println("Unknown opcode: " + opcode + " (octal: " + Integer.toOctalString(opcode) + ")");
-                    raiseMachineFault(2);
-                    break;
+        int length = FR[R];
+        int ptr1 = cache.load(effectiveAddress);
+        int ptr2 = cache.load(effectiveAddress + 1);
+
+        for (int i = 0; i < length; i++) {
+            int v1 = cache.load(ptr1 + i);
+            int v2 = cache.load(ptr2 + i);
+
+            int result = (v1 - v2) & 0xFFFF;
+            cache.store(ptr1 + i, result);
+
+            memory.setMAR(ptr1 + i);
+            memory.setMBR(result);
+        }
+
+        if (bus.hasSubscribers(MessageChanged.class))
+            bus.post(new MessageChanged("VSUB done length " + length));
+    }
+
+    // CNVRT
+    private void cnvrt() {
+        if (!this.setEffectiveAddress())
+            return;
+
+        int memValue = cache.load(effectiveAddress) & 0xFFFF;
+
+        if (GPR[R] == 0) {
+            // Convert floating to fixed
+            GPR[R] = floatingToFixed(memValue);
+        } else {
+            // Convert fixed to floating (goes into FR0 always)
+            FR[0] = fixedToFloating(memValue);
+        }
+
+        if (bus.hasSubscribers(MessageChanged.class))
+            bus.post(new MessageChanged("CNVRT executed"));
+    }
+
+    // LDFR
+    private void ldfr() {
+        if (!this.setEffectiveAddress())
+            return;
+
+        if (R > 1) {
+            bus.post(new MessageChanged("LDFR error: FR must be 0 or 1"));
+            return;
+        }
+
+        FR[R] = cache.load(effectiveAddress) & 0xFFFF;
+        if (bus.hasSubscribers(MessageChanged.class))
+            bus.post(new MessageChanged("LDFR loaded FR" + R));
+    }
+
+    // STFR
+    private void stfr() {
+        if (!this.setEffectiveAddress())
+            return;
+
+        if (R > 1) {
+            bus.post(new MessageChanged("STFR error: FR must be 0 or 1"));
+            return;
+        }
+
+        cache.store(effectiveAddress, FR[R]);
+
+        memory.setMAR(effectiveAddress);
+        memory.setMBR(FR[R]);
+
+        if (bus.hasSubscribers(MessageChanged.class))
+            bus.post(new MessageChanged("STFR stored FR" + R));
+    }
+
+    // MLT rx, ry
+    private void mlt() {
+        try {
+            int rx = (IR >> 8) & 0x03;
+            int ry = (IR >> 6) & 0x03;
+
+            if ((rx != 0 && rx != 2) || (ry != 0 && ry != 2)) {
+                throw new IllegalArgumentException("MLT: rx and ry must be 0 or 2.");
+            }
+
+            long result = (long) GPR[rx] * (long) GPR[ry];
+            GPR[rx] = (int) ((result >> 16) & 0xFFFF); // high order bits
+            GPR[rx + 1] = (int) (result & 0xFFFF); // low order bits
+
+            // Set overflow flag if result exceeds 32 bits
+            if (result > 0xFFFFFFFFL || result < 0) {
+                CC[0] = true; // Overflow flag
+            } else {
+                CC[0] = false;
+            }
+            publishCC();
+            publishGPR(rx);
+            publishGPR(rx + 1);
+        } catch (Exception e) {
+            bus.post(new MessageChanged(e.getMessage()));
+            halt();
+        }
+    }
+
+    // DVD rx, ry
+    private void dvd() {
+        try {
+            int rx = (IR >> 8) & 0x03;
+            int ry = (IR >> 6) & 0x03;
+
+            if ((rx != 0 && rx != 2) || (ry != 0 && ry != 2)) {
+                throw new IllegalArgumentException("DVD: rx and ry must be 0 or 2.");
+            }
+
+            if (GPR[ry] == 0) {
+                CC[2] = true; // DIVZERO flag
+                throw new ArithmeticException("Division by zero in DVD instruction.");
+            }
+
+            int quotient = GPR[rx] / GPR[ry];
+            int remainder = GPR[rx] % GPR[ry];
+            GPR[rx] = quotient;
+            GPR[rx + 1] = remainder;
+            publishCC();
+            publishGPR(rx);
+            publishGPR(rx + 1);
+        } catch (Exception e) {
+            bus.post(new MessageChanged(e.getMessage()));
+            halt();
+        }
+    }
+
+    // TRR rx, ry
+    private void trr() {
+        try {
+            int rx = (IR >> 8) & 0x03;
+            int ry = (IR >> 6) & 0x03;
+            if ((rx < 0 || rx > 3) || (ry < 0 && ry > 3)) {
+                throw new IllegalArgumentException("TRR: rx and ry must be 0, 1, 2, 3.");
+            }
+
+            if (GPR[rx] == GPR[ry]) {
+                CC[3] = true; // EQUAL flag
+            } else {
+                CC[3] = false;
+            }
+            publishCC();
+            if (bus.hasSubscribers(MessageChanged.class))
+                bus.post(new MessageChanged("TRR executed. rx=" + GPR[rx] + ", ry=" + GPR[ry] +
+                        ", EqualFlag=" + CC[3]));
+        } catch (Exception e) {
+            bus.post(new MessageChanged(e.getMessage()));
+            halt();
+        }
+    }
+
+    // AND rx, ry
+    private void and() {
+        try {
+            int rx = (IR >> 8) & 0x03;
+            int ry = (IR >> 6) & 0x03;
+            ;
+            GPR[rx] = (GPR[rx] & GPR[ry]) & 0xFFFF;
+            publishGPR(rx);
+            if (bus.hasSubscribers(MessageChanged.class))
+                bus.post(new MessageChanged("AND executed: R" + rx + " = " + GPR[rx] + " (& R" + ry + ")"));
+        } catch (Exception e) {
+            bus.post(new MessageChanged(e.getMessage()));
+            halt();
+        }
+    }
+
+    // ORR rx, ry
+    private void orr() {
+        try {
+            int rx = (IR >> 8) & 0x03;
+            int ry = (IR >> 6) & 0x03;
+            if ((rx < 0 || rx > 3) || (ry < 0 && ry > 3)) {
+                throw new IllegalArgumentException("ORR: rx and ry must be 0, 1, 2, 3.");
+            }
+            GPR[rx] = (GPR[rx] | GPR[ry]) & 0xFFFF;
+            publishGPR(rx);
+            if (bus.hasSubscribers(MessageChanged.class))
+                bus.post(new MessageChanged("ORR executed: R" + rx + " = " + GPR[rx] + " (| R" + ry + ")"));
+        } catch (Exception e) {
+            bus.post(new MessageChanged(e.getMessage()));
+            halt();
+        }
+    }
+
+    // NOT rx
+    private void not() {
+        try {
+            int rx = (IR >> 8) & 0x03;
+            if ((rx < 0 || rx > 3)) {
+                throw new IllegalArgumentException("NOT: rx must be 0, 1, 2, 3.");
+            }
+            GPR[rx] = (~GPR[rx]) & 0xFFFF;
+            publishGPR(rx);
+            if (bus.hasSubscribers(MessageChanged.class))
+                bus.post(new MessageChanged("NOT executed: R" + rx + " = " + GPR[rx]));
+        } catch (Exception e) {
+            bus.post(new MessageChanged(e.getMessage()));
+            halt();
+        }
+    }
+
+    // IN r, devid
+    private void in() {
+        int r = (IR >> 8) & 0x03;
+        int devid = (IR >> 3) & 0x1F;
+        if ((r < 0 || r > 3)) {
+            throw new IllegalArgumentException("IN: r must be 0, 1, 2, 3.");
+        }
+        if ((devid < 0 || devid == 1 || devid > 31)) {
+            throw new IllegalArgumentException(
+                    "IN: devid must be 0 (keyboard), 2 (card reader), or 3-31 (misc)");
+        }
+        if (devid == 0) {
+            inputBaseAddr = GPR[r] & 0x7FF; // word address in 0..2047
+            waitingInDestReg = r;
+            waitingForConsoleInput = true;
+        } else if (devid == 2) {
+            int paragraphBase = 300;
+
+            try {
+                int[] deck = cardReader().nextDeck();
+                // the deck already ends in its 0 terminator; drop what runs past memory
+                int len = Math.min(deck.length, memory.MEMORY_SIZE - paragraphBase);
+                cache.pokeBlock(paragraphBase, deck, 0, len);
+                if (tracing(TraceLevel.MICRO_OP)) {
+                    tracer.log(TraceLevel.MICRO_OP, "WRITE " + len + " card words at " + paragraphBase);
+                    tracer.log(TraceLevel.MICRO_OP, "memory at 280-520 after IN write");
+                    tracer.log(TraceLevel.MICRO_OP, this.memory.dump(280, 520));
                 }
+            } catch (Exception e) {
+                bus.post(new MessageChanged("IN failed: " + e.getMessage()));
+                halt();
             }
+        } else {
+            // your existing device path (if any)
+            int value = 0;
+            GPR[r] = value & 0xFFFF;
+            publishGPR(r);
+        }
+    }
 
+    private void printToConsole(int ch) {
+        this.bus.post(new MessageChanged("" + (char) ch + ""));
+    }
+
+    private CardReader cardReader() throws IOException {
+        if (cardReader == null) {
+            cardReader = CardReader.defaultReader();
         }
+        return cardReader;
+    }
+
+    // OUT r, devid
+    private void out() {
+        try {
+            int r = (IR >> 8) & 0x03; // [9..8] OK
+            int devid = (IR >> 3) & 0x1F; // [7..3] ✅
+            int value = GPR[r] & 0xFF;
+            if ((r < 0 || r > 3)) {
+                throw new IllegalArgumentException("OUT: r must be 0, 1, 2, 3.");
+            }
+
+            if ((devid < 0 || (devid < 3 && devid != 1) || devid > 31)) {
+                throw new IllegalArgumentException("OUT:s devid must be 1 (printer) or 3-31 (misc)");
+            }
+            if (devid == 1) { // console / guidance
+                printer.accept(value);
+                if (tracing(TraceLevel.MICRO_OP))
+                    tracer.log(TraceLevel.MICRO_OP,
+                            "OUT sanity: R0=%04o R1=%04o R2=%04o R3(dec)=%d (octal %06o) IR=%06o MBR=%06o",
+                            GPR[0] & 0x7FF, GPR[1] & 0x7FF, GPR[2] & 0x7FF, GPR[3] & 0xFFFF,
+                            GPR[3] & 0xFFFF, IR & 0xFFFF, memory.MBR & 0xFFFF);
+            } else {
+                if (tracing(TraceLevel.INSTRUCTION))
+                    tracer.log(TraceLevel.INSTRUCTION, "OUT dbg: r=" + r + " devid=" + devid + " val=" + value);
+            }
+
+        } catch (Exception e) {
+            bus.post(new MessageChanged("OUT failed: " + e.getMessage()));
+            halt();
+        }
+    }
+
+    // CHK r, devid
+    private void chk() {
+        if (tracing(TraceLevel.MICRO_OP))
+            tracer.log(TraceLevel.MICRO_OP, "CHK exec: IR=" + Integer.toOctalString(IR));
+        try {
+            // CHK instruction format (opcode 63₈):
+            // Bits [15:10] = opcode (063)
+            // Bits [9:8] = r (register 0-3)
+            // Bits [7:3] = devid (device ID 0-31)
+            int r = (IR >> 8) & 0x03; // Extract r from bits [9:8]
+            int devid = (IR >> 3) & 0x1F; // Extract devid from bits [7:3]
+
+            if (r < 0 || r > 3) {
+                throw new IllegalArgumentException("CHK: r must be 0, 1, 2, 3.");
+            }
+
+            if (devid < 0 || devid > 31) {
+                throw new IllegalArgumentException("CHK: devid must be 0-31.");
+            }
+
+            // Check device status and return in register r
+            // Per ISA spec: 0 = device not ready, 1 = device ready
+            int deviceStatus;
+
+            // Device status logic - integrate with existing I/O model
+            // For this implementation, we'll use simple heuristics:
+            if (devid == 0) {
+                // Keyboard (console input) - ready if not waiting for input
+                deviceStatus = waitingForConsoleInput ? 0 : 1;
+            } else if (devid == 1) {
+                // Printer (console output) - always ready
+                deviceStatus = 1;
+            } else if (devid == 2) {
+                // Card reader - always ready (for simplicity)
+                deviceStatus = 1;
+            } else {
+                // Other devices (3-31) - assume ready
+                deviceStatus = 1;
+            }
+
+            // Store device status in register r
+            GPR[r] = deviceStatus & 0xFFFF;
+            publishGPR(r);
+
+            if (bus.hasSubscribers(MessageChanged.class))
+                bus.post(new MessageChanged("CHK: Device " + devid + " status=" + deviceStatus +
+                        " (0=not ready, 1=ready) -> R" + r));
+            if (tracing(TraceLevel.INSTRUCTION))
+                tracer.log(TraceLevel.INSTRUCTION, "CHK executed: devid=%d, status=%d, R%d=%d",
+                        devid, deviceStatus, r, GPR[r]);
+        } catch (Exception e) {
+            bus.post(new MessageChanged("CHK failed: " + e.getMessage()));
+            if (tracing(TraceLevel.SUMMARY))
+                tracer.log(TraceLevel.SUMMARY, "CHK failed: " + e.getMessage());
+            halt();
+        }
+    }
+
+    // handler for every opcode not in the instruction set
+    private void illegalOpcode() {
+        // Unknown opcode triggers Machine Fault 2 (Illegal Operation Code)
+        if (tracing(TraceLevel.SUMMARY))
+            tracer.log(TraceLevel.SUMMARY, "Unknown opcode: " + opcode + " (octal: " + Integer.toOctalString(opcode) + ")");
+        raiseMachineFault(2);
     }
 
     /**
@@ -1643,33 +2071,174 @@ public class CPU implements AutoCloseable {
      */
     public void halt() {
         running = false;
-        if (this.cpuTick != null) {
-            this.cpuTick.stop();
-        }
-        System.out.println("program halted");
+        if (tracing(TraceLevel.SUMMARY))
+            tracer.log(TraceLevel.SUMMARY, "program halted");
         bus.post(new MessageChanged("\n Program halted"));
     }
 
-    // https://stackoverflow.com/questions/28432164/java-swing-timer-loop
     /**
-     * Runs pending insturctions in memory
+     * Runs pending insturctions in memory on the execution engine's thread
      */
     public void run() {
-        running = true;
+        if (refuseWhileRunning("Run"))
+            return;
+        if (running) { // stopped on IN; Submit resumes it
+            bus.post(new MessageChanged("Program is waiting for console input; Run ignored."));
+            return;
+        }
         completedInstructions = 0;
+        cache.resetStats(); // cache counters are per run
+        startEngine();
+    }
 
-        // we apply timer of 2000 seconds here to allow user to properly see interface
-        // update.
-        this.cpuTick = new Timer(0, e -> {
-
-            step();
-            if (!running) {
-                ((javax.swing.Timer) e.getSource()).stop();
-                return;
+    /**
+     * Starts (or resumes) the engine in the background and reports the run
+     * summary once it stops for any reason other than waiting on input.
+     */
+    private void startEngine() {
+        postEngineState(true);
+        engine.startUntilHalt(Long.MAX_VALUE).whenComplete((result, error) -> {
+            postEngineState(false);
+            if (result != null && result.reason() != ExecutionEngine.StopReason.INPUT_PENDING) {
+                bus.post(new MessageChanged(String.format("%n Executed %d instructions in %.3f ms",
+                        result.instructions(), result.wallTimeNanos() / 1_000_000.0)));
             }
         });
-        this.cpuTick.setInitialDelay(0);
-        this.cpuTick.start();
+    }
+
+    private void postEngineState(boolean running) {
+        if (bus.hasSubscribers(EngineStateChanged.class))
+            bus.post(new EngineStateChanged(running));
+    }
+
+    /**
+     * Front panel actions change the machine from the UI thread, so they are
+     * refused while the engine is executing a program on its own thread.
+     *
+     * @param action what was refused, for the console message
+     * @return true if the action must not go ahead
+     */
+    private boolean refuseWhileRunning(String action) {
+        if (!engine.isActive())
+            return false;
+        bus.post(new MessageChanged(action + " ignored while the program is running; halt it first."));
+        return true;
+    }
+
+    /**
+     * Sets the program counter and marks it as set, as the front panel does.
+     */
+    public void setPC(int address) {
+        this.PC = address;
+        this.validRegisters |= PC_VALID;
+    }
+
+    /**
+     * @return true once PC has been given a value by the front panel, a reset or a fetch
+     */
+    public boolean isPCSet() {
+        return (validRegisters & PC_VALID) != 0;
+    }
+
+    /**
+     * Sends printer output (OUT to device 1) somewhere other than the console
+     * message area, e.g. to capture it in a headless run.
+     *
+     * @param printer receives each character code written
+     */
+    public void setPrinter(IntConsumer printer) {
+        this.printer = Objects.requireNonNull(printer, "printer");
+    }
+
+    /**
+     * Sets what the card reader (IN from device 2) delivers.
+     *
+     * @param deck card contents, or null for the default deck
+     */
+    public void setCardDeck(String deck) {
+        this.cardReader = deck == null ? null : CardReader.ofText(deck);
+    }
+
+    /**
+     * Replaces the card reader, e.g. with one holding several decks.
+     *
+     * @param reader card reader, or null for the default deck
+     */
+    public void setCardReader(CardReader reader) {
+        this.cardReader = reader;
+    }
+
+    /**
+     * @return branch predictor used by this CPU
+     */
+    public BranchPredictor getBranchPredictor() {
+        return branchPredictor;
+    }
+
+    /**
+     * @return per-address branch stats since the CPU was created or reset
+     */
+    public BranchProfile getBranchProfile() {
+        return branchProfile;
+    }
+
+    /**
+     * @return cache in front of this CPU's memory
+     */
+    public Cache getCache() {
+        return cache;
+    }
+
+    /**
+     * @return headless execution engine bound to this CPU
+     */
+    public ExecutionEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * @return tracer used for debug output of this CPU
+     */
+    public Tracer getTracer() {
+        return tracer;
+    }
+
+    /**
+     * Guard for trace call sites so nothing is formatted when tracing is off.
+     */
+    private boolean tracing(TraceLevel level) {
+        return Tracer.ENABLED && tracer.isEnabled(level);
+    }
+
+    /**
+     * @return true while an IN from the keyboard is waiting on console input
+     */
+    public boolean isWaitingForConsoleInput() {
+        return waitingForConsoleInput;
+    }
+
+    /**
+     * @return true if the last run stopped because of a machine fault
+     */
+    public boolean isFaulted() {
+        return faulted;
+    }
+
+    /**
+     * Marks the CPU as running before the engine enters its loop.
+     */
+    void beginRun() {
+        faulted = false;
+        running = true;
+        cache.beginBatch();
+    }
+
+    /**
+     * Stops the run after an instruction threw past its own error handling.
+     */
+    void failRun(RuntimeException e) {
+        bus.post(new MessageChanged("Execution failed: " + e.getMessage()));
+        halt();
     }
 
     /**
@@ -1678,13 +2247,18 @@ public class CPU implements AutoCloseable {
      * @param selectedPath String of selected file path to load.
      */
     public void loadFromROM(Path selectedPath) {
+        if (refuseWhileRunning("IPL"))
+            return;
         {
             try {
-                if (this.PC == null) {
+                if (!isPCSet()) {
                     this.bus.post(new MessageChanged("Program counter should be set"));
                     return;
                 }
+                // keep pending write-backs, then drop lines the new image may overwrite
+                this.cache.flush();
                 this.pendingInstructions = this.romLoader.load(selectedPath);
+                this.cache.reset();
                 this.completedInstructions = 0;
                 this.bus.post(new MessageChanged("Instructions loaded into memory at PC counter "
                         + this.PC +
@@ -1792,6 +2366,7 @@ public class CPU implements AutoCloseable {
 
         // Update MFR register (4-bit: 0-15, but we only use 0-3 for fault IDs)
         MFR = faultId & 0x0F;
+        faulted = true;
         bus.post(new MFRChanged(MFR));
 
         // Store fault ID in Memory[1] as per ISA spec
@@ -1825,7 +2400,8 @@ public class CPU implements AutoCloseable {
         }
 
         bus.post(new MessageChanged(faultMsg));
-        System.out.println(faultMsg + " | PC saved at Mem[4]=" + PC + ", Fault ID at Mem[1]=" + faultId);
+        if (tracing(TraceLevel.SUMMARY))
+            tracer.log(TraceLevel.SUMMARY, faultMsg + " | PC saved at Mem[4]=" + PC + ", Fault ID at Mem[1]=" + faultId);
 
         // Halt execution (in a real implementation, would jump to fault handler)
         halt();
@@ -1883,14 +2459,22 @@ public class CPU implements AutoCloseable {
         PC = handlerAddr;
 
         bus.post(new PCChanged(PC));
-        bus.post(new MessageChanged("TRAP " + trapCode + ": jumped to handler at " + handlerAddr +
-                " (return addr " + returnAddr + " saved at Mem[2])"));
-        System.out.printf("TRAP executed: code=%d, table_base=%o, handler_ptr_addr=%o, handler=%o, return=%o%n",
-                trapCode, trapTableBase, handlerPtrAddr, handlerAddr, returnAddr);
+        if (bus.hasSubscribers(MessageChanged.class))
+            bus.post(new MessageChanged("TRAP " + trapCode + ": jumped to handler at " + handlerAddr +
+                    " (return addr " + returnAddr + " saved at Mem[2])"));
+        if (tracing(TraceLevel.INSTRUCTION))
+            tracer.log(TraceLevel.INSTRUCTION, "TRAP executed: code=%d, table_base=%o, handler_ptr_addr=%o, handler=%o, return=%o",
+                    trapCode, trapTableBase, handlerPtrAddr, handlerAddr, returnAddr);
     }
 
     @Override
     public void close() {
+        engine.close();
+        tracer.close();
+        try {
+            refreshTick.close();
+        } catch (Exception ignored) {
+        }
         try {
             SetGPRSub.close();
         } catch (Exception ignored) {
@@ -1,15 +1,21 @@
 package group11.core;
 
-import java.util.LinkedList;
-
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Deque;
+import java.util.List;
 
 import group11.events.CacheChanged;
+import group11.events.CacheStatsChanged;
 import group11.events.EventBus;
 
 //https://chatgpt.com/share/68f82dbc-e1d0-8007-9397-bfb5a3b367d9
+/**
+ * Set-associative cache in front of main memory. Geometry and policies come
+ * from a {@link CacheConfig}; the default preset is the original 16-line,
+ * 8-word, fully associative, LRU, write-through/write-allocate cache.
+ */
 public class Cache {
+    // geometry of the default preset, also used by the static address helpers below
     public static final int WORDS_IN_MEMORY = 2048; // 2^11
     public static final int LINE_SIZE_WORDS = 8; // 2^3 words per cache line
     public static final int CACHE_LINES = 16;
@@ -19,132 +25,558 @@ public class Cache {
 
     private static final int ADDR_MASK = 0x7FF;
     public static final int OFFSET_MASK = (1 << OFFSET_BITS) - 1; // 0b111
-    private Deque<CacheLine> queue;
+    private static final int NONE = -1;
+
+    private final CacheConfig config;
+    private final int ways;
+    private final int waysBits;
+    private final int offsetBits;
+    private final int offsetMask;
+    private final int setBits;
+    private final int setMask;
+    private final boolean writeBack;
+
+    // lines live in a fixed array, set by set; slotOfBlock maps every memory block to its slot (or NONE)
+    private final CacheLine[] lines;
+    private final int[] slotOfBlock;
+    // intrusive recency list per set: head = oldest (next LRU/FIFO victim), tail = newest.
+    // Invalid lines sit at the head in slot order, since a line only moves once it is filled.
+    private final int[] prev;
+    private final int[] next;
+    private final int[] head;
+    private final int[] tail;
+    // tree pseudo-LRU state, one int of node bits per set
+    private final int[] plruBits;
+    // java.util.Random's generator kept as a bare long, so snapshots can save it
+    private long randomState;
+    private static final long RANDOM_MULTIPLIER = 0x5DEECE66DL;
+    private static final long RANDOM_ADDEND = 0xBL;
+    private static final long RANDOM_MASK = (1L << 48) - 1;
+    // bumped on every change to cache contents; lets observers skip unchanged snapshots
+    private long version;
+    // version of the last snapshot posted in a CacheChanged
+    private long postedVersion;
+    // during a coalesced engine run a snapshot is posted only once per refresh tick
+    private boolean batching;
+    private volatile boolean snapshotDue;
+    // counters since the last reset/resetStats, see CacheStats
+    private long readHits;
+    private long readMisses;
+    private long writeHits;
+    private long writeMisses;
+    private long evictions;
+    private long wordsFilled;
+    private long wordsWrittenThrough;
+    private long wordsWrittenBack;
+    // counters as last posted in a CacheStatsChanged, null before the first post
+    private volatile CacheStats postedStats;
     Memory memory;
     EventBus eventBus;
 
     public Cache(Memory memory, EventBus eventBus) {
+        this(memory, eventBus, CacheConfig.DEFAULT);
+    }
+
+    public Cache(Memory memory, EventBus eventBus, CacheConfig config) {
         this.memory = memory;
         this.eventBus = eventBus;
+        this.config = config;
+        this.ways = config.ways();
+        this.waysBits = Integer.numberOfTrailingZeros(ways);
+        this.offsetBits = Integer.numberOfTrailingZeros(config.lineSizeWords());
+        this.offsetMask = config.lineSizeWords() - 1;
+        this.setBits = Integer.numberOfTrailingZeros(config.sets());
+        this.setMask = config.sets() - 1;
+        this.writeBack = config.writePolicy() == CacheConfig.WritePolicy.WRITE_BACK;
+
+        this.lines = new CacheLine[config.lines()];
+        for (int i = 0; i < lines.length; i++)
+            lines[i] = new CacheLine(config.lineSizeWords());
+        this.slotOfBlock = new int[WORDS_IN_MEMORY >>> offsetBits];
+        this.prev = new int[lines.length];
+        this.next = new int[lines.length];
+        this.head = new int[config.sets()];
+        this.tail = new int[config.sets()];
+        this.plruBits = new int[config.sets()];
         this.reset();
     }
 
-    /** READ: fill on miss, FIFO replacement. */
+    public CacheConfig getConfig() {
+        return config;
+    }
+
+    /** READ: fill on miss, victim chosen by the configured replacement policy. */
     public int load(int address) {
         address &= ADDR_MASK;
 
-        int off = blockOffset(address);
-        CacheLine hit = findLine(tag(address));
+        int off = address & offsetMask;
+        int block = address >>> offsetBits;
+        int slot = slotOfBlock[block];
 
-        if (hit != null)
-            return hit.data[off];
+        if (slot != NONE) {
+            readHits++;
+            touch(slot);
+            return lines[slot].data[off];
+        }
 
-        CacheLine line = chooseLineForWrite();
-        fillFromMemory(line, address);
-        promoteToMRU(line);
-        this.dumpSummary();
-        return line.data[off];
+        readMisses++;
+        slot = allocate(block);
+        this.publishChange();
+        return lines[slot].data[off];
     }
 
     /**
-     * WRITE-THROUGH + WRITE-ALLOCATE:
-     * - Hit: update cache word + write memory immediately.
-     * - Miss: write memory directly; do NOT load the block.
+     * WRITE-THROUGH: a cached word is updated and memory is written immediately.
+     * WRITE-BACK: a cached word is updated and the line marked dirty; memory is
+     * written when the line is evicted.
+     * On a miss the block is brought in first with write-allocate, otherwise the
+     * word goes straight to memory and the cache is left alone.
      */
     public void store(int address, int value) {
         address &= ADDR_MASK;
-        int off = blockOffset(address);
-        int tag = tag(address);
-        CacheLine hit = findLine(tag);
+        value &= 0xFFFF;
+        int off = address & offsetMask;
+        int block = address >>> offsetBits;
+        int slot = slotOfBlock[block];
 
-        if (hit == null) {
+        if (slot != NONE) {
+            writeHits++;
+            touch(slot);
+        } else {
+            writeMisses++;
             // write-allocate: bring the block in, then write into it
-            CacheLine line = chooseLineForWrite();
-            fillFromMemory(line, address); // or zero-init if you prefer
-            promoteToMRU(line);
-            hit = line;
+            if (config.writeAllocate())
+                slot = allocate(block);
         }
 
-        hit.data[off] = value & 0xFFFF; // keep cache coherent
-        memory.writeMemoryDirect(address, value & 0xFFFF); // write-through
-        dumpSummary();
+        if (slot == NONE) {
+            memory.writeMemoryDirect(address, value); // no-write-allocate miss
+            wordsWrittenThrough++;
+        } else {
+            lines[slot].data[off] = value; // keep cache coherent
+            if (writeBack) {
+                lines[slot].dirty = true;
+                memory.written(address, 1); // memory sees it at write-back, code caches must see it now
+            } else {
+                memory.writeMemoryDirect(address, value); // write-through
+                wordsWrittenThrough++;
+            }
+        }
+        publishChange();
+    }
+
+    /**
+     * Coherent read for paths outside the memory hierarchy (instruction fetch,
+     * front panel). Memory is current except for words sitting in dirty
+     * write-back lines, so only those are served from the cache. Never fills a
+     * line or changes replacement state.
+     */
+    public int peek(int address) {
+        int slot = slotOfBlock[(address & ADDR_MASK) >>> offsetBits];
+        if (slot != NONE && lines[slot].dirty)
+            return lines[slot].data[address & offsetMask];
+        return memory.getMemoryValueAt(address);
     }
 
-    private CacheLine chooseLineForWrite() {
-        for (CacheLine ln : queue) {
-            if (!ln.valid)
-                return ln; // reuse invalid line in place
+    /**
+     * Writes a word straight to memory and updates the cached copy, if any,
+     * so neither goes stale. Never fills a line or changes replacement state.
+     */
+    public void poke(int address, int value) {
+        value &= 0xFFFF;
+        memory.writeMemoryDirect(address, value);
+        int slot = slotOfBlock[(address & ADDR_MASK) >>> offsetBits];
+        if (slot != NONE) {
+            lines[slot].data[address & offsetMask] = value;
+            publishChange();
         }
-        return queue.peekFirst(); // candidate to evict (LRU), still not removed
     }
 
-    // 2) After a successful fill, move the line to MRU (tail).
-    private void promoteToMRU(CacheLine ln) {
-        // This is safe even if ln is already in the deque (middle/head).
-        queue.remove(ln);
-        queue.addLast(ln);
+    /**
+     * Block form of poke: writes len words straight to memory, then updates
+     * the cached copy of every block in the range. Dirty words outside the
+     * range stay as they are. Words are stored as given, so must be 16-bit.
+     */
+    public void pokeBlock(int address, int[] src, int off, int len) {
+        memory.writeBlock(address, src, off, len);
+        boolean changed = false;
+        int lineSize = offsetMask + 1;
+        for (int block = address >>> offsetBits; len > 0 && block <= (address + len - 1) >>> offsetBits; block++) {
+            int slot = slotOfBlock[block];
+            if (slot == NONE)
+                continue;
+            int first = Math.max(address, block << offsetBits);
+            int last = Math.min(address + len, (block << offsetBits) + lineSize);
+            System.arraycopy(src, off + first - address, lines[slot].data, first & offsetMask, last - first);
+            changed = true;
+        }
+        if (changed)
+            publishChange();
     }
 
-    public CacheLine findLine(int tag) {
-        CacheLine found = null;
-        for (CacheLine line : queue) {
-            if (line.valid && line.tag == tag) {
-                found = line;
-                break;
+    /**
+     * Writes every dirty line back to memory. Lines stay valid. Nothing to do
+     * for a write-through cache.
+     * @return number of lines written back
+     */
+    public int flush() {
+        if (!writeBack)
+            return 0;
+        int written = 0;
+        for (CacheLine ln : lines) {
+            if (ln.valid && ln.dirty) {
+                writeBackLine(ln);
+                written++;
             }
         }
-        if (found != null)
-            promoteToMRU(found);
-        return found;
+        if (written > 0)
+            publishChange();
+        return written;
     }
 
     /**
-     * Dumps all lines from cache, zeroing it out
+     * Picks a victim in the block's set, writes it back if dirty and fills it
+     * with the block.
+     * @return slot now holding the block
      */
-    public void reset() {
-        CacheLine[] cacheLines = new CacheLine[CACHE_LINES];
-        for (int i = 0; i < CACHE_LINES; i++)
-            cacheLines[i] = new CacheLine();
-        this.queue = new LinkedList<>(Arrays.asList(cacheLines));
-        this.dumpSummary();
+    private int allocate(int block) {
+        int set = block & setMask;
+        int slot = chooseVictim(set);
+        CacheLine ln = lines[slot];
+        if (ln.valid) {
+            evictions++;
+            if (ln.dirty)
+                writeBackLine(ln);
+            slotOfBlock[ln.block] = NONE;
+        }
+        fillFromMemory(ln, block);
+        slotOfBlock[block] = slot;
+        moveToTail(set, slot);
+        if (config.replacement() == CacheConfig.ReplacementPolicy.PLRU)
+            plruTouch(set, slot - (set << waysBits));
+        return slot;
     }
 
     /**
-     * Fill target line with the 8-word block for 'address'; append at tail
-     * (newest).
+     * Invalid lines are always taken first, lowest slot first. Once the set is
+     * full the policy decides.
      */
-    private void fillFromMemory(CacheLine ln, int address) {
-        int block = blockNumber(address); // 0..255
-        int baseAddr = (block << OFFSET_BITS); // start address of the 8-word block
-        int tag = tag(address);
+    private int chooseVictim(int set) {
+        int oldest = head[set];
+        if (!lines[oldest].valid)
+            return oldest;
+        return switch (config.replacement()) {
+            case LRU, FIFO -> oldest;
+            case RANDOM -> (set << waysBits) + randomWay();
+            case PLRU -> (set << waysBits) + plruVictim(set);
+        };
+    }
 
-        for (int i = 0; i < LINE_SIZE_WORDS; i++) {
-            ln.data[i] = memory.getMemoryValueAt((baseAddr + i) & ADDR_MASK) & 0xFFFF;
+    /** Records a hit on a slot. FIFO and random ignore hits. */
+    private void touch(int slot) {
+        int set = slot >>> waysBits;
+        switch (config.replacement()) {
+            case LRU -> moveToTail(set, slot);
+            case PLRU -> {
+                plruTouch(set, slot - (set << waysBits));
+                moveToTail(set, slot); // keeps the snapshot in recency order
+            }
+            case FIFO, RANDOM -> {
+            }
         }
+    }
+
+    // After a fill (or an LRU hit), move the slot to the newest end of its set.
+    private void moveToTail(int set, int slot) {
+        if (slot == tail[set])
+            return;
+        // unlink
+        if (slot == head[set]) {
+            head[set] = next[slot];
+        } else {
+            next[prev[slot]] = next[slot];
+        }
+        prev[next[slot]] = prev[slot];
+        // append after tail
+        prev[slot] = tail[set];
+        next[slot] = NONE;
+        next[tail[set]] = slot;
+        tail[set] = slot;
+    }
+
+    /** Same draw as new Random(seed).nextInt(ways); ways is a power of two. */
+    private int randomWay() {
+        randomState = (randomState * RANDOM_MULTIPLIER + RANDOM_ADDEND) & RANDOM_MASK;
+        int bits = (int) (randomState >>> (48 - 31));
+        return (int) ((ways * (long) bits) >> 31);
+    }
+
+    /** Points every tree node on the way to 'way' away from it. */
+    private void plruTouch(int set, int way) {
+        int bits = plruBits[set];
+        int node = 1;
+        for (int level = waysBits - 1; level >= 0; level--) {
+            int dir = (way >>> level) & 1;
+            if (dir == 0)
+                bits |= 1 << node;
+            else
+                bits &= ~(1 << node);
+            node = (node << 1) | dir;
+        }
+        plruBits[set] = bits;
+    }
+
+    /** Follows the tree node bits down to the pseudo least recently used way. */
+    private int plruVictim(int set) {
+        int bits = plruBits[set];
+        int node = 1;
+        int way = 0;
+        for (int level = 0; level < waysBits; level++) {
+            int dir = (bits >>> node) & 1;
+            way = (way << 1) | dir;
+            node = (node << 1) | dir;
+        }
+        return way;
+    }
+
+    /**
+     * Looks up the line holding a memory block and records the access.
+     * @param block block number (the tag, for a fully associative cache)
+     * @return the line, or null on a miss
+     */
+    public CacheLine findLine(int block) {
+        int slot = slotOfBlock[block];
+        if (slot == NONE)
+            return null;
+        touch(slot);
+        return lines[slot];
+    }
+
+    /**
+     * Dumps all lines from cache, zeroing it out. Dirty data is discarded.
+     */
+    public void reset() {
+        for (int set = 0; set < head.length; set++) {
+            int first = set << waysBits;
+            int last = first + ways - 1;
+            for (int slot = first; slot <= last; slot++) {
+                if (lines[slot].valid && lines[slot].dirty) // discarded stores: peek goes back to memory's words
+                    memory.written(lines[slot].block << offsetBits, lines[slot].data.length);
+                lines[slot].invalidate();
+                prev[slot] = slot - 1;
+                next[slot] = slot + 1;
+            }
+            prev[first] = NONE;
+            next[last] = NONE;
+            head[set] = first;
+            tail[set] = last;
+        }
+        Arrays.fill(slotOfBlock, NONE);
+        Arrays.fill(plruBits, 0);
+        this.randomState = (config.randomSeed() ^ RANDOM_MULTIPLIER) & RANDOM_MASK;
+        this.resetStats();
+        this.publishChange();
+    }
+
+    /**
+     * Zeroes the counters without touching cache contents, e.g. at the start
+     * of a run.
+     */
+    public void resetStats() {
+        readHits = 0;
+        readMisses = 0;
+        writeHits = 0;
+        writeMisses = 0;
+        evictions = 0;
+        wordsFilled = 0;
+        wordsWrittenThrough = 0;
+        wordsWrittenBack = 0;
+        publishStats();
+    }
+
+    /**
+     * @return counters since the last reset or resetStats
+     */
+    public CacheStats getStats() {
+        return new CacheStats(readHits, readMisses, writeHits, writeMisses,
+                evictions, wordsFilled, wordsWrittenThrough, wordsWrittenBack);
+    }
+
+    /**
+     * Fill a line with the block's words from memory.
+     */
+    private void fillFromMemory(CacheLine ln, int block) {
+        int baseAddr = block << offsetBits; // start address of the block
+
+        memory.readBlock(baseAddr, ln.data, 0, ln.data.length); // memory words are already 16-bit
+        wordsFilled += ln.data.length;
         ln.block = block;
-        ln.tag = tag;
+        ln.tag = block >>> setBits;
         ln.valid = true;
+        ln.dirty = false;
+    }
+
+    private void writeBackLine(CacheLine ln) {
+        int baseAddr = ln.block << offsetBits;
+        memory.writeBack(baseAddr, ln.data, 0, ln.data.length); // stores were reported by store()
+        wordsWrittenBack += ln.data.length;
+        ln.dirty = false;
     }
 
     // -------------------- Optional: debug --------------------
 
-    public void dumpSummary() {
-        StringBuilder sb = new StringBuilder();
+    /**
+     * @return number of changes made to the cache contents so far
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return immutable copy of all lines, set by set, oldest first within a set
+     */
+    public CacheSnapshot snapshot() {
+        List<CacheSnapshot.Line> ordered = new ArrayList<>(lines.length);
+        for (int set = 0; set < head.length; set++) {
+            for (int slot = head[set]; slot != NONE; slot = next[slot]) {
+                CacheLine line = lines[slot];
+                ordered.add(new CacheSnapshot.Line(set, line.tag, line.block, line.valid, line.dirty, line.data));
+            }
+        }
+        return new CacheSnapshot(version, config, ordered);
+    }
+
+    /**
+     * Complete internal state for machine snapshots: lines by slot, the
+     * replacement order and the random generator. Arrays are never shared with
+     * a live cache.
+     */
+    record State(CacheConfig config, int[] blocks, byte[] flags, int[] data, int[] prev, int[] next,
+            int[] head, int[] tail, int[] plruBits, long randomState) {
+        static final byte VALID = 1;
+        static final byte DIRTY = 2;
+    }
+
+    State captureState() {
+        int lineSize = config.lineSizeWords();
+        int[] blocks = new int[lines.length];
+        byte[] flags = new byte[lines.length];
+        int[] data = new int[lines.length * lineSize];
+        for (int slot = 0; slot < lines.length; slot++) {
+            CacheLine line = lines[slot];
+            blocks[slot] = line.block;
+            flags[slot] = (byte) ((line.valid ? State.VALID : 0) | (line.dirty ? State.DIRTY : 0));
+            System.arraycopy(line.data, 0, data, slot * lineSize, lineSize);
+        }
+        return new State(config, blocks, flags, data, prev.clone(), next.clone(), head.clone(), tail.clone(),
+                plruBits.clone(), randomState);
+    }
+
+    /**
+     * Replaces the cache contents with a captured state. Counters are zeroed.
+     *
+     * @throws IllegalArgumentException if the state was taken from a cache of another configuration
+     */
+    void restoreState(State state) {
+        if (!state.config().equals(config)) {
+            throw new IllegalArgumentException("cache state for " + state.config() + " does not fit " + config);
+        }
+        int lineSize = config.lineSizeWords();
+        Arrays.fill(slotOfBlock, NONE);
+        for (int slot = 0; slot < lines.length; slot++) {
+            CacheLine line = lines[slot];
+            line.block = state.blocks()[slot];
+            line.tag = line.block >>> setBits;
+            line.valid = (state.flags()[slot] & State.VALID) != 0;
+            line.dirty = (state.flags()[slot] & State.DIRTY) != 0;
+            System.arraycopy(state.data(), slot * lineSize, line.data, 0, lineSize);
+            if (line.valid)
+                slotOfBlock[line.block] = slot;
+        }
+        System.arraycopy(state.prev(), 0, prev, 0, prev.length);
+        System.arraycopy(state.next(), 0, next, 0, next.length);
+        System.arraycopy(state.head(), 0, head, 0, head.length);
+        System.arraycopy(state.tail(), 0, tail, 0, tail.length);
+        System.arraycopy(state.plruBits(), 0, plruBits, 0, plruBits.length);
+        this.randomState = state.randomState();
+        this.resetStats();
+        this.publishChange();
+    }
+
+    /**
+     * @return text view of the cache, as shown in the cache panel
+     */
+    public String dumpSummary() {
+        return snapshot().render();
+    }
+
+    /**
+     * Called as an engine run starts. With coalescing on, changes made during
+     * the run post a snapshot only after {@link #requestSnapshot()}, so a fast
+     * run copies the lines once per refresh tick instead of on every change.
+     */
+    void beginBatch() {
+        batching = eventBus.isCoalescing();
+    }
+
+    /**
+     * Called as an engine run stops: posts the final contents if the last
+     * posted snapshot is out of date.
+     */
+    void endBatch() {
+        batching = false;
+        if (version != postedVersion && eventBus.hasSubscribers(CacheChanged.class)) {
+            postSnapshot();
+        }
+        publishStats();
+    }
+
+    /**
+     * Asks for a snapshot with the next change made during a run. Safe to call
+     * from any thread, e.g. the event bus refresh tick.
+     */
+    void requestSnapshot() {
+        snapshotDue = true;
+    }
+
+    /**
+     * Bumps the version and tells listeners, if any. The snapshot is copied on
+     * the thread changing the cache; the text view is rendered from it only
+     * when a listener asks, so headless runs never format it.
+     */
+    private void publishChange() {
+        version++;
+        if ((!batching || snapshotDue) && eventBus.hasSubscribers(CacheChanged.class)) {
+            snapshotDue = false;
+            postSnapshot();
+        }
+    }
+
+    private void postSnapshot() {
+        CacheSnapshot snapshot = snapshot();
+        postedVersion = snapshot.version();
+        eventBus.post(new CacheChanged(snapshot.version(), snapshot::render));
+    }
 
-        sb.append("Cache {LINES=").append(CACHE_LINES)
-                .append(", BLOCK_SIZE=").append(LINE_SIZE_WORDS)
-                .append(", policy=WRITE_THROUGH, WRITE-ALLOCATE}\n");
-        int lineIndex = 0;
-        for (CacheLine line : this.queue) {
-            int baseAddr = (line.tag << OFFSET_BITS);
-            sb.append(String.format("L%02d: V=%d TAG=%03d BLOCK=%02d BASE=%04d DATA=%s%n",
-                    lineIndex, line.valid ? 1 : 0, line.tag, line.block, baseAddr, Arrays.toString(line.data)));
-            lineIndex++;
+    /**
+     * Posts the counters if they changed since they were last posted. Accesses
+     * only count; this runs on the event bus refresh tick (see CPU), when a
+     * run stops and when the counters are reset, so the event goes out at
+     * most once per tick however many accesses there are.
+     */
+    synchronized void publishStats() {
+        if (!eventBus.hasSubscribers(CacheStatsChanged.class))
+            return;
+        CacheStats stats = getStats();
+        if (!stats.equals(postedStats)) {
+            postedStats = stats;
+            eventBus.post(stats.toEvent());
         }
-        this.eventBus.post(new CacheChanged(sb.toString()));
     }
 
     // https://chatgpt.com/share/68f82524-1d5c-8007-8d8c-d23ce9706e81
+    // The helpers below describe the default geometry.
+
     /** 0..7: which word within the 8-word line */
     public static int blockOffset(int address) {
         rangeCheck(address);
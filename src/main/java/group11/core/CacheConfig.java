@@ -0,0 +1,103 @@
+package group11.core;
+
+/**
+ * Geometry and policies of the cache. Line count, line size and number of
+ * ways must be powers of two; ways == lines gives a fully associative cache
+ * and ways == 1 a direct-mapped one.
+ *
+ * @param lines         total number of cache lines
+ * @param lineSizeWords words per line
+ * @param ways          lines per set
+ * @param replacement   which line of a full set is evicted on a miss
+ * @param writePolicy   when stores reach memory
+ * @param writeAllocate whether a store miss brings the block into the cache
+ * @param randomSeed    seed for {@link ReplacementPolicy#RANDOM}, so runs are repeatable
+ */
+public record CacheConfig(int lines, int lineSizeWords, int ways, ReplacementPolicy replacement,
+        WritePolicy writePolicy, boolean writeAllocate, long randomSeed) {
+
+    /** Replacement policy within a set. */
+    public enum ReplacementPolicy {
+        /** Evict the least recently used line. */
+        LRU,
+        /** Evict the line that was filled first; hits do not refresh a line. */
+        FIFO,
+        /** Evict a random line of the set. */
+        RANDOM,
+        /** Tree pseudo-LRU: one bit per tree node, up to 32 ways. */
+        PLRU
+    }
+
+    /** When stores reach memory. */
+    public enum WritePolicy {
+        /** Every store is written to memory immediately. */
+        WRITE_THROUGH,
+        /** Stores only mark the line dirty; memory is updated on eviction or flush. */
+        WRITE_BACK
+    }
+
+    /** The original simulator cache: 16 lines of 8 words, fully associative, LRU, write-through with allocate. */
+    public static final CacheConfig DEFAULT = fullyAssociative(16, 8);
+
+    public CacheConfig {
+        requirePowerOfTwo("lines", lines);
+        requirePowerOfTwo("lineSizeWords", lineSizeWords);
+        requirePowerOfTwo("ways", ways);
+        if (ways > lines) {
+            throw new IllegalArgumentException("ways (" + ways + ") cannot exceed lines (" + lines + ")");
+        }
+        if ((long) lines * lineSizeWords > Cache.WORDS_IN_MEMORY) {
+            throw new IllegalArgumentException("cache of " + lines + "x" + lineSizeWords
+                    + " words is larger than memory (" + Cache.WORDS_IN_MEMORY + " words)");
+        }
+        if (replacement == null || writePolicy == null) {
+            throw new IllegalArgumentException("replacement and write policy are required");
+        }
+        if (replacement == ReplacementPolicy.PLRU && ways > 32) {
+            throw new IllegalArgumentException("PLRU supports at most 32 ways: " + ways);
+        }
+    }
+
+    public static CacheConfig fullyAssociative(int lines, int lineSizeWords) {
+        return setAssociative(lines, lineSizeWords, lines);
+    }
+
+    public static CacheConfig directMapped(int lines, int lineSizeWords) {
+        return setAssociative(lines, lineSizeWords, 1);
+    }
+
+    public static CacheConfig setAssociative(int lines, int lineSizeWords, int ways) {
+        return new CacheConfig(lines, lineSizeWords, ways, ReplacementPolicy.LRU,
+                WritePolicy.WRITE_THROUGH, true, 0L);
+    }
+
+    public CacheConfig withReplacement(ReplacementPolicy policy) {
+        return new CacheConfig(lines, lineSizeWords, ways, policy, writePolicy, writeAllocate, randomSeed);
+    }
+
+    public CacheConfig withWritePolicy(WritePolicy policy, boolean allocate) {
+        return new CacheConfig(lines, lineSizeWords, ways, replacement, policy, allocate, randomSeed);
+    }
+
+    public CacheConfig withRandomSeed(long seed) {
+        return new CacheConfig(lines, lineSizeWords, ways, replacement, writePolicy, writeAllocate, seed);
+    }
+
+    public int sets() {
+        return lines / ways;
+    }
+
+    public boolean isFullyAssociative() {
+        return ways == lines;
+    }
+
+    public boolean isDirectMapped() {
+        return ways == 1;
+    }
+
+    private static void requirePowerOfTwo(String name, int value) {
+        if (value <= 0 || Integer.bitCount(value) != 1) {
+            throw new IllegalArgumentException(name + " must be a positive power of two: " + value);
+        }
+    }
+}
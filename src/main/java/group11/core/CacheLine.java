@@ -3,14 +3,16 @@ package group11.core;
 import java.util.Arrays;
 
 /**
- * Representation of cache line holding 8 words
+ * Representation of cache line holding a block of words (8 by default)
  */
 public class CacheLine {
     int tag;
     int block;
-    // each cache line holds 8 words
-    int [] data = new int[8];
+    // each cache line holds 8 words unless configured otherwise
+    int [] data;
     boolean valid;
+    // write-back only: line holds stores not yet written to memory
+    boolean dirty;
 
     // constructor for filled cache line
     public CacheLine(int tag, int block, int [] data) {
@@ -21,6 +23,12 @@ public class CacheLine {
 
     // constructor for empty cache line
     public CacheLine(){
+        this(Cache.LINE_SIZE_WORDS);
+    }
+
+    // constructor for empty cache line of a configured size
+    public CacheLine(int lineSizeWords){
+        this.data = new int[lineSizeWords];
         this.invalidate();
     }
 
@@ -28,6 +36,7 @@ public class CacheLine {
         this.tag=0;
         this.block=0;
         this.valid=false;
+        this.dirty=false;
         Arrays.fill(data, 0);
     }
 }
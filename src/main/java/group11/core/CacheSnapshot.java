@@ -0,0 +1,51 @@
+package group11.core;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable copy of the cache lines at a given cache version, set by set and
+ * in replacement order within a set (oldest first).
+ */
+public record CacheSnapshot(long version, CacheConfig config, List<Line> lines) {
+
+    /** Copy of a single cache line. */
+    public record Line(int set, int tag, int block, boolean valid, boolean dirty, int[] data) {
+        public Line {
+            data = data.clone();
+        }
+
+        @Override
+        public int[] data() {
+            return data.clone();
+        }
+    }
+
+    public CacheSnapshot {
+        lines = List.copyOf(lines);
+    }
+
+    /**
+     * Renders the snapshot as the text shown in the cache panel.
+     */
+    public String render() {
+        boolean writeBack = config.writePolicy() == CacheConfig.WritePolicy.WRITE_BACK;
+        int offsetBits = Integer.numberOfTrailingZeros(config.lineSizeWords());
+        StringBuilder sb = new StringBuilder();
+        sb.append("Cache {LINES=").append(config.lines())
+                .append(", BLOCK_SIZE=").append(config.lineSizeWords())
+                .append(", WAYS=").append(config.ways())
+                .append(", REPLACEMENT=").append(config.replacement())
+                .append(", policy=").append(config.writePolicy())
+                .append(config.writeAllocate() ? ", WRITE-ALLOCATE}\n" : ", NO-WRITE-ALLOCATE}\n");
+        int lineIndex = 0;
+        for (Line line : lines) {
+            int baseAddr = (line.block << offsetBits);
+            sb.append(String.format("L%02d: S=%02d V=%d%s TAG=%03d BLOCK=%02d BASE=%04d DATA=%s%n",
+                    lineIndex, line.set, line.valid ? 1 : 0, writeBack ? (line.dirty ? " D=1" : " D=0") : "",
+                    line.tag, line.block, baseAddr, Arrays.toString(line.data)));
+            lineIndex++;
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,60 @@
+package group11.core;
+
+import group11.events.CacheStatsChanged;
+
+/**
+ * Cache counters since the last reset. Memory traffic is counted in words.
+ *
+ * @param readHits            loads served from the cache
+ * @param readMisses          loads that had to fill a line
+ * @param writeHits           stores to a cached block
+ * @param writeMisses         stores to a block that was not cached
+ * @param evictions           valid lines replaced by a fill
+ * @param wordsFilled         words read from memory to fill lines
+ * @param wordsWrittenThrough words written to memory by stores directly
+ *                            (write-through, or a no-write-allocate miss)
+ * @param wordsWrittenBack    words written to memory from dirty lines
+ */
+public record CacheStats(long readHits, long readMisses, long writeHits, long writeMisses,
+        long evictions, long wordsFilled, long wordsWrittenThrough, long wordsWrittenBack) {
+
+    /** No accesses at all; the starting point for {@link #plus(CacheStats)}. */
+    public static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, 0, 0, 0);
+
+    public long accesses() {
+        return readHits + readMisses + writeHits + writeMisses;
+    }
+
+    public long hits() {
+        return readHits + writeHits;
+    }
+
+    public long misses() {
+        return readMisses + writeMisses;
+    }
+
+    public double hitRate() {
+        long accesses = accesses();
+        if (accesses == 0)
+            return 0.0;
+        return (double) hits() / accesses;
+    }
+
+    /** Words moved between cache and memory in either direction. */
+    public long memoryTraffic() {
+        return wordsFilled + wordsWrittenThrough + wordsWrittenBack;
+    }
+
+    /** Counter-by-counter sum, e.g. over several machines. */
+    public CacheStats plus(CacheStats other) {
+        return new CacheStats(readHits + other.readHits, readMisses + other.readMisses,
+                writeHits + other.writeHits, writeMisses + other.writeMisses,
+                evictions + other.evictions, wordsFilled + other.wordsFilled,
+                wordsWrittenThrough + other.wordsWrittenThrough, wordsWrittenBack + other.wordsWrittenBack);
+    }
+
+    public CacheStatsChanged toEvent() {
+        return new CacheStatsChanged(readHits, readMisses, writeHits, writeMisses,
+                evictions, wordsFilled, wordsWrittenThrough, wordsWrittenBack);
+    }
+}
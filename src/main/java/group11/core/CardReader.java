@@ -0,0 +1,114 @@
+package group11.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import group11.util.ResourceUtil;
+
+/**
+ * Card reader (IN from device 2). Holds one or more decks, each read once
+ * into memory when the reader is created and kept as the words IN writes:
+ * one character per word followed by a 0 terminator. Each IN takes the next
+ * deck in the hopper; once the last deck is reached it is delivered again on
+ * every further IN, so a single-deck reader behaves like the original
+ * re-read of the paragraph file.
+ *
+ * The default reader holds the deck named by the {@value #DECK_PROPERTY}
+ * system property, or the bundled Program 2 paragraph. It is loaded once per
+ * JVM and shared by every CPU.
+ */
+public final class CardReader {
+    public static final String DECK_PROPERTY = "group11.cardreader.deck";
+    public static final String DEFAULT_DECK_RESOURCE = "/test-files/program2-paragraph.txt";
+
+    private static volatile int[] defaultDeck;
+
+    private final List<int[]> decks;
+    private int next;
+
+    private CardReader(List<int[]> decks) {
+        if (decks.isEmpty()) {
+            throw new IllegalArgumentException("Card reader needs at least one deck");
+        }
+        this.decks = List.copyOf(decks);
+    }
+
+    /**
+     * @param decks deck contents, delivered one per IN
+     */
+    public static CardReader ofText(String... decks) {
+        List<int[]> words = new ArrayList<>(decks.length);
+        for (String deck : decks)
+            words.add(toWords(deck));
+        return new CardReader(words);
+    }
+
+    /**
+     * Reads US-ASCII deck files, delivered one per IN.
+     */
+    public static CardReader fromPaths(Path... decks) throws IOException {
+        List<int[]> words = new ArrayList<>(decks.length);
+        for (Path deck : decks)
+            words.add(toWords(new String(Files.readAllBytes(deck), StandardCharsets.US_ASCII)));
+        return new CardReader(words);
+    }
+
+    /**
+     * Reads a US-ASCII classpath resource as a single deck.
+     */
+    public static CardReader fromResource(String resourcePath) throws IOException {
+        return new CardReader(List.of(toWords(
+                new String(ResourceUtil.readResource(resourcePath), StandardCharsets.US_ASCII))));
+    }
+
+    /**
+     * A reader over the default deck, loading it on first use.
+     */
+    public static CardReader defaultReader() throws IOException {
+        int[] deck = defaultDeck;
+        if (deck == null) {
+            synchronized (CardReader.class) {
+                deck = defaultDeck;
+                if (deck == null) {
+                    String path = System.getProperty(DECK_PROPERTY);
+                    CardReader loaded = path != null ? fromPaths(Path.of(path)) : fromResource(DEFAULT_DECK_RESOURCE);
+                    deck = loaded.decks.get(0);
+                    defaultDeck = deck;
+                }
+            }
+        }
+        return new CardReader(List.of(deck));
+    }
+
+    private static int[] toWords(String deck) {
+        int[] words = new int[deck.length() + 1]; // last word stays 0
+        for (int i = 0; i < deck.length(); i++)
+            words[i] = deck.charAt(i) & 0xFF; // lower 8 bits = character
+        return words;
+    }
+
+    /**
+     * Takes the next deck from the hopper, or the last one again.
+     *
+     * @return the deck's words with the 0 terminator; callers must not modify it
+     */
+    int[] nextDeck() {
+        int[] deck = decks.get(next);
+        if (next < decks.size() - 1)
+            next++;
+        return deck;
+    }
+
+    /** Puts every deck back in the hopper. */
+    public void rewind() {
+        next = 0;
+    }
+
+    public int deckCount() {
+        return decks.size();
+    }
+}
@@ -0,0 +1,78 @@
+package group11.core;
+
+import java.util.Arrays;
+
+/**
+ * Pre-decoded instruction fields, one entry per memory word, keyed by the
+ * address the instruction was fetched from. Each entry remembers the raw word
+ * it was decoded from and is re-decoded whenever a different word is fetched
+ * at that address, so stores, ROM loads and front-panel writes can never leave
+ * a stale decode behind.
+ */
+public class DecodeCache {
+    private static final int EMPTY = -1;
+
+    // raw word each entry was decoded from, EMPTY if never decoded
+    private final int[] word;
+    // decoded fields, indexed by fetch address
+    final byte[] opcode;
+    final byte[] r;
+    final byte[] ix;
+    final byte[] i;
+    final byte[] address;
+    // true when IX takes part in the effective address (everything except LDX/STX)
+    final boolean[] indexedEA;
+
+    private long hits;
+    private long misses;
+
+    public DecodeCache(int size) {
+        this.word = new int[size];
+        this.opcode = new byte[size];
+        this.r = new byte[size];
+        this.ix = new byte[size];
+        this.i = new byte[size];
+        this.address = new byte[size];
+        this.indexedEA = new boolean[size];
+        clear();
+    }
+
+    /**
+     * Makes sure the entry for pc holds the decode of instruction.
+     *
+     * @param pc          address the instruction was fetched from
+     * @param instruction raw 16-bit instruction word
+     * @return entry index to read the decoded fields from
+     */
+    public int decode(int pc, int instruction) {
+        if (word[pc] == instruction) {
+            hits++;
+            return pc;
+        }
+        misses++;
+        int op = (instruction >> 10) & 0x3F; // [15..10] opcode
+        opcode[pc] = (byte) op;
+        r[pc] = (byte) ((instruction >> 8) & 0x03); // [9..8] R
+        ix[pc] = (byte) ((instruction >> 6) & 0x03); // [7..6] X
+        i[pc] = (byte) ((instruction >> 5) & 0x01); // [5] I
+        address[pc] = (byte) (instruction & 0x1F); // [4..0] address
+        indexedEA[pc] = !(op == 041 || op == 042); // LDX/STX use X as the target register
+        word[pc] = instruction;
+        return pc;
+    }
+
+    /**
+     * Forgets every decoded entry.
+     */
+    public void clear() {
+        Arrays.fill(word, EMPTY);
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+}
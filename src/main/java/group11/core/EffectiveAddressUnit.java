@@ -0,0 +1,60 @@
+package group11.core;
+
+/**
+ * Effective address arithmetic for memory-reference instructions. Works on the
+ * pre-decoded fields in the DecodeCache and has no side effects: a bad address
+ * is reported as the machine fault id it would raise, and the CPU decides what
+ * that means (a fault while running, an exception from the front panel).
+ * Indirection needs a memory read, so it is left to the CPU as well.
+ */
+final class EffectiveAddressUnit {
+    /** validate() result for an address that is safe to use. */
+    static final int NO_FAULT = -1;
+    /** Machine fault 0: access to the reserved locations 0-5. */
+    static final int FAULT_RESERVED = 0;
+    /** Machine fault 3: address beyond the end of memory. */
+    static final int FAULT_BEYOND_MEMORY = 3;
+
+    private static final int LAST_RESERVED = 5;
+
+    private final DecodeCache decodeCache;
+    private final int memorySize;
+
+    EffectiveAddressUnit(DecodeCache decodeCache, int memorySize) {
+        this.decodeCache = decodeCache;
+        this.memorySize = memorySize;
+    }
+
+    /**
+     * Address field plus the index register, when IX takes part in the
+     * address, before any indirection.
+     *
+     * @param entry decode cache entry of the instruction
+     * @param ixr   index registers (ixr[0] is unused)
+     * @return unmasked address, may lie beyond memory
+     */
+    int direct(int entry, int[] ixr) {
+        int address = decodeCache.address[entry];
+        int ix = decodeCache.ix[entry];
+        if (ix != 0 && decodeCache.indexedEA[entry]) {
+            address += ixr[ix] & 0x7FF;
+        }
+        return address;
+    }
+
+    /**
+     * @param address         address to check
+     * @param indexedEA       whether IX took part in the address (false for LDX/STX)
+     * @param enforceReserved whether the reserved locations are off limits (only while running)
+     * @return NO_FAULT, or the id of the machine fault the address raises
+     */
+    int validate(int address, boolean indexedEA, boolean enforceReserved) {
+        if (address < 0 || address >= memorySize) {
+            return FAULT_BEYOND_MEMORY;
+        }
+        if (enforceReserved && !indexedEA && address <= LAST_RESERVED) {
+            return FAULT_RESERVED;
+        }
+        return NO_FAULT;
+    }
+}
@@ -0,0 +1,290 @@
+package group11.core;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import group11.trace.TraceLevel;
+import group11.trace.Tracer;
+
+/**
+ * Headless execution engine for the CPU. Runs a tight fetch/decode/execute
+ * loop until the program halts, faults, waits on console input or hits an
+ * instruction/time budget. The Swing front end only observes the CPU through
+ * the event bus; it no longer provides the clock.
+ *
+ * By default the loop advances a basic block at a time (see
+ * {@link CPU#stepBlock(long, boolean)}); {@link #setBlockFusion(boolean)}
+ * switches back to one {@link CPU#step()} per instruction. Blocks that run
+ * often are translated into method handle chains (see
+ * {@link BlockTranslator}) unless {@link #setTranslation(boolean)} turns that
+ * off.
+ *
+ * Only one run happens at a time: starting a run while another is executing
+ * or queued throws IllegalStateException. {@link #isActive()} tells the front
+ * panel when it must keep its hands off the machine.
+ */
+public class ExecutionEngine implements AutoCloseable {
+
+    /** How often (in instructions, roughly) the wall clock is sampled for timed runs. */
+    private static final int DEADLINE_CHECK_MASK = 0x3FF;
+
+    /**
+     * Why a run stopped.
+     */
+    public enum StopReason {
+        /** HLT executed or halt requested from the front panel. */
+        HALTED,
+        /** A machine fault was raised (see MFR). */
+        MACHINE_FAULT,
+        /** An instruction threw outside of the machine fault model. */
+        ERROR,
+        /** IN from the keyboard is waiting for console input. */
+        INPUT_PENDING,
+        /** The instruction budget passed to runUntilHalt was used up. */
+        INSTRUCTION_LIMIT,
+        /** The time budget passed to runFor was used up. */
+        TIME_LIMIT
+    }
+
+    /**
+     * Summary of a single run.
+     *
+     * @param instructions  number of instructions executed
+     * @param wallTimeNanos elapsed wall time in nanoseconds
+     * @param reason        why the run stopped
+     */
+    public record RunResult(long instructions, long wallTimeNanos, StopReason reason) {
+
+        public Duration wallTime() {
+            return Duration.ofNanos(wallTimeNanos);
+        }
+
+        public double instructionsPerSecond() {
+            if (wallTimeNanos == 0)
+                return 0.0;
+            return instructions * 1_000_000_000.0 / wallTimeNanos;
+        }
+    }
+
+    private final CPU cpu;
+    private ExecutorService executor;
+    private volatile RunResult lastResult;
+    private volatile boolean blockFusion = true;
+    private volatile boolean translation = true;
+    // claimed when a run is started or queued, released when its loop exits
+    private final AtomicBoolean active = new AtomicBoolean();
+
+    public ExecutionEngine(CPU cpu) {
+        this.cpu = cpu;
+    }
+
+    /**
+     * Runs on the calling thread until the program stops or the instruction
+     * budget is used up.
+     *
+     * @param maxInstructions maximum number of instructions to execute
+     * @return summary of the run
+     */
+    public RunResult runUntilHalt(long maxInstructions) {
+        claim();
+        return execute(maxInstructions, Long.MAX_VALUE);
+    }
+
+    /**
+     * Runs on the calling thread until the program stops or the time budget is
+     * used up.
+     *
+     * @param budget maximum wall time to run for
+     * @return summary of the run
+     */
+    public RunResult runFor(Duration budget) {
+        claim();
+        return execute(Long.MAX_VALUE, budget.toNanos());
+    }
+
+    /**
+     * Same as {@link #runUntilHalt(long)} but executes on the engine's dedicated
+     * thread.
+     */
+    public CompletableFuture<RunResult> startUntilHalt(long maxInstructions) {
+        return submit(maxInstructions, Long.MAX_VALUE);
+    }
+
+    /**
+     * Same as {@link #runFor(Duration)} but executes on the engine's dedicated
+     * thread.
+     */
+    public CompletableFuture<RunResult> startFor(Duration budget) {
+        return submit(Long.MAX_VALUE, budget.toNanos());
+    }
+
+    /**
+     * Runs an action on the engine's thread once any run executing or queued
+     * there has finished.
+     */
+    public void runAfterCurrentRun(Runnable action) {
+        executor().execute(action);
+    }
+
+    /**
+     * @return true while a run is executing or queued to execute; the
+     *         machine must not be changed from other threads meanwhile
+     */
+    public boolean isActive() {
+        return active.get();
+    }
+
+    /**
+     * Asks a running loop to stop after the current instruction.
+     */
+    public void stop() {
+        cpu.running = false;
+    }
+
+    /**
+     * Chooses between executing straight-line blocks as a unit (the default)
+     * and stepping every instruction through fetch. Both give the same
+     * machine state; stepping posts PC/IR events for every instruction.
+     */
+    public void setBlockFusion(boolean enabled) {
+        this.blockFusion = enabled;
+    }
+
+    public boolean isBlockFusion() {
+        return blockFusion;
+    }
+
+    /**
+     * Chooses whether hot blocks on the fused path are translated (the
+     * default) or always interpreted. Has no effect with block fusion off.
+     */
+    public void setTranslation(boolean enabled) {
+        this.translation = enabled;
+    }
+
+    public boolean isTranslation() {
+        return translation;
+    }
+
+    /**
+     * @return result of the most recent run, or null if nothing has run yet
+     */
+    public RunResult getLastResult() {
+        return lastResult;
+    }
+
+    private CompletableFuture<RunResult> submit(long maxInstructions, long budgetNanos) {
+        claim();
+        try {
+            return CompletableFuture.supplyAsync(() -> execute(maxInstructions, budgetNanos), executor());
+        } catch (RuntimeException e) {
+            active.set(false);
+            throw e;
+        }
+    }
+
+    private void claim() {
+        if (!active.compareAndSet(false, true))
+            throw new IllegalStateException("engine is already running");
+    }
+
+    /**
+     * Runs the loop for a run claimed by the caller and releases the claim.
+     *
+     * @param budgetNanos wall time allowed, Long.MAX_VALUE for no limit
+     */
+    private RunResult execute(long maxInstructions, long budgetNanos) {
+        try {
+            return loop(maxInstructions, budgetNanos);
+        } finally {
+            active.set(false);
+        }
+    }
+
+    private RunResult loop(long maxInstructions, long budgetNanos) {
+        long start = System.nanoTime();
+        long deadlineNanos = budgetNanos == Long.MAX_VALUE ? Long.MAX_VALUE : start + budgetNanos;
+        cpu.beginRun();
+        boolean fused = blockFusion;
+        boolean translate = translation;
+        long executed = 0;
+        long nextDeadlineCheck = 0;
+        StopReason reason;
+
+        while (true) {
+            if (cpu.isWaitingForConsoleInput()) {
+                reason = StopReason.INPUT_PENDING;
+                break;
+            }
+            if (!cpu.running) {
+                reason = cpu.isFaulted() ? StopReason.MACHINE_FAULT : StopReason.HALTED;
+                break;
+            }
+            if (executed >= maxInstructions) {
+                reason = StopReason.INSTRUCTION_LIMIT;
+                break;
+            }
+            if (executed >= nextDeadlineCheck) {
+                if (System.nanoTime() >= deadlineNanos) {
+                    reason = StopReason.TIME_LIMIT;
+                    break;
+                }
+                nextDeadlineCheck = executed + DEADLINE_CHECK_MASK + 1;
+            }
+            try {
+                if (fused) {
+                    cpu.stepBlock(maxInstructions - executed, translate);
+                    executed += cpu.blockExecuted();
+                } else {
+                    cpu.stepInstruction();
+                    executed++;
+                }
+            } catch (RuntimeException e) {
+                cpu.failRun(e);
+                executed += fused ? cpu.blockExecuted() : 1;
+                reason = StopReason.ERROR;
+                break;
+            }
+        }
+
+        // budget exhausted: the program is paused, not waiting on anything
+        if (reason == StopReason.INSTRUCTION_LIMIT || reason == StopReason.TIME_LIMIT) {
+            cpu.running = false;
+        }
+        // leave memory up to date for anyone inspecting it while the CPU is stopped
+        cpu.getCache().flush();
+        cpu.getCache().endBatch();
+        cpu.publishBranchStats();
+        RunResult result = new RunResult(executed, System.nanoTime() - start, reason);
+        lastResult = result;
+        Tracer tracer = cpu.getTracer();
+        if (Tracer.ENABLED && tracer.isEnabled(TraceLevel.SUMMARY)) {
+            tracer.log(TraceLevel.SUMMARY, "run stopped: %s after %d instructions in %.3f ms (%.0f instr/s)",
+                    reason, executed, result.wallTimeNanos() / 1_000_000.0, result.instructionsPerSecond());
+        }
+        return result;
+    }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "cpu-engine");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return executor;
+    }
+
+    @Override
+    public synchronized void close() {
+        stop();
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package group11.core;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 2-bit counters indexed by the branch address XOR a global history register
+ * holding the outcomes of the last historyBits conditional branches, so one
+ * branch gets different counters depending on the path that led to it.
+ */
+final class GSharePredictor extends AbstractBranchPredictor {
+    private final byte[] counters;
+    private final int mask;
+    private final int historyMask;
+    private int history;
+
+    GSharePredictor(BranchPredictorConfig config) {
+        super(config);
+        this.counters = new byte[config.entries()];
+        this.mask = config.entries() - 1;
+        this.historyMask = (1 << config.historyBits()) - 1;
+        clearTables();
+    }
+
+    @Override
+    public boolean predictTaken(int branchPc, int targetPc) {
+        return taken(counters[(branchPc ^ history) & mask]);
+    }
+
+    @Override
+    public void update(int branchPc, int targetPc, boolean actuallyTaken) {
+        int idx = (branchPc ^ history) & mask;
+        counters[idx] = train(counters[idx], actuallyTaken);
+        history = ((history << 1) | (actuallyTaken ? 1 : 0)) & historyMask;
+    }
+
+    @Override
+    void clearTables() {
+        Arrays.fill(counters, (byte) 1);
+        history = 0;
+    }
+
+    @Override
+    int tableBytes() {
+        return counters.length + 2;
+    }
+
+    @Override
+    void saveTables(ByteBuffer out) {
+        out.put(counters);
+        out.putShort((short) history);
+    }
+
+    @Override
+    void loadTables(ByteBuffer in) {
+        in.get(counters);
+        history = in.getShort() & historyMask;
+    }
+}
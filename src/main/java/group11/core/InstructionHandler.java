@@ -0,0 +1,11 @@
+package group11.core;
+
+/**
+ * Executes one opcode on the CPU. The CPU keeps one handler per 6-bit
+ * opcode; fields of the current instruction are already decoded when the
+ * handler runs.
+ */
+@FunctionalInterface
+public interface InstructionHandler {
+    void execute(CPU cpu);
+}
@@ -0,0 +1,178 @@
+package group11.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary load file: the same address/word pairs as the octal text
+ * format, grouped into runs of consecutive addresses. Written by the
+ * assembler next to its text load file and read by {@link RomLoader}, which
+ * tells the two formats apart by the magic number.
+ *
+ * Format (big-endian):
+ * <pre>
+ * int magic "G11I", short version, short segments
+ * per segment: short address, short words, short word[words]
+ * int CRC32 of everything above
+ * </pre>
+ */
+public final class LoadImage {
+    static final int MAGIC = 0x47313149; // "G11I"
+    static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_BYTES = 8;
+    private static final int CHECKSUM_BYTES = 4;
+
+    private LoadImage() {
+    }
+
+    /**
+     * Encodes address/word pairs as a load image. Words are masked to 16 bits.
+     *
+     * @param words word per address; addresses must fit in 16 bits
+     */
+    public static byte[] encode(Map<Integer, Integer> words) {
+        SortedMap<Integer, Integer> sorted = new TreeMap<>(words);
+        int[] addresses = new int[sorted.size()];
+        int[] values = new int[sorted.size()];
+        int n = 0;
+        for (Map.Entry<Integer, Integer> e : sorted.entrySet()) {
+            if (e.getKey() < 0 || e.getKey() > 0xFFFF) {
+                throw new IllegalArgumentException("Address out of range: " + Integer.toOctalString(e.getKey()));
+            }
+            addresses[n] = e.getKey();
+            values[n] = e.getValue() & 0xFFFF;
+            n++;
+        }
+
+        int segments = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || addresses[i] != addresses[i - 1] + 1)
+                segments++;
+        }
+        if (segments > 0xFFFF) {
+            throw new IllegalArgumentException("Too many segments: " + segments);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_BYTES + 4 * segments + 2 * n + CHECKSUM_BYTES);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.writeShort(segments);
+            int i = 0;
+            while (i < n) {
+                int end = i + 1;
+                while (end < n && addresses[end] == addresses[end - 1] + 1 && end - i < 0xFFFF)
+                    end++;
+                out.writeShort(addresses[i]);
+                out.writeShort(end - i);
+                for (int j = i; j < end; j++)
+                    out.writeShort(values[j]);
+                i = end;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeInt((int) crc.getValue());
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // ByteArrayOutputStream does not throw
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes address/word pairs to a load image file, replacing it if present.
+     */
+    public static void write(Path path, Map<Integer, Integer> words) throws IOException {
+        Files.write(path, encode(words));
+    }
+
+    /**
+     * Whether the file starts with the load image magic number. Text load
+     * files start with octal digits, so they never match.
+     */
+    public static boolean isImage(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4);
+            while (head.hasRemaining() && ch.read(head) >= 0) {
+            }
+            return !head.hasRemaining() && head.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Maps the file and copies every segment straight into memory with
+     * {@link Memory#writeBlock(int, ShortBuffer)}. The whole image is checked
+     * before anything is copied, so a bad file leaves memory untouched.
+     *
+     * @return the number of words loaded
+     * @throws IOException if the file is not a valid image, a segment falls
+     *                     outside memory or bytes follow the last segment
+     */
+    static int load(Path path, Memory memory) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < HEADER_BYTES + CHECKSUM_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException(path + " is not a load image");
+            }
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int body = (int) size - CHECKSUM_BYTES;
+            if (map.getInt(0) != MAGIC) {
+                throw new IOException(path + " is not a load image");
+            }
+            int version = map.getShort(4) & 0xFFFF;
+            if (version != FORMAT_VERSION) {
+                throw new IOException(path + ": unsupported load image version " + version);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(map.slice(0, body));
+            if ((int) crc.getValue() != map.getInt(body)) {
+                throw new IOException(path + ": load image checksum mismatch");
+            }
+
+            // validate segment bounds first, then copy
+            int segments = map.getShort(6) & 0xFFFF;
+            int pos = HEADER_BYTES;
+            int words = 0;
+            for (int s = 0; s < segments; s++) {
+                if (pos + 4 > body) {
+                    throw new IOException(path + ": load image is truncated");
+                }
+                int address = map.getShort(pos) & 0xFFFF;
+                int count = map.getShort(pos + 2) & 0xFFFF;
+                if (address + count > memory.MEMORY_SIZE) {
+                    throw new IOException(path + ": segment at " + Integer.toOctalString(address)
+                            + " runs past memory");
+                }
+                pos += 4 + 2 * count;
+                if (pos > body) {
+                    throw new IOException(path + ": load image is truncated");
+                }
+                words += count;
+            }
+            if (pos != body) {
+                throw new IOException(path + ": " + (body - pos) + " bytes after the last segment of the load image");
+            }
+
+            pos = HEADER_BYTES;
+            for (int s = 0; s < segments; s++) {
+                int address = map.getShort(pos) & 0xFFFF;
+                int count = map.getShort(pos + 2) & 0xFFFF;
+                memory.writeBlock(address, map.slice(pos + 4, 2 * count).asShortBuffer());
+                pos += 4 + 2 * count;
+            }
+            return words;
+        }
+    }
+}
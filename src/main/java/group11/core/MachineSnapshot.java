@@ -0,0 +1,372 @@
+package group11.core;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import group11.events.EventBus;
+
+/**
+ * Immutable checkpoint of a whole machine: CPU registers and flags, all of
+ * memory with MAR/MBR, cache lines with their replacement state, and the
+ * branch predictor's configuration and tables. Taken with {@link CPU#snapshot()} and put back
+ * with {@link CPU#restore(MachineSnapshot)} or {@link #fork(EventBus)}.
+ *
+ * Memory is held in pages of {@link #PAGE_WORDS} words. A snapshot taken
+ * against a base ({@link CPU#snapshot(MachineSnapshot)}) shares every page
+ * whose contents did not change, so a series of checkpoints from one
+ * warmed-up machine only pays for the pages each run wrote. The live machine
+ * keeps its flat memory array; restoring copies the pages back into it.
+ *
+ * Binary format (big-endian), see {@link #save(Path)}:
+ * <pre>
+ * int magic "G11S", short version
+ * CPU:       int PC, int IR, byte PC/IR set mask, byte MFR, byte CC bits, byte carry,
+ *            int GPR[4], int IXR[4], int FR[2]
+ * memory:    int MAR, int MBR, byte MAR/MBR set mask, short words, short word[words]
+ * cache:     short lines, short lineSizeWords, short ways, byte replacement, byte write policy,
+ *            byte write-allocate, long random seed, long random state,
+ *            per line: short block, byte flags, short prev, short next, short data[lineSizeWords]
+ *            per set: short head, short tail, int PLRU bits
+ * predictor: byte kind, short entries, byte history bits, short BTB entries, short RAS depth,
+ *            int state bytes, byte state[], int branches, int correct
+ * int CRC32 of everything above
+ * </pre>
+ */
+public final class MachineSnapshot {
+    /** Words per memory page, the unit shared between snapshots. */
+    public static final int PAGE_WORDS = 64;
+
+    private static final int MAGIC = 0x47313153; // "G11S"
+    private static final int FORMAT_VERSION = 3;
+
+    /** CPU registers and flags. CC is packed with CC[i] in bit i. */
+    record Registers(int pc, int ir, int validMask, int mfr, int conditionCodes, int carry,
+            int[] gpr, int[] ixr, int[] fr) {
+    }
+
+    /** Branch predictor configuration, its tables and prediction stats. */
+    record Predictor(BranchPredictorConfig config, byte[] counters, int branchCount, int correctPredictions) {
+    }
+
+    private final Registers registers;
+    private final int[][] pages;
+    private final int mar;
+    private final int mbr;
+    private final boolean marSet;
+    private final boolean mbrSet;
+    private final Cache.State cache;
+    private final Predictor predictor;
+
+    private MachineSnapshot(Registers registers, int[][] pages, int mar, int mbr, boolean marSet, boolean mbrSet,
+            Cache.State cache, Predictor predictor) {
+        this.registers = registers;
+        this.pages = pages;
+        this.mar = mar;
+        this.mbr = mbr;
+        this.marSet = marSet;
+        this.mbrSet = mbrSet;
+        this.cache = cache;
+        this.predictor = predictor;
+    }
+
+    /**
+     * Captures memory and puts it together with the CPU, cache and predictor
+     * state. Pages equal to the base snapshot's are shared with it.
+     */
+    static MachineSnapshot capture(Registers registers, Memory memory, MachineSnapshot base,
+            Cache.State cache, Predictor predictor) {
+        int[] words = memory.memory;
+        int[][] pages = new int[(words.length + PAGE_WORDS - 1) / PAGE_WORDS][];
+        boolean sameLayout = base != null && base.pages.length == pages.length;
+        for (int p = 0; p < pages.length; p++) {
+            int from = p * PAGE_WORDS;
+            int to = Math.min(from + PAGE_WORDS, words.length);
+            if (sameLayout && Arrays.equals(words, from, to, base.pages[p], 0, base.pages[p].length)) {
+                pages[p] = base.pages[p];
+            } else {
+                pages[p] = Arrays.copyOfRange(words, from, to);
+            }
+        }
+        return new MachineSnapshot(registers, pages, memory.MAR, memory.MBR, memory.isMARSet(), memory.isMBRSet(),
+                cache, predictor);
+    }
+
+    Registers registers() {
+        return registers;
+    }
+
+    Cache.State cacheState() {
+        return cache;
+    }
+
+    Predictor predictor() {
+        return predictor;
+    }
+
+    /**
+     * Copies the memory image and MAR/MBR into a memory of the same size.
+     */
+    void restoreMemory(Memory memory) {
+        if (memory.memory.length != wordCount()) {
+            throw new IllegalArgumentException("snapshot holds " + wordCount() + " words, memory has "
+                    + memory.memory.length);
+        }
+        for (int p = 0; p < pages.length; p++) {
+            memory.writeBlock(p * PAGE_WORDS, pages[p], 0, pages[p].length);
+        }
+        memory.restoreLatches(mar, mbr, marSet, mbrSet);
+    }
+
+    /**
+     * @return cache geometry and policies of the machine the snapshot was taken from
+     */
+    public CacheConfig cacheConfig() {
+        return cache.config();
+    }
+
+    /**
+     * @return number of memory pages this snapshot shares with another one
+     */
+    public int sharedPagesWith(MachineSnapshot other) {
+        int shared = 0;
+        for (int p = 0; p < Math.min(pages.length, other.pages.length); p++) {
+            if (pages[p] == other.pages[p])
+                shared++;
+        }
+        return shared;
+    }
+
+    /**
+     * @param address memory address
+     * @return word at that address when the snapshot was taken
+     */
+    public int wordAt(int address) {
+        return pages[address / PAGE_WORDS][address % PAGE_WORDS];
+    }
+
+    /**
+     * Builds a new machine (memory, cache and branch predictor with the
+     * snapshot's configurations, CPU) in this state. The caller owns the CPU and must close it.
+     *
+     * @param bus event bus for the new machine
+     * @return stopped CPU restored from this snapshot
+     */
+    public CPU fork(EventBus bus) {
+        Memory memory = new Memory();
+        CPU cpu = new CPU(memory, bus, new Cache(memory, bus, cache.config()), new RomLoader(memory),
+                BranchPredictor.create(predictor.config()));
+        cpu.restore(this);
+        return cpu;
+    }
+
+    private int wordCount() {
+        int words = 0;
+        for (int[] page : pages)
+            words += page.length;
+        return words;
+    }
+
+    // -------------------- Binary format --------------------
+
+    /**
+     * Writes the snapshot to a file in the binary format described above.
+     */
+    public void save(Path path) throws IOException {
+        try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(path))) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(file, crc));
+            write(out);
+            out.flush();
+            new DataOutputStream(file).writeInt((int) crc.getValue());
+        }
+    }
+
+    /**
+     * Reads a snapshot written by {@link #save(Path)}.
+     *
+     * @throws IOException if the file cannot be read, is not a snapshot, or fails its checksum
+     */
+    public static MachineSnapshot load(Path path) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        if (bytes.length < 10) {
+            throw new IOException(path + " is too short to be a machine snapshot");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        int stored = ((bytes[bytes.length - 4] & 0xFF) << 24) | ((bytes[bytes.length - 3] & 0xFF) << 16)
+                | ((bytes[bytes.length - 2] & 0xFF) << 8) | (bytes[bytes.length - 1] & 0xFF);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4));
+        if (in.readInt() != MAGIC) {
+            throw new IOException(path + " is not a machine snapshot");
+        }
+        int version = in.readUnsignedShort();
+        if (version != FORMAT_VERSION) {
+            throw new IOException(path + ": unsupported snapshot version " + version);
+        }
+        if ((int) crc.getValue() != stored) {
+            throw new IOException(path + ": snapshot checksum mismatch");
+        }
+        try {
+            return read(in);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(path + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+
+        Registers r = registers;
+        out.writeInt(r.pc());
+        out.writeInt(r.ir());
+        out.writeByte(r.validMask());
+        out.writeByte(r.mfr());
+        out.writeByte(r.conditionCodes());
+        out.writeByte(r.carry());
+        writeInts(out, r.gpr());
+        writeInts(out, r.ixr());
+        writeInts(out, r.fr());
+
+        out.writeInt(mar);
+        out.writeInt(mbr);
+        out.writeByte((marSet ? 1 : 0) | (mbrSet ? 2 : 0));
+        out.writeShort(wordCount());
+        for (int[] page : pages)
+            writeShorts(out, page, 0, page.length);
+
+        CacheConfig config = cache.config();
+        out.writeShort(config.lines());
+        out.writeShort(config.lineSizeWords());
+        out.writeShort(config.ways());
+        out.writeByte(config.replacement().ordinal());
+        out.writeByte(config.writePolicy().ordinal());
+        out.writeBoolean(config.writeAllocate());
+        out.writeLong(config.randomSeed());
+        out.writeLong(cache.randomState());
+        for (int slot = 0; slot < config.lines(); slot++) {
+            out.writeShort(cache.blocks()[slot]);
+            out.writeByte(cache.flags()[slot]);
+            out.writeShort(cache.prev()[slot]);
+            out.writeShort(cache.next()[slot]);
+            writeShorts(out, cache.data(), slot * config.lineSizeWords(), config.lineSizeWords());
+        }
+        for (int set = 0; set < config.sets(); set++) {
+            out.writeShort(cache.head()[set]);
+            out.writeShort(cache.tail()[set]);
+            out.writeInt(cache.plruBits()[set]);
+        }
+
+        BranchPredictorConfig predictorConfig = predictor.config();
+        out.writeByte(predictorConfig.kind().ordinal());
+        out.writeShort(predictorConfig.entries());
+        out.writeByte(predictorConfig.historyBits());
+        out.writeShort(predictorConfig.btbEntries());
+        out.writeShort(predictorConfig.rasDepth());
+        out.writeInt(predictor.counters().length);
+        out.write(predictor.counters());
+        out.writeInt(predictor.branchCount());
+        out.writeInt(predictor.correctPredictions());
+    }
+
+    private static MachineSnapshot read(DataInputStream in) throws IOException {
+        int pc = in.readInt();
+        int ir = in.readInt();
+        int validMask = in.readUnsignedByte();
+        int mfr = in.readUnsignedByte();
+        int cc = in.readUnsignedByte();
+        int carry = in.readUnsignedByte();
+        Registers registers = new Registers(pc, ir, validMask, mfr, cc, carry,
+                readInts(in, 4), readInts(in, 4), readInts(in, 2));
+
+        int mar = in.readInt();
+        int mbr = in.readInt();
+        int latches = in.readUnsignedByte();
+        int words = in.readUnsignedShort();
+        int[][] pages = new int[(words + PAGE_WORDS - 1) / PAGE_WORDS][];
+        for (int p = 0; p < pages.length; p++)
+            pages[p] = readShorts(in, Math.min(PAGE_WORDS, words - p * PAGE_WORDS));
+
+        int lines = in.readUnsignedShort();
+        int lineSize = in.readUnsignedShort();
+        int ways = in.readUnsignedShort();
+        CacheConfig.ReplacementPolicy replacement = CacheConfig.ReplacementPolicy.values()[in.readUnsignedByte()];
+        CacheConfig.WritePolicy writePolicy = CacheConfig.WritePolicy.values()[in.readUnsignedByte()];
+        boolean writeAllocate = in.readBoolean();
+        CacheConfig config = new CacheConfig(lines, lineSize, ways, replacement, writePolicy, writeAllocate,
+                in.readLong());
+        long randomState = in.readLong();
+        int[] blocks = new int[lines];
+        byte[] flags = new byte[lines];
+        int[] prev = new int[lines];
+        int[] next = new int[lines];
+        int[] data = new int[lines * lineSize];
+        for (int slot = 0; slot < lines; slot++) {
+            blocks[slot] = in.readUnsignedShort();
+            flags[slot] = in.readByte();
+            prev[slot] = in.readShort(); // -1 marks the ends of a set's list
+            next[slot] = in.readShort();
+            System.arraycopy(readShorts(in, lineSize), 0, data, slot * lineSize, lineSize);
+        }
+        int sets = config.sets();
+        int[] head = new int[sets];
+        int[] tail = new int[sets];
+        int[] plruBits = new int[sets];
+        for (int set = 0; set < sets; set++) {
+            head[set] = in.readShort();
+            tail[set] = in.readShort();
+            plruBits[set] = in.readInt();
+        }
+        Cache.State cache = new Cache.State(config, blocks, flags, data, prev, next, head, tail, plruBits,
+                randomState);
+
+        BranchPredictorConfig predictorConfig = new BranchPredictorConfig(
+                BranchPredictorConfig.Kind.values()[in.readUnsignedByte()], in.readUnsignedShort(),
+                in.readUnsignedByte(), in.readUnsignedShort(), in.readUnsignedShort());
+        int stateBytes = in.readInt();
+        if (stateBytes < 0 || stateBytes > in.available()) {
+            throw new IOException("predictor state of " + stateBytes + " bytes does not fit the snapshot");
+        }
+        byte[] counters = new byte[stateBytes];
+        in.readFully(counters);
+        Predictor predictor = new Predictor(predictorConfig, counters, in.readInt(), in.readInt());
+
+        return new MachineSnapshot(registers, pages, mar, mbr, (latches & 1) != 0, (latches & 2) != 0,
+                cache, predictor);
+    }
+
+    // machine words are 16 bits wide
+    private static void writeShorts(DataOutputStream out, int[] values, int from, int count) throws IOException {
+        for (int i = from; i < from + count; i++)
+            out.writeShort(values[i]);
+    }
+
+    private static int[] readShorts(DataInputStream in, int count) throws IOException {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++)
+            values[i] = in.readUnsignedShort();
+        return values;
+    }
+
+    // registers are not masked to 16 bits: DVD and CNVRT leave negative values in them
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values)
+            out.writeInt(value);
+    }
+
+    private static int[] readInts(DataInputStream in, int count) throws IOException {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++)
+            values[i] = in.readInt();
+        return values;
+    }
+}
@@ -1,16 +1,54 @@
 //written with GPT assistance 
 package group11.core;
 
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
 
 /**
  * Simple memory emulation containing 2048 words.
+ *
+ * Words that something has cached as code (decoded blocks, translations) are
+ * tracked per page of {@value #CODE_PAGE_WORDS} words. Every write method
+ * reports writes into a marked page to the {@link CodeWriteListener}; writes
+ * to unmarked pages cost one bit test on a single long and never call out.
+ * The bit is computed without branching; the only branch is the one guarding
+ * the listener call, which data stores never take.
  */
 public class Memory {
 
     public final int MEMORY_SIZE = 2048;
     public int[] memory;
-    public Integer MAR;
-    public Integer MBR;
+    public int MAR;
+    public int MBR;
+
+    /** Words per code page; 2048 words make 64 pages, one bit each. */
+    public static final int CODE_PAGE_WORDS = 32;
+    private static final int CODE_PAGE_SHIFT = 5;
+
+    /**
+     * Told when words in a page marked as code are written.
+     */
+    @FunctionalInterface
+    public interface CodeWriteListener {
+        /**
+         * @param address first word written
+         * @param len     number of words written; some may lie outside code
+         */
+        void codeWritten(int address, int len);
+    }
+
+    private static final CodeWriteListener NO_LISTENER = (address, len) -> {
+    };
+
+    // bit p set when page p holds words cached as code
+    private long codePages;
+    private CodeWriteListener codeWriteListener = NO_LISTENER;
+
+    // which of MAR/MBR hold a value; both are unset after construction and reset
+    static final int MAR_VALID = 1;
+    static final int MBR_VALID = 2;
+    private int validRegisters;
 
     public Memory() {
         memory = new int[MEMORY_SIZE];
@@ -24,11 +62,68 @@ public class Memory {
     public void writeMARAddress(int address) {
         checkAddress(address);
         this.MAR = address;
-
+        validRegisters |= MAR_VALID;
     }
 
     public void writeMBR(int data) {
         this.MBR = data & 0xFFFF;
+        validRegisters |= MBR_VALID;
+    }
+
+    /**
+     * Sets MAR as the CPU and front panel latch it, without the bounds check
+     * of writeMARAddress.
+     */
+    public void setMAR(int address) {
+        this.MAR = address;
+        validRegisters |= MAR_VALID;
+    }
+
+    /**
+     * Sets MBR without the 16-bit masking of writeMBR.
+     */
+    public void setMBR(int data) {
+        this.MBR = data;
+        validRegisters |= MBR_VALID;
+    }
+
+    /**
+     * Marks MBR as unset again (the front panel clears it after storePlus).
+     */
+    public void clearMBR() {
+        this.MBR = 0;
+        validRegisters &= ~MBR_VALID;
+    }
+
+    /**
+     * Puts back MAR/MBR and their set/unset state, for machine snapshots.
+     */
+    void restoreLatches(int mar, int mbr, boolean marSet, boolean mbrSet) {
+        this.MAR = mar;
+        this.MBR = mbr;
+        validRegisters = (marSet ? MAR_VALID : 0) | (mbrSet ? MBR_VALID : 0);
+    }
+
+    public boolean isMARSet() {
+        return (validRegisters & MAR_VALID) != 0;
+    }
+
+    public boolean isMBRSet() {
+        return (validRegisters & MBR_VALID) != 0;
+    }
+
+    /**
+     * @return MAR for display, or null while it is unset
+     */
+    public Integer getMAR() {
+        return isMARSet() ? MAR : null;
+    }
+
+    /**
+     * @return MBR for display, or null while it is unset
+     */
+    public Integer getMBR() {
+        return isMBRSet() ? MBR : null;
     }
 
     public int readMBR() {
@@ -40,13 +135,14 @@ public class Memory {
         writeMARAddress(address);
         writeMBR(data);
         memory[MAR] = MBR;
-
+        if (codeBit(address) != 0)
+            codeWriteListener.codeWritten(address, 1);
     }
 
     public void readMemory(int address) {
         checkAddress(address);
         writeMARAddress(address);
-        MBR = memory[MAR];
+        writeMBR(memory[MAR]);
     }
 
     public int getMemoryValueAt(int address){
@@ -57,14 +153,136 @@ public class Memory {
     public void writeMemoryDirect(int address, int data) {
         checkAddress(address);
         memory[address] = data;
+        if (codeBit(address) != 0)
+            codeWriteListener.codeWritten(address, 1);
     }
 
-    public void reset() {
-        for (int i = 0; i < MEMORY_SIZE; i++) {
-            memory[i] = 0;
+    /**
+     * Copies len words starting at address into dst. Like the other block
+     * operations, bounds are checked once for the whole range and MAR/MBR are
+     * left alone.
+     */
+    public void readBlock(int address, int[] dst, int off, int len) {
+        checkRange(address, len);
+        System.arraycopy(memory, address, dst, off, len);
+    }
+
+    /**
+     * Copies len words from src into memory starting at address, as
+     * writeMemoryDirect would one at a time.
+     */
+    public void writeBlock(int address, int[] src, int off, int len) {
+        checkRange(address, len);
+        System.arraycopy(src, off, memory, address, len);
+        written(address, len);
+    }
+
+    /**
+     * writeBlock without reporting code writes, for a cache writing back a
+     * line whose stores were reported when the cache took them.
+     */
+    void writeBack(int address, int[] src, int off, int len) {
+        checkRange(address, len);
+        System.arraycopy(src, off, memory, address, len);
+    }
+
+    /**
+     * Writes the remaining 16-bit words of src into memory starting at address.
+     */
+    public void writeBlock(int address, ShortBuffer src) {
+        int len = src.remaining();
+        checkRange(address, len);
+        for (int i = 0; i < len; i++) {
+            memory[address + i] = src.get() & 0xFFFF;
         }
-        MAR = null;
-        MBR = null;
+        written(address, len);
+    }
+
+    /**
+     * Sets len words starting at address to value.
+     */
+    public void fill(int address, int len, int value) {
+        checkRange(address, len);
+        Arrays.fill(memory, address, address + len, value & 0xFFFF);
+        written(address, len);
+    }
+
+    /**
+     * Copies len words from one address to another; the ranges may overlap.
+     */
+    public void copy(int from, int to, int len) {
+        checkRange(from, len);
+        checkRange(to, len);
+        System.arraycopy(memory, from, memory, to, len);
+        written(to, len);
+    }
+
+    /**
+     * @return a live view of memory; writes through it bypass MAR/MBR, must
+     *         keep words within 16 bits and must be reported with
+     *         {@link #written(int, int)}
+     */
+    public IntBuffer asIntBuffer() {
+        return IntBuffer.wrap(memory);
+    }
+
+    public void reset() {
+        Arrays.fill(memory, 0);
+        MAR = 0;
+        MBR = 0;
+        validRegisters = 0;
+        written(0, MEMORY_SIZE);
+    }
+
+    /**
+     * Reports len words from address as changed by something other than
+     * Memory's own write methods: the live view, or a cache holding stores
+     * that memory has not seen yet.
+     */
+    public void written(int address, int len) {
+        if (len > 0 && (codePages & pageMask(address, len)) != 0)
+            codeWriteListener.codeWritten(address, len);
+    }
+
+    /**
+     * Marks the pages holding len words from address as code, so writes to
+     * them are reported.
+     */
+    public void markCode(int address, int len) {
+        checkRange(address, len);
+        if (len > 0)
+            codePages |= pageMask(address, len);
+    }
+
+    /**
+     * Unmarks every page, once nothing is cached as code any more.
+     */
+    public void clearCodeMarks() {
+        codePages = 0;
+    }
+
+    public boolean isCode(int address) {
+        checkAddress(address);
+        return codeBit(address) != 0;
+    }
+
+    /**
+     * Sets the single listener told about code writes; null removes it.
+     */
+    public void setCodeWriteListener(CodeWriteListener listener) {
+        this.codeWriteListener = listener != null ? listener : NO_LISTENER;
+    }
+
+    // 1 if the page holding address is marked as code: a shift and a mask on one field
+    private int codeBit(int address) {
+        return (int) (codePages >>> (address >>> CODE_PAGE_SHIFT)) & 1;
+    }
+
+    // bits of the pages holding len > 0 words from address
+    private static long pageMask(int address, int len) {
+        int first = address >>> CODE_PAGE_SHIFT;
+        int last = (address + len - 1) >>> CODE_PAGE_SHIFT;
+        return (-1L >>> (63 - (last - first))) << first;
     }
 
     private void checkAddress(int address) {
@@ -73,12 +291,18 @@ public class Memory {
         }
     }
 
+    private void checkRange(int address, int len) {
+        if (len < 0 || address < 0 || address > MEMORY_SIZE - len) {
+            throw new IllegalArgumentException("Block out of bounds: " + address + " + " + len);
+        }
+    }
+
     public String dump(int start, int end) {
         checkAddress(start);
         checkAddress(end);
         StringBuilder blocks = new StringBuilder();
         for (int i = start; i <= end; i++) {
-            blocks.append("  address " + i + " value: " + memory[i]);
+            blocks.append("  address ").append(i).append(" value: ").append(memory[i]);
         }
         return blocks.toString();
     }
@@ -4,6 +4,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.BitSet;
 
 //https://chatgpt.com/share/68ec33a9-a518-8007-ac90-d03566374f14
 /*
@@ -17,18 +18,27 @@ public class RomLoader {
     }
 
     /**
-     * Load ROM from a text file containing octal address/word pairs.
+     * Load ROM from a text file containing octal address/word pairs, or from
+     * a binary {@link LoadImage}. Binary images are recognised by their magic
+     * number. Either way the words are copied into memory in bulk, one
+     * {@link Memory#writeBlock} per run of consecutive addresses, and only
+     * once the whole file has been read, so a bad file leaves memory
+     * untouched. MAR and MBR are left alone.
      *
-     * @param path   path to the text file
-     * @param memory target memory
-     * @throws IOException   on I/O errors
-     * @throws LoadException on format or address errors
+     * @param path   path to the text file or load image
+     * @throws IOException   on I/O errors, or a corrupt load image
+     * @throws LoadException on format or address errors in a text file
      */
     public int load(Path path) throws IOException, LoadException {
+        if (LoadImage.isImage(path)) {
+            return LoadImage.load(path, memory);
+        }
         try (BufferedReader br = Files.newBufferedReader(path)) {
             String line;
             int lineNo = 0;
             int pendingInstructions=0;
+            int[] words = new int[memory.MEMORY_SIZE];
+            BitSet loaded = new BitSet(memory.MEMORY_SIZE);
 
             while ((line = br.readLine()) != null) {
                 lineNo++;
@@ -50,7 +60,14 @@ public class RomLoader {
                 }
                
                 pendingInstructions++;
-                memory.writeMemory(addr, word & 0xFFFF); // mask to 16 bits if desired
+                words[addr] = word & 0xFFFF; // mask to 16 bits if desired; a later line wins
+                loaded.set(addr);
+            }
+
+            for (int start = loaded.nextSetBit(0); start >= 0; ) {
+                int end = loaded.nextClearBit(start);
+                memory.writeBlock(start, words, start, end - start);
+                start = loaded.nextSetBit(end);
             }
 
             // count of pending instructions for cpu accounting
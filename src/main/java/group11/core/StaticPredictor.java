@@ -0,0 +1,46 @@
+package group11.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed predictions that never learn: always taken, never taken, or backward
+ * taken / forward not taken.
+ */
+final class StaticPredictor extends AbstractBranchPredictor {
+    private final BranchPredictorConfig.Kind kind;
+
+    StaticPredictor(BranchPredictorConfig config) {
+        super(config);
+        this.kind = config.kind();
+    }
+
+    @Override
+    public boolean predictTaken(int branchPc, int targetPc) {
+        return switch (kind) {
+            case ALWAYS_TAKEN -> true;
+            case BACKWARD_TAKEN -> targetPc <= branchPc;
+            default -> false;
+        };
+    }
+
+    @Override
+    public void update(int branchPc, int targetPc, boolean actuallyTaken) {
+    }
+
+    @Override
+    void clearTables() {
+    }
+
+    @Override
+    int tableBytes() {
+        return 0;
+    }
+
+    @Override
+    void saveTables(ByteBuffer out) {
+    }
+
+    @Override
+    void loadTables(ByteBuffer in) {
+    }
+}
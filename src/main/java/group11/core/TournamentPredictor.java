@@ -0,0 +1,72 @@
+package group11.core;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Hybrid of a bimodal and a gshare predictor of the same size. A 2-bit
+ * chooser per branch address counts which of the two has been right when
+ * they disagreed, and the prediction comes from that one.
+ */
+final class TournamentPredictor extends AbstractBranchPredictor {
+    private final BimodalPredictor local;
+    private final GSharePredictor global;
+    // >= 2 trusts gshare
+    private final byte[] chooser;
+    private final int mask;
+
+    TournamentPredictor(BranchPredictorConfig config) {
+        super(config);
+        this.local = new BimodalPredictor(BranchPredictorConfig.bimodal(config.entries()));
+        this.global = new GSharePredictor(BranchPredictorConfig.gshare(config.entries(), config.historyBits()));
+        this.chooser = new byte[config.entries()];
+        this.mask = config.entries() - 1;
+        clearTables();
+    }
+
+    @Override
+    public boolean predictTaken(int branchPc, int targetPc) {
+        return taken(chooser[branchPc & mask])
+                ? global.predictTaken(branchPc, targetPc)
+                : local.predictTaken(branchPc, targetPc);
+    }
+
+    @Override
+    public void update(int branchPc, int targetPc, boolean actuallyTaken) {
+        boolean localTaken = local.predictTaken(branchPc, targetPc);
+        boolean globalTaken = global.predictTaken(branchPc, targetPc);
+        if (localTaken != globalTaken) {
+            int idx = branchPc & mask;
+            chooser[idx] = train(chooser[idx], globalTaken == actuallyTaken);
+        }
+        local.update(branchPc, targetPc, actuallyTaken);
+        global.update(branchPc, targetPc, actuallyTaken);
+    }
+
+    /** Both tables cleared, every chooser weakly trusting bimodal. */
+    @Override
+    void clearTables() {
+        local.clearTables();
+        global.clearTables();
+        Arrays.fill(chooser, (byte) 1);
+    }
+
+    @Override
+    int tableBytes() {
+        return local.tableBytes() + global.tableBytes() + chooser.length;
+    }
+
+    @Override
+    void saveTables(ByteBuffer out) {
+        local.saveTables(out);
+        global.saveTables(out);
+        out.put(chooser);
+    }
+
+    @Override
+    void loadTables(ByteBuffer in) {
+        local.loadTables(in);
+        global.loadTables(in);
+        in.get(chooser);
+    }
+}
@@ -1,3 +1,14 @@
 package group11.events;
 
-public record CacheChanged(String cacheContent) implements CPUEvent {}
\ No newline at end of file
+import java.util.function.Supplier;
+
+/**
+ * Posted when cache contents change. The renderer works from an immutable copy of the cache taken
+ * when the event was posted, so it is safe to call on any thread; the text view is only rendered
+ * when a subscriber asks for it through cacheContent().
+ */
+public record CacheChanged(long version, Supplier<String> renderer) implements CPUEvent {
+    public String cacheContent() {
+        return renderer.get();
+    }
+}
@@ -0,0 +1,15 @@
+package group11.events;
+
+/**
+ * Cache counters since the start of the current run.
+ */
+public record CacheStatsChanged(long readHits, long readMisses, long writeHits, long writeMisses,
+        long evictions, long wordsFilled, long wordsWrittenThrough, long wordsWrittenBack) implements CPUEvent {
+
+    public double hitRate() {
+        long accesses = readHits + readMisses + writeHits + writeMisses;
+        if (accesses == 0)
+            return 0.0;
+        return (double) (readHits + writeHits) / accesses;
+    }
+}
@@ -0,0 +1,7 @@
+package group11.events;
+
+/**
+ * Whether the execution engine is running a program; the front panel's
+ * controls that change the machine are off while it is.
+ */
+public record EngineStateChanged(boolean running) implements CPUEvent {}
@@ -1,9 +1,17 @@
 package group11.events;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 
@@ -12,53 +20,286 @@ import java.util.function.Consumer;
 /**
  * This event bus utilizes Java's AutoCloseable listeners to convey value changes between the CPU values
  * and the frontend, binding them to each other.
+ *
+ * By default events are delivered synchronously on the posting thread. In coalescing mode, CPU state
+ * events are folded into a latest-value snapshot (one slot per register/event type, console messages
+ * concatenated) and flushed to subscribers at a fixed refresh rate, so a fast CPU never waits on the UI.
+ * Producers that change too often to post at all can register a tick source instead ({@link #onTick});
+ * it is asked once per flush to post whatever changed.
  */
 public final class EventBus {
+    /** Upper bound on console text buffered between two coalesced flushes; older text is dropped. */
+    public static final int MAX_PENDING_MESSAGE_CHARS = 64 * 1024;
+
+    private static final Object[] GPR_KEYS = { "GPR0", "GPR1", "GPR2", "GPR3" };
+    private static final Object[] IXR_KEYS = { "IXR0", "IXR1", "IXR2", "IXR3" };
+
+    @SuppressWarnings("unchecked")
+    private static final Consumer<Object>[] NO_SUBSCRIBERS = new Consumer[0];
+
     private final Map<Class<?>, CopyOnWriteArrayList<Consumer<?>>> listeners = new ConcurrentHashMap<>();
+    // per event class: every handler to call, flattened over the type hierarchy.
+    // Rebuilt lazily after any subscribe/unsubscribe; writes are guarded by subscriptionLock.
+    private final Map<Class<?>, Consumer<Object>[]> dispatchPlans = new ConcurrentHashMap<>();
+    private final Object subscriptionLock = new Object();
+
+    // coalescing state, only used when enableCoalescing() was called
+    private volatile boolean coalescing = false;
+    private final Map<Object, CPUEvent> pending = new ConcurrentHashMap<>();
+    private final StringBuilder pendingMessages = new StringBuilder();
+    private final AtomicBoolean deliveryInFlight = new AtomicBoolean();
+    private Executor deliveryExecutor;
+    private ScheduledExecutorService ticker;
+    private final CopyOnWriteArrayList<Runnable> tickSources = new CopyOnWriteArrayList<>();
+    private final Set<Object> reportedSources = ConcurrentHashMap.newKeySet();
+    private volatile BiConsumer<Object, RuntimeException> errorHandler = this::reportOnce;
 
     /**
      * Subscribe to command (see events folder for all possible commands).
      * @param <T> Desired event grouping interface
      * @param type Desired event to subscribe to
      * @param handler Callback to invoke when change occurs
-     * @return Instance of new autocloseable subscription 
+     * @return Instance of new autocloseable subscription
      */
     public <T> AutoCloseable subscribe(Class<T> type, Consumer<T> handler) {
-        var list = listeners.computeIfAbsent(type, _ -> new CopyOnWriteArrayList<>());
-        list.add(handler);
+        synchronized (subscriptionLock) {
+            var list = listeners.computeIfAbsent(type, _ -> new CopyOnWriteArrayList<>());
+            list.add(handler);
+            dispatchPlans.clear();
+        }
         // Return an AutoCloseable so you can easily unsubscribe (avoid leaks).
         return () -> {
-            var l = listeners.get(type);
-            if (l != null) l.remove(handler);
+            synchronized (subscriptionLock) {
+                var l = listeners.get(type);
+                if (l != null && l.remove(handler)) dispatchPlans.clear();
+            }
         };
     }
 
+    /**
+     * Registers a source run at the start of every coalesced flush (timer tick or flush()), on the
+     * flushing thread. It may post events, which go out with that flush. Sources are not run in
+     * synchronous mode; producers post at their own publish points there.
+     * @param source Callback posting state that changed since its last call
+     * @return Instance of new autocloseable registration
+     */
+    public AutoCloseable onTick(Runnable source) {
+        tickSources.add(Objects.requireNonNull(source, "source"));
+        return () -> tickSources.remove(source);
+    }
+
+    /**
+     * Replaces what happens when a tick source or a coalesced flush throws. The bus keeps ticking
+     * either way. The default prints the first failure of each source to standard error.
+     * @param handler Called with the tick source that threw (or this bus for the flush itself) and the error
+     */
+    public void setErrorHandler(BiConsumer<Object, RuntimeException> handler) {
+        this.errorHandler = Objects.requireNonNull(handler, "handler");
+    }
+
+    /**
+     * @param type Event type about to be posted
+     * @return true if posting an event of this exact type would reach at least one handler
+     */
+    public boolean hasSubscribers(Class<?> type) {
+        return planFor(type).length > 0;
+    }
+
     /**
      * Posts new value change to subscribers
      * @param event A new event instance with arguments. See 'CPUEvent' or 'UiCommand' for all events.
      */
     public void post(Object event) {
         Objects.requireNonNull(event, "event");
-        // Notify exact class listeners
-        notifyType(event.getClass(), event);
+        if (coalescing && event instanceof CPUEvent cpuEvent) {
+            fold(cpuEvent);
+            return;
+        }
+        dispatch(event);
+    }
+
+    /**
+     * Switches CPU events to coalesced delivery.
+     * @param refreshHz Flushes per second (30-60 is plenty for a UI). 0 disables the timer so that
+     *                  only explicit flush() calls deliver events.
+     * @param deliveryExecutor Where subscribers are invoked, e.g. SwingUtilities::invokeLater
+     */
+    public synchronized void enableCoalescing(int refreshHz, Executor deliveryExecutor) {
+        if (refreshHz < 0) {
+            throw new IllegalArgumentException("refreshHz must be >= 0: " + refreshHz);
+        }
+        disableCoalescing();
+        this.deliveryExecutor = Objects.requireNonNull(deliveryExecutor, "deliveryExecutor");
+        this.coalescing = true;
+        if (refreshHz > 0) {
+            long periodMicros = 1_000_000L / refreshHz;
+            this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "event-bus-refresh");
+                t.setDaemon(true);
+                return t;
+            });
+            this.ticker.scheduleAtFixedRate(this::tick, periodMicros, periodMicros, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    /**
+     * Returns to synchronous delivery. Anything still pending is delivered first.
+     */
+    public synchronized void disableCoalescing() {
+        if (!coalescing) return;
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+        coalescing = false;
+        for (Object event : drain()) {
+            dispatch(event);
+        }
+    }
+
+    public boolean isCoalescing() {
+        return coalescing;
+    }
+
+    /**
+     * Delivers the current coalesced snapshot through the delivery executor right away.
+     */
+    public void flush() {
+        if (!coalescing) return;
+        runTickSources();
+        List<Object> batch = drain();
+        if (!batch.isEmpty()) {
+            deliveryExecutor.execute(() -> deliver(batch));
+        }
+    }
+
+    private void tick() {
+        // skip this tick if the previous batch is still waiting on the UI thread;
+        // the snapshot keeps folding until the UI catches up
+        if (!deliveryInFlight.compareAndSet(false, true)) return;
+        boolean handedOff = false;
+        try {
+            runTickSources();
+            List<Object> batch = drain();
+            if (batch.isEmpty()) return;
+            deliveryExecutor.execute(() -> {
+                try {
+                    deliver(batch);
+                } finally {
+                    deliveryInFlight.set(false);
+                }
+            });
+            handedOff = true;
+        } catch (RuntimeException e) {
+            // escaping would cancel the fixed-rate task and stop delivery for good
+            errorHandler.accept(this, e);
+        } finally {
+            if (!handedOff) deliveryInFlight.set(false);
+        }
+    }
+
+    private void runTickSources() {
+        for (Runnable source : tickSources) {
+            try {
+                source.run();
+            } catch (RuntimeException e) {
+                // one broken source must not hold back the others or the flush
+                errorHandler.accept(source, e);
+            }
+        }
+    }
+
+    // a source that throws usually throws on every tick; one trace is enough
+    private void reportOnce(Object source, RuntimeException e) {
+        if (!reportedSources.add(source)) return;
+        System.err.println("EventBus: " + source + " failed; further failures from it are not reported");
+        e.printStackTrace();
+    }
+
+    private void deliver(List<Object> batch) {
+        for (Object event : batch) {
+            dispatch(event);
+        }
+    }
+
+    private void fold(CPUEvent event) {
+        if (event instanceof MessageChanged message) {
+            synchronized (pendingMessages) {
+                pendingMessages.append(message.value());
+                int overflow = pendingMessages.length() - MAX_PENDING_MESSAGE_CHARS;
+                if (overflow > 0) pendingMessages.delete(0, overflow);
+            }
+            return;
+        }
+        pending.put(keyOf(event), event);
+    }
+
+    private List<Object> drain() {
+        List<Object> batch = new ArrayList<>(pending.size() + 1);
+        for (Object key : pending.keySet()) {
+            CPUEvent event = pending.remove(key);
+            if (event != null) batch.add(event);
+        }
+        synchronized (pendingMessages) {
+            if (pendingMessages.length() > 0) {
+                batch.add(new MessageChanged(pendingMessages.toString()));
+                pendingMessages.setLength(0);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Snapshot slot for an event: one per register for register-indexed events, one per type otherwise.
+     */
+    private static Object keyOf(CPUEvent event) {
+        if (event instanceof GPRChanged g && g.GPRNum() >= 0 && g.GPRNum() < GPR_KEYS.length) {
+            return GPR_KEYS[g.GPRNum()];
+        }
+        if (event instanceof IXRChanged x && x.IXRNum() >= 0 && x.IXRNum() < IXR_KEYS.length) {
+            return IXR_KEYS[x.IXRNum()];
+        }
+        return event.getClass();
+    }
+
+    private void dispatch(Object event) {
+        for (Consumer<Object> handler : planFor(event.getClass())) {
+            handler.accept(event);
+        }
+    }
+
+    private Consumer<Object>[] planFor(Class<?> type) {
+        Consumer<Object>[] plan = dispatchPlans.get(type);
+        if (plan != null) return plan;
+        synchronized (subscriptionLock) {
+            plan = buildPlan(type);
+            dispatchPlans.put(type, plan);
+            return plan;
+        }
+    }
+
+    /**
+     * Flattens the handlers for the exact class, its superclasses and its interfaces, in that order.
+     */
+    @SuppressWarnings("unchecked")
+    private Consumer<Object>[] buildPlan(Class<?> type) {
+        List<Consumer<?>> handlers = new ArrayList<>();
+        addHandlers(type, handlers);
         // Also notify superclass/interfaces listeners (optional but handy)
-        Class<?> c = event.getClass().getSuperclass();
+        Class<?> c = type.getSuperclass();
         while (c != null) {
-            notifyType(c, event);
+            addHandlers(c, handlers);
             c = c.getSuperclass();
         }
-        for (Class<?> iface : event.getClass().getInterfaces()) {
-            notifyType(iface, event);
+        for (Class<?> iface : type.getInterfaces()) {
+            addHandlers(iface, handlers);
         }
+        if (handlers.isEmpty()) return NO_SUBSCRIBERS;
+        return handlers.toArray(new Consumer[0]);
     }
 
-    @SuppressWarnings("unchecked")
-    private <T> void notifyType(Class<T> type, Object event) {
+    private void addHandlers(Class<?> type, List<Consumer<?>> into) {
         List<Consumer<?>> list = listeners.get(type);
-        if (list == null) return;
-        for (Consumer<?> raw : list) {
-            ((Consumer<T>) raw).accept(type.cast(event));
-        }
+        if (list != null) into.addAll(list);
     }
 }
-    
\ No newline at end of file
@@ -0,0 +1,49 @@
+package group11.sim;
+
+import java.util.List;
+import java.util.Objects;
+
+import group11.core.MachineSnapshot;
+
+/**
+ * One run for a {@link SimulationPool}: a starting machine state plus the
+ * input it is given.
+ *
+ * @param name            label carried over to the result
+ * @param start           machine state to fork the run from
+ * @param consoleInput    lines handed to IN from the keyboard, in order
+ * @param cardDeck        card reader contents, or null for the default deck
+ * @param maxInstructions instruction budget for the whole run
+ */
+public record SimulationJob(String name, MachineSnapshot start, List<String> consoleInput, String cardDeck,
+        long maxInstructions) {
+
+    /** Budget used unless {@link #withMaxInstructions(long)} says otherwise. */
+    public static final long DEFAULT_MAX_INSTRUCTIONS = 50_000_000;
+
+    public SimulationJob {
+        Objects.requireNonNull(name, "name");
+        Objects.requireNonNull(start, "start");
+        consoleInput = List.copyOf(consoleInput);
+        if (maxInstructions <= 0) {
+            throw new IllegalArgumentException("maxInstructions must be positive: " + maxInstructions);
+        }
+    }
+
+    /**
+     * @param name         label carried over to the result
+     * @param start        machine state to fork the run from
+     * @param consoleInput lines handed to IN from the keyboard, in order
+     */
+    public static SimulationJob of(String name, MachineSnapshot start, String... consoleInput) {
+        return new SimulationJob(name, start, List.of(consoleInput), null, DEFAULT_MAX_INSTRUCTIONS);
+    }
+
+    public SimulationJob withCardDeck(String deck) {
+        return new SimulationJob(name, start, consoleInput, deck, maxInstructions);
+    }
+
+    public SimulationJob withMaxInstructions(long max) {
+        return new SimulationJob(name, start, consoleInput, cardDeck, max);
+    }
+}
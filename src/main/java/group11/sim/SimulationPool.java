@@ -0,0 +1,144 @@
+package group11.sim;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import group11.core.BranchPredictor;
+import group11.core.BranchPredictorConfig;
+import group11.core.CPU;
+import group11.core.Cache;
+import group11.core.CacheConfig;
+import group11.core.ExecutionEngine;
+import group11.core.ExecutionEngine.RunResult;
+import group11.core.ExecutionEngine.StopReason;
+import group11.core.MachineSnapshot;
+import group11.core.Memory;
+import group11.core.RomLoader;
+import group11.events.EventBus;
+
+/**
+ * Runs many independent machines at once, headless. Every job forks its own
+ * Memory/Cache/CPU/EventBus from a {@link MachineSnapshot}, so a program is
+ * loaded once ({@link #boot}) and then run against many inputs. Console input
+ * comes from the job's script and printer output is captured per job.
+ *
+ * Runs share nothing, so a batch of at least as many jobs as workers scales
+ * with the number of cores.
+ *
+ * <pre>
+ * MachineSnapshot program2 = SimulationPool.boot(loadFile, 6, CacheConfig.DEFAULT);
+ * try (SimulationPool pool = new SimulationPool()) {
+ *     SimulationReport report = pool.run(List.of(
+ *             SimulationJob.of("the", program2, "the"),
+ *             SimulationJob.of("cat", program2, "cat")));
+ * }
+ * </pre>
+ */
+public final class SimulationPool implements AutoCloseable {
+    private final ForkJoinPool pool;
+
+    /** One worker per available processor. */
+    public SimulationPool() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public SimulationPool(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Loads a program into a fresh machine and captures it, ready to fork jobs from.
+     *
+     * @param loadFile load file, as for the front panel's load button
+     * @param pc       address execution starts at
+     * @param config   cache configuration for every machine forked from it
+     */
+    public static MachineSnapshot boot(Path loadFile, int pc, CacheConfig config)
+            throws IOException, RomLoader.LoadException {
+        return boot(loadFile, pc, config, BranchPredictorConfig.DEFAULT);
+    }
+
+    /**
+     * Same, with a branch predictor of its own for every machine forked from
+     * it, e.g. to compare predictors on the same jobs.
+     */
+    public static MachineSnapshot boot(Path loadFile, int pc, CacheConfig config, BranchPredictorConfig predictor)
+            throws IOException, RomLoader.LoadException {
+        Memory memory = new Memory();
+        EventBus bus = new EventBus();
+        try (CPU cpu = new CPU(memory, bus, new Cache(memory, bus, config), new RomLoader(memory),
+                BranchPredictor.create(predictor))) {
+            cpu.romLoader.load(loadFile);
+            cpu.setPC(pc);
+            return cpu.snapshot();
+        }
+    }
+
+    /**
+     * Runs all jobs across the pool's workers and waits for them.
+     *
+     * @return results in job order, with batch totals
+     */
+    public SimulationReport run(List<SimulationJob> jobs) {
+        long start = System.nanoTime();
+        List<ForkJoinTask<SimulationResult>> tasks = new ArrayList<>(jobs.size());
+        for (SimulationJob job : jobs) {
+            tasks.add(pool.submit(() -> runJob(job)));
+        }
+        List<SimulationResult> results = new ArrayList<>(tasks.size());
+        for (ForkJoinTask<SimulationResult> task : tasks) {
+            results.add(task.join());
+        }
+        return new SimulationReport(results, System.nanoTime() - start, pool.getParallelism());
+    }
+
+    /**
+     * Runs one job to completion on the calling thread.
+     */
+    public static SimulationResult runJob(SimulationJob job) {
+        StringBuilder output = new StringBuilder();
+        CPU cpu = job.start().fork(new EventBus());
+        try {
+            cpu.setPrinter(ch -> output.append((char) ch));
+            cpu.setCardDeck(job.cardDeck());
+            cpu.getCache().resetStats();
+            BranchPredictor predictor = cpu.getBranchPredictor();
+            int branchesBefore = predictor.getBranchCount();
+            int correctBefore = predictor.getCorrectPredictions();
+
+            ExecutionEngine engine = cpu.getEngine();
+            Iterator<String> input = job.consoleInput().iterator();
+            int linesUsed = 0;
+            long instructions = 0;
+            long wallTimeNanos = 0;
+            RunResult result;
+            while (true) {
+                result = engine.runUntilHalt(job.maxInstructions() - instructions);
+                instructions += result.instructions();
+                wallTimeNanos += result.wallTimeNanos();
+                if (result.reason() != StopReason.INPUT_PENDING || !input.hasNext())
+                    break;
+                // stop first so submitConsoleInput does not resume on the engine thread
+                engine.stop();
+                cpu.submitConsoleInput(input.next());
+                linesUsed++;
+            }
+            return new SimulationResult(job.name(), result.reason(), instructions, wallTimeNanos,
+                    output.toString(), cpu.getCache().getStats(),
+                    predictor.getBranchCount() - branchesBefore,
+                    predictor.getCorrectPredictions() - correctBefore, linesUsed);
+        } finally {
+            cpu.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,77 @@
+package group11.sim;
+
+import java.util.List;
+
+import group11.core.CacheStats;
+
+/**
+ * Results of a {@link SimulationPool} batch, in job order, with totals over
+ * all runs.
+ *
+ * @param results      one result per job, in submission order
+ * @param elapsedNanos wall time of the whole batch
+ * @param parallelism  worker threads the batch ran on
+ */
+public record SimulationReport(List<SimulationResult> results, long elapsedNanos, int parallelism) {
+
+    public SimulationReport {
+        results = List.copyOf(results);
+    }
+
+    public long totalInstructions() {
+        long total = 0;
+        for (SimulationResult r : results)
+            total += r.instructions();
+        return total;
+    }
+
+    /** Execution time summed over all runs, i.e. what a serial batch would take. */
+    public long totalWallTimeNanos() {
+        long total = 0;
+        for (SimulationResult r : results)
+            total += r.wallTimeNanos();
+        return total;
+    }
+
+    public CacheStats cacheStats() {
+        CacheStats total = CacheStats.EMPTY;
+        for (SimulationResult r : results)
+            total = total.plus(r.cacheStats());
+        return total;
+    }
+
+    public long branches() {
+        long total = 0;
+        for (SimulationResult r : results)
+            total += r.branches();
+        return total;
+    }
+
+    public long correctPredictions() {
+        long total = 0;
+        for (SimulationResult r : results)
+            total += r.correctPredictions();
+        return total;
+    }
+
+    public double branchAccuracy() {
+        long branches = branches();
+        if (branches == 0)
+            return 1.0;
+        return (double) correctPredictions() / branches;
+    }
+
+    /** Batch throughput: instructions over all runs per second of elapsed time. */
+    public double instructionsPerSecond() {
+        if (elapsedNanos == 0)
+            return 0.0;
+        return totalInstructions() * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    /** Summed run time over elapsed time; ideally close to the parallelism. */
+    public double speedup() {
+        if (elapsedNanos == 0)
+            return 0.0;
+        return (double) totalWallTimeNanos() / elapsedNanos;
+    }
+}
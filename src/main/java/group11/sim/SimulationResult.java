@@ -0,0 +1,27 @@
+package group11.sim;
+
+import group11.core.CacheStats;
+import group11.core.ExecutionEngine.StopReason;
+
+/**
+ * Outcome of one {@link SimulationJob}.
+ *
+ * @param name               the job's name
+ * @param reason             why the run stopped; INPUT_PENDING means the console input ran out
+ * @param instructions       instructions executed
+ * @param wallTimeNanos      time spent executing, summed over the run's resumptions
+ * @param output             everything written to the printer
+ * @param cacheStats         cache counters for the run
+ * @param branches           conditional branches predicted
+ * @param correctPredictions of which the predictor got right
+ * @param consoleLinesUsed   console input lines consumed
+ */
+public record SimulationResult(String name, StopReason reason, long instructions, long wallTimeNanos,
+        String output, CacheStats cacheStats, long branches, long correctPredictions, int consoleLinesUsed) {
+
+    public double instructionsPerSecond() {
+        if (wallTimeNanos == 0)
+            return 0.0;
+        return instructions * 1_000_000_000.0 / wallTimeNanos;
+    }
+}
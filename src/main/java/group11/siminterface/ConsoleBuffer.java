@@ -0,0 +1,157 @@
+package group11.siminterface;
+
+import java.util.Arrays;
+
+/**
+ * Bounded model of the console output: a ring of the last
+ * {@code scrollbackLines} complete lines plus the line being written. Text
+ * appended since the last {@link #drain()} is kept separately so the view
+ * can append just that to its document and drop the lines that scrolled out,
+ * instead of replacing the whole text for every character.
+ *
+ * An unterminated line is broken after {@link #MAX_LINE_LENGTH} characters,
+ * so output without newlines cannot grow without bound either.
+ *
+ * Thread-safe: the CPU appends from the execution engine thread while the
+ * view drains on the event dispatch thread.
+ */
+public final class ConsoleBuffer {
+    public static final String SCROLLBACK_PROPERTY = "group11.console.scrollback";
+    public static final int DEFAULT_SCROLLBACK_LINES = 2000;
+    public static final int MAX_LINE_LENGTH = 1024;
+
+    /**
+     * What changed since the previous drain.
+     *
+     * @param appended     text to append to the view
+     * @param droppedLines lines to remove from the start of the view after
+     *                     appending
+     * @param replace      the view is too far behind; replace it with
+     *                     {@code appended} and ignore {@code droppedLines}
+     */
+    public record Update(String appended, int droppedLines, boolean replace) {
+        public boolean isEmpty() {
+            return appended.isEmpty() && droppedLines == 0 && !replace;
+        }
+    }
+
+    private static final Update NONE = new Update("", 0, false);
+
+    private final String[] lines;
+    private int head; // oldest complete line
+    private int count;
+    private final StringBuilder partial = new StringBuilder();
+
+    private final StringBuilder pending = new StringBuilder();
+    private int droppedSinceDrain;
+    // lines the view holds, counting an unterminated last line, minus those dropped
+    private int linesInView;
+    private boolean replace;
+
+    public ConsoleBuffer(int scrollbackLines) {
+        if (scrollbackLines < 1) {
+            throw new IllegalArgumentException("scrollbackLines must be at least 1: " + scrollbackLines);
+        }
+        this.lines = new String[scrollbackLines];
+    }
+
+    /**
+     * Scrollback from the {@value #SCROLLBACK_PROPERTY} system property, or
+     * {@value #DEFAULT_SCROLLBACK_LINES} lines.
+     */
+    public static ConsoleBuffer withConfiguredScrollback() {
+        return new ConsoleBuffer(Integer.getInteger(SCROLLBACK_PROPERTY, DEFAULT_SCROLLBACK_LINES));
+    }
+
+    public synchronized void append(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                endLine();
+            } else {
+                partial.append(c);
+                if (!replace)
+                    pending.append(c);
+                if (partial.length() == MAX_LINE_LENGTH)
+                    endLine();
+            }
+        }
+    }
+
+    private void endLine() {
+        if (count == lines.length) {
+            lines[head] = null;
+            head = (head + 1) % lines.length;
+            count--;
+            if (linesInView > 0) {
+                linesInView--;
+                droppedSinceDrain++;
+            } else {
+                // the dropped line was never shown: pending holds more than
+                // the scrollback, so the view will be rebuilt from the ring
+                replace = true;
+                pending.setLength(0);
+            }
+        }
+        lines[(head + count) % lines.length] = partial.toString();
+        count++;
+        partial.setLength(0);
+        if (!replace)
+            pending.append('\n');
+    }
+
+    /**
+     * @return true if a {@link #drain()} now would return a non-empty update
+     */
+    public synchronized boolean hasUpdate() {
+        return replace || !pending.isEmpty() || droppedSinceDrain > 0;
+    }
+
+    /**
+     * Takes everything appended since the previous drain.
+     */
+    public synchronized Update drain() {
+        Update update;
+        if (replace) {
+            update = new Update(text(), 0, true);
+        } else if (pending.isEmpty() && droppedSinceDrain == 0) {
+            return NONE;
+        } else {
+            update = new Update(pending.toString(), droppedSinceDrain, false);
+        }
+        linesInView = count + (partial.isEmpty() ? 0 : 1);
+        pending.setLength(0);
+        droppedSinceDrain = 0;
+        replace = false;
+        return update;
+    }
+
+    /**
+     * @return retained lines, newline-terminated, followed by the current line
+     */
+    public synchronized String text() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++)
+            sb.append(lines[(head + i) % lines.length]).append('\n');
+        return sb.append(partial).toString();
+    }
+
+    public synchronized int lineCount() {
+        return count;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(lines, null);
+        head = 0;
+        count = 0;
+        partial.setLength(0);
+        pending.setLength(0);
+        droppedSinceDrain = 0;
+        linesInView = 0;
+        replace = true;
+    }
+
+    public int scrollbackLines() {
+        return lines.length;
+    }
+}
@@ -0,0 +1,95 @@
+package group11.siminterface;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+
+import group11.events.EventBus;
+
+/**
+ * Console output view: collects text in a {@link ConsoleBuffer} from any
+ * thread and, once per event bus refresh tick, appends what arrived to the
+ * text area's document and removes the lines that went past the scrollback
+ * limit. A program printing one character per OUT costs one document edit
+ * per tick, not one full setText per character. With coalescing off the bus
+ * has no tick, so each append schedules the refresh itself.
+ */
+public final class ConsoleOutput implements AutoCloseable {
+    private final JTextArea area;
+    private final ConsoleBuffer buffer;
+    private final EventBus bus;
+    private final AutoCloseable tick;
+    // at most one refresh waiting on the event dispatch thread
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+
+    public ConsoleOutput(JTextArea area, ConsoleBuffer buffer, EventBus bus) {
+        this.area = area;
+        this.buffer = buffer;
+        this.bus = bus;
+        this.tick = bus.onTick(this::requestRefresh);
+    }
+
+    /** Queues text for the next tick; safe from any thread. */
+    public void append(CharSequence text) {
+        buffer.append(text);
+        if (!bus.isCoalescing())
+            requestRefresh();
+    }
+
+    public void clear() {
+        buffer.clear();
+        requestRefresh();
+    }
+
+    public ConsoleBuffer buffer() {
+        return buffer;
+    }
+
+    private void requestRefresh() {
+        if (buffer.hasUpdate() && refreshQueued.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                refreshQueued.set(false);
+                refresh();
+            });
+        }
+    }
+
+    /**
+     * Brings the document up to date. Runs on the event dispatch thread.
+     */
+    void refresh() {
+        ConsoleBuffer.Update update = buffer.drain();
+        if (update.isEmpty())
+            return;
+        if (update.replace()) {
+            area.setText(update.appended());
+            return;
+        }
+        Document doc = area.getDocument();
+        try {
+            doc.insertString(doc.getLength(), update.appended(), null);
+            if (update.droppedLines() > 0) {
+                Element root = doc.getDefaultRootElement();
+                int dropped = Math.min(update.droppedLines(), root.getElementCount());
+                int end = Math.min(root.getElement(dropped - 1).getEndOffset(), doc.getLength());
+                doc.remove(0, end);
+            }
+        } catch (BadLocationException e) {
+            // the document no longer matches the buffer; rebuild it
+            area.setText(buffer.text());
+        }
+        area.setCaretPosition(doc.getLength());
+    }
+
+    @Override
+    public void close() {
+        try {
+            tick.close();
+        } catch (Exception ignored) {
+        }
+    }
+}
@@ -5,6 +5,8 @@ import javax.swing.border.EmptyBorder;
 import group11.core.CPU;
 import group11.events.CChanged;
 import group11.events.CacheChanged;
+import group11.events.CacheStatsChanged;
+import group11.events.EngineStateChanged;
 import group11.events.EventBus;
 import group11.events.GPRChanged;
 import group11.events.IRChanged;
@@ -21,6 +23,9 @@ import group11.events.SetMAR;
 import group11.events.SetMBR;
 import group11.events.SetPC;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 
 import java.awt.*;
 
@@ -42,8 +47,10 @@ public class MainPanel implements AutoCloseable {
     private final AutoCloseable MFRChangedSub;
     private final AutoCloseable messageChangedSub;
     private final AutoCloseable cacheChangedSub;
+    private final AutoCloseable cacheStatsSub;
     private final AutoCloseable CChangedSub;
     private final AutoCloseable branchStatsSub;
+    private final AutoCloseable engineStateSub;
 
     public OctalInputWithButton MBRField;
     public OctalInputWithButton MARField;
@@ -60,18 +67,26 @@ public class MainPanel implements AutoCloseable {
     public OctalInputWithButton octalInputField;
     public BinaryField binaryField;
     public JTextArea messageField;
+    private final ConsoleBuffer consoleBuffer = ConsoleBuffer.withConfiguredScrollback();
+    private ConsoleOutput consoleOutput;
     public JTextArea cacheField;
     public JTextField consoleInput;
     public JTextField ccCodeField;
     public JLabel branchTotalLabel;
     public JLabel branchCorrectLabel;
     public JLabel branchAccuracyLabel;
+    public JLabel cacheHitsLabel;
+    public JLabel cacheMissesLabel;
+    public JLabel cacheHitRateLabel;
+    public JLabel cacheEvictionsLabel;
+    // buttons that change the machine, disabled while the engine runs a program
+    private final List<JButton> machineControls = new ArrayList<>();
 
     public MainPanel(EventBus bus) {
         this.bus = bus;
 
         // create handlers binding inputs to values changed in CPU
-        this.GPRChangedSub = bus.subscribe(GPRChanged.class, cmd -> {
+        this.GPRChangedSub = bus.subscribe(GPRChanged.class, onEdt(cmd -> {
             switch (cmd.GPRNum()) {
                 case 0:
                     this.GPR0Field.setFromOctal(cmd.value());
@@ -88,8 +103,8 @@ public class MainPanel implements AutoCloseable {
                 default:
                     break;
             }
-        });
-        this.IXRChangedSub = bus.subscribe(IXRChanged.class, cmd -> {
+        }));
+        this.IXRChangedSub = bus.subscribe(IXRChanged.class, onEdt(cmd -> {
             switch (cmd.IXRNum()) {
                 case 1:
                     this.IXR1Field.setFromOctal(cmd.value());
@@ -103,54 +118,70 @@ public class MainPanel implements AutoCloseable {
                 default:
                     break;
             }
-        });
-        this.IRChangedSub = bus.subscribe(IRChanged.class, cmd -> {
+        }));
+        this.IRChangedSub = bus.subscribe(IRChanged.class, onEdt(cmd -> {
             if (cmd.value() != null) {
                 this.IRField.setFromOctal(cmd.value());
             } else {
                 this.IRField.field.setText("");
             }
-        });
-        this.MARChangedSub = bus.subscribe(MARChanged.class, cmd -> {
+        }));
+        this.MARChangedSub = bus.subscribe(MARChanged.class, onEdt(cmd -> {
             if (cmd.value() != null) {
                 this.MARField.setFromOctal(cmd.value());
             } else {
                 this.MARField.field.setText("");
             }
-        });
-        this.MBRChangedSub = bus.subscribe(MBRChanged.class, cmd -> {
+        }));
+        this.MBRChangedSub = bus.subscribe(MBRChanged.class, onEdt(cmd -> {
             if (cmd.value() != null) {
                 this.MBRField.setFromOctal(cmd.value());
             } else {
                 this.MBRField.field.setText("");
             }
-        });
-        this.PCChangedSub = bus.subscribe(PCChanged.class, cmd -> {
+        }));
+        this.PCChangedSub = bus.subscribe(PCChanged.class, onEdt(cmd -> {
             if (cmd.value() != null) {
                 this.PCField.setFromOctal(cmd.value());
             } else {
                 this.PCField.field.setText("");
             }
-        });
+        }));
+        // buffered on the posting thread; consoleOutput writes it out once per bus tick
         this.messageChangedSub = bus.subscribe(MessageChanged.class, cmd -> {
-            this.messageField.setText(this.messageField.getText() + cmd.value());
+            if (this.consoleOutput != null) {
+                this.consoleOutput.append(cmd.value());
+            } else {
+                this.consoleBuffer.append(cmd.value());
+            }
         });
-        this.cacheChangedSub = bus.subscribe(CacheChanged.class, cmd -> {
+        this.cacheChangedSub = bus.subscribe(CacheChanged.class, onEdt(cmd -> {
             this.cacheField.setText(cmd.cacheContent());
-        });
-        this.CChangedSub = bus.subscribe(CChanged.class, cmd -> {
+        }));
+        this.cacheStatsSub = bus.subscribe(CacheStatsChanged.class, onEdt(evt -> {
+            cacheHitsLabel.setText(Long.toString(evt.readHits() + evt.writeHits()));
+            cacheMissesLabel.setText(Long.toString(evt.readMisses() + evt.writeMisses()));
+            cacheHitRateLabel.setText(String.format("%.1f%%", evt.hitRate() * 100.0));
+            cacheEvictionsLabel.setText(Long.toString(evt.evictions()));
+        }));
+        this.CChangedSub = bus.subscribe(CChanged.class, onEdt(cmd -> {
             this.ccCodeField.setText(cmd.ccContent());
-        });
-        this.branchStatsSub = bus.subscribe(BranchPredictionStatsChanged.class, evt -> {
+        }));
+        this.branchStatsSub = bus.subscribe(BranchPredictionStatsChanged.class, onEdt(evt -> {
             branchTotalLabel.setText(Integer.toString(evt.totalBranches()));
             branchCorrectLabel.setText(Integer.toString(evt.correctPredictions()));
             branchAccuracyLabel.setText(String.format("%.1f%%", evt.accuracy() * 100.0));
-        });
-        this.MFRChangedSub = bus.subscribe(MFRChanged.class, cmd -> {
+        }));
+        this.MFRChangedSub = bus.subscribe(MFRChanged.class, onEdt(cmd -> {
             if (this.MFRField != null) {
                 this.MFRField.setFromOctal(cmd.value());
             }
-        });
+        }));
+        this.engineStateSub = bus.subscribe(EngineStateChanged.class, onEdt(evt -> {
+            for (JButton control : this.machineControls) {
+                control.setEnabled(!evt.running());
+            }
+        }));
     }
 
     /**
@@ -268,6 +299,29 @@ public class MainPanel implements AutoCloseable {
         cachePanel.add(new JLabel("Cache Content"));
         cachePanel.add(this.cacheField);
 
+        // cache hit/miss readout
+        JPanel cacheStatsPanel = new JPanel();
+        cacheStatsPanel.setBorder(new EmptyBorder(12, 12, 0, 12));
+        cacheStatsPanel.setLayout(new BoxLayout(cacheStatsPanel, BoxLayout.X_AXIS));
+        EmptyBorder cacheStatsMargin = new EmptyBorder(0, 0, 0, 10);
+        this.cacheHitsLabel = new JLabel("0");
+        this.cacheMissesLabel = new JLabel("0");
+        this.cacheHitRateLabel = new JLabel("0.0%");
+        this.cacheEvictionsLabel = new JLabel("0");
+        this.cacheHitsLabel.setBorder(cacheStatsMargin);
+        this.cacheMissesLabel.setBorder(cacheStatsMargin);
+        this.cacheHitRateLabel.setBorder(cacheStatsMargin);
+        this.cacheEvictionsLabel.setBorder(cacheStatsMargin);
+        cacheStatsPanel.add(new JLabel("Cache Hits: "));
+        cacheStatsPanel.add(cacheHitsLabel);
+        cacheStatsPanel.add(new JLabel("Misses: "));
+        cacheStatsPanel.add(cacheMissesLabel);
+        cacheStatsPanel.add(new JLabel("Hit Rate: "));
+        cacheStatsPanel.add(cacheHitRateLabel);
+        cacheStatsPanel.add(new JLabel("Evictions: "));
+        cacheStatsPanel.add(cacheEvictionsLabel);
+        cachePanel.add(cacheStatsPanel);
+
         // branch prediction readout
         JPanel branchPanel = new JPanel();
         branchPanel.setBorder(new EmptyBorder(12, 12, 12, 12));
@@ -306,30 +360,30 @@ public class MainPanel implements AutoCloseable {
         JPanel actionButtonsColumnOne = new JPanel();
         actionButtons.setBorder(new EmptyBorder(12, 12, 12, 12));
         actionButtonsColumnOne.setLayout(new BoxLayout(actionButtonsColumnOne, BoxLayout.Y_AXIS));
-        actionButtonsColumnOne.add(new ActionButton("Load", () -> {
+        actionButtonsColumnOne.add(machineControl(new ActionButton("Load", () -> {
             cpu.loadFrontPanel();
-        }));
+        })));
         actionButtonsColumnOne.add(Box.createVerticalStrut(2));
-        actionButtonsColumnOne.add(new ActionButton("Load+", () -> {
+        actionButtonsColumnOne.add(machineControl(new ActionButton("Load+", () -> {
             cpu.loadPlus();
-        }));
+        })));
         actionButtonsColumnOne.add(Box.createVerticalStrut(2));
-        actionButtonsColumnOne.add(new ActionButton("Store", () -> {
+        actionButtonsColumnOne.add(machineControl(new ActionButton("Store", () -> {
             cpu.storeFrontPanel();
-        }));
+        })));
         actionButtonsColumnOne.add(Box.createVerticalStrut(2));
-        actionButtonsColumnOne.add(new ActionButton("Store+", () -> cpu.storePlus()));
+        actionButtonsColumnOne.add(machineControl(new ActionButton("Store+", () -> cpu.storePlus())));
         actionButtonsColumnOne.add(Box.createHorizontalStrut(10));
         actionButtons.add(actionButtonsColumnOne);
         JPanel actionButtonsColumnTwo = new JPanel();
         actionButtonsColumnTwo.setLayout(new BoxLayout(actionButtonsColumnTwo, BoxLayout.Y_AXIS));
-        actionButtonsColumnTwo.add(new ActionButton("Run", () -> cpu.run()));
+        actionButtonsColumnTwo.add(machineControl(new ActionButton("Run", () -> cpu.run())));
         actionButtonsColumnTwo.add(Box.createVerticalStrut(2));
-        actionButtonsColumnTwo.add(new ActionButton("Step", () -> cpu.step()));
+        actionButtonsColumnTwo.add(machineControl(new ActionButton("Step", () -> cpu.step())));
         actionButtonsColumnTwo.add(Box.createVerticalStrut(2));
         actionButtonsColumnTwo.add(new ActionButton("Halt", () -> cpu.halt()));
         actionButtonsColumnTwo.add(Box.createVerticalStrut(2));
-        actionButtonsColumnTwo.add(new ActionButton("Reset", () -> cpu.reset()));
+        actionButtonsColumnTwo.add(machineControl(new ActionButton("Reset", () -> cpu.reset())));
         actionButtons.add(actionButtonsColumnTwo);
         secondRow.add(actionButtons);
 
@@ -364,7 +418,7 @@ public class MainPanel implements AutoCloseable {
         fileInput.add(fileInputHandler);
         fileInput.add(Box.createHorizontalStrut(10));
         thirdRow.add(fileInput);
-        thirdRow.add(new ActionButton("IPL", () -> cpu.loadFromROM(fileInputHandler.getSelectedPath())));
+        thirdRow.add(machineControl(new ActionButton("IPL", () -> cpu.loadFromROM(fileInputHandler.getSelectedPath()))));
 
         // message printing
         JPanel messagePanel = new JPanel();
@@ -373,6 +427,7 @@ public class MainPanel implements AutoCloseable {
         this.messageField = new JTextArea(5, 10);
         this.messageField.setEditable(false);
         this.messageField.setLineWrap(true);
+        this.consoleOutput = new ConsoleOutput(this.messageField, this.consoleBuffer, this.bus);
         JScrollPane scrollPane = new JScrollPane(this.messageField); // Wrap in JScrollPane for scrolling
         messagePanel.add(new JLabel("Console Output"), BorderLayout.NORTH); // Add the label to the west (left)
         messagePanel.add(scrollPane, BorderLayout.CENTER);
@@ -398,6 +453,29 @@ public class MainPanel implements AutoCloseable {
         return root;
     }
 
+    /**
+     * Wraps an event handler so it always runs on the Swing event dispatch
+     * thread, since the CPU posts its events from the execution engine thread.
+     *
+     * @param <T>     event type
+     * @param handler handler that touches Swing components
+     * @return handler safe to call from any thread
+     */
+    private static <T> Consumer<T> onEdt(Consumer<T> handler) {
+        return event -> {
+            if (SwingUtilities.isEventDispatchThread()) {
+                handler.accept(event);
+            } else {
+                SwingUtilities.invokeLater(() -> handler.accept(event));
+            }
+        };
+    }
+
+    private JButton machineControl(JButton button) {
+        this.machineControls.add(button);
+        return button;
+    }
+
     public void setFieldFromOctal(OctalInputWithButton target) {
         int octalValue = this.octalInputField.getValue();
         target.setFromOctal(octalValue);
@@ -433,10 +511,17 @@ public class MainPanel implements AutoCloseable {
             messageChangedSub.close();
         } catch (Exception ignored) {
         }
+        if (consoleOutput != null) {
+            consoleOutput.close();
+        }
         try {
             cacheChangedSub.close();
         } catch (Exception ignored) {
         }
+        try {
+            cacheStatsSub.close();
+        } catch (Exception ignored) {
+        }
         try {
             this.CChangedSub.close();
         } catch (Exception ignored) {
@@ -451,6 +536,10 @@ public class MainPanel implements AutoCloseable {
         } catch (Exception ignored) {
 
         }
+        try {
+            this.engineStateSub.close();
+        } catch (Exception ignored) {
+        }
 
     }
 
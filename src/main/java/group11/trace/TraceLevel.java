@@ -0,0 +1,31 @@
+package group11.trace;
+
+/**
+ * Verbosity of CPU tracing. Each level includes everything below it.
+ */
+public enum TraceLevel {
+    /** No tracing at all. */
+    OFF,
+    /** Run summaries, halts and machine faults. */
+    SUMMARY,
+    /** One line per executed instruction. */
+    INSTRUCTION,
+    /** Effective address steps, register dumps and per-word I/O transfers. */
+    MICRO_OP;
+
+    /**
+     * Parses a level name, ignoring case. Unknown or empty values map to OFF.
+     *
+     * @param name level name, e.g. "instruction"
+     * @return matching level
+     */
+    public static TraceLevel parse(String name) {
+        if (name == null || name.isBlank())
+            return OFF;
+        try {
+            return TraceLevel.valueOf(name.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            return OFF;
+        }
+    }
+}
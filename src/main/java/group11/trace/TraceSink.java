@@ -0,0 +1,32 @@
+package group11.trace;
+
+/**
+ * Destination for formatted trace lines. Sinks are only ever called from the
+ * tracer's writer thread, never from the CPU thread.
+ */
+@FunctionalInterface
+public interface TraceSink {
+
+    void write(String line);
+
+    /** Called after a batch of lines has been written. */
+    default void flush() {
+    }
+
+    /**
+     * @return sink writing to standard out
+     */
+    static TraceSink console() {
+        return new TraceSink() {
+            @Override
+            public void write(String line) {
+                System.out.println(line);
+            }
+
+            @Override
+            public void flush() {
+                System.out.flush();
+            }
+        };
+    }
+}
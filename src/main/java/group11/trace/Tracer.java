@@ -0,0 +1,173 @@
+package group11.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Levelled trace facility for the simulator. Lines are formatted on the
+ * caller's thread only when their level is enabled, then handed to a bounded
+ * buffer that a background thread drains into the sink. A full buffer drops
+ * lines instead of blocking the CPU.
+ *
+ * Call sites should be guarded so that nothing is formatted when tracing is
+ * off:
+ *
+ * <pre>
+ * if (Tracer.ENABLED &amp;&amp; tracer.isEnabled(TraceLevel.INSTRUCTION))
+ *     tracer.log(TraceLevel.INSTRUCTION, "LDR EA=%o", ea);
+ * </pre>
+ */
+public final class Tracer implements AutoCloseable {
+
+    /**
+     * Compile-time switch. Setting this to false and rebuilding lets javac drop
+     * every guarded trace call site from the interpreter.
+     */
+    public static final boolean ENABLED = true;
+
+    /** System property used to pick the initial level, e.g. -Dgroup11.trace=instruction */
+    public static final String LEVEL_PROPERTY = "group11.trace";
+
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final int BATCH_SIZE = 256;
+
+    private final BlockingQueue<String> buffer;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong accepted = new AtomicLong();
+    private volatile long written;
+    // drain() notifies on this after each batch so flush() can wait for it
+    private final Object progress = new Object();
+    private volatile TraceSink sink;
+    private volatile int level;
+    private volatile Thread writer;
+    private volatile boolean closed;
+
+    public Tracer(TraceLevel level, TraceSink sink, int capacity) {
+        this.level = level.ordinal();
+        this.sink = sink;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public Tracer(TraceLevel level) {
+        this(level, TraceSink.console(), DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @return tracer writing to standard out at the level given by the
+     *         {@value #LEVEL_PROPERTY} system property (OFF by default)
+     */
+    public static Tracer fromSystemProperties() {
+        return new Tracer(TraceLevel.parse(System.getProperty(LEVEL_PROPERTY)));
+    }
+
+    public boolean isEnabled(TraceLevel at) {
+        return at.ordinal() <= level && at != TraceLevel.OFF;
+    }
+
+    public TraceLevel getLevel() {
+        return TraceLevel.values()[level];
+    }
+
+    public void setLevel(TraceLevel level) {
+        this.level = level.ordinal();
+    }
+
+    public void setSink(TraceSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * @return number of lines dropped because the buffer was full
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public void log(TraceLevel at, String message) {
+        if (isEnabled(at))
+            enqueue(message);
+    }
+
+    public void log(TraceLevel at, String format, Object... args) {
+        if (isEnabled(at))
+            enqueue(String.format(format, args));
+    }
+
+    /**
+     * Blocks until every line buffered so far has reached the sink, or the
+     * timeout expires.
+     *
+     * @param timeoutMillis maximum time to wait
+     */
+    public void flush(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long target = accepted.get();
+        synchronized (progress) {
+            while (written < target) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0)
+                    return;
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(progress, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void enqueue(String line) {
+        if (closed)
+            return;
+        if (writer == null)
+            ensureWriter();
+        if (buffer.offer(line))
+            accepted.incrementAndGet();
+        else
+            dropped.incrementAndGet();
+    }
+
+    private synchronized void ensureWriter() {
+        if (writer != null)
+            return;
+        writer = new Thread(this::drain, "cpu-trace");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void drain() {
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (!closed || !buffer.isEmpty()) {
+                String first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+                buffer.drainTo(batch, BATCH_SIZE - 1);
+                TraceSink target = sink;
+                for (String line : batch)
+                    target.write(line);
+                target.flush();
+                written += batch.size();
+                batch.clear();
+                synchronized (progress) {
+                    progress.notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        flush(1_000);
+        closed = true;
+    }
+}
@@ -9,6 +9,16 @@ import java.nio.file.*;
 public final class ResourceUtil {
     private ResourceUtil() {}
 
+    /** Reads a classpath resource fully. */
+    public static byte[] readResource(String resourcePath) throws IOException {
+        try (InputStream in = ResourceUtil.class.getResourceAsStream(resourcePath)) {
+            if (in == null) {
+                throw new FileNotFoundException("Resource not found: " + resourcePath);
+            }
+            return in.readAllBytes();
+        }
+    }
+
     /** Copies a classpath resource to a temp file and returns its Path. */
     public static Path extractResourceToTemp(String resourcePath, String prefix, String suffix) throws IOException {
         URL url = ResourceUtil.class.getResource(resourcePath);
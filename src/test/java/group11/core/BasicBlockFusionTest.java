@@ -0,0 +1,161 @@
+package group11.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.util.Arrays;
+
+import group11.core.ExecutionEngine.RunResult;
+import group11.core.ExecutionEngine.StopReason;
+import group11.events.EventBus;
+import group11.util.ResourceUtil;
+
+/**
+ * Tests that running basic blocks as a unit leaves exactly the machine state
+ * that stepping one instruction at a time does.
+ */
+public class BasicBlockFusionTest {
+
+    private static int enc(int opcodeOct, int r, int ix, int i, int addr5) {
+        return ((opcodeOct & 0x3F) << 10)
+                | ((r & 0x03) << 8)
+                | ((ix & 0x03) << 6)
+                | ((i & 0x01) << 5)
+                | (addr5 & 0x1F);
+    }
+
+    private static CPU machine(int... program) {
+        return machine(CacheConfig.DEFAULT, program);
+    }
+
+    private static CPU machine(CacheConfig cacheConfig, int... program) {
+        Memory mem = new Memory();
+        EventBus bus = new EventBus();
+        CPU cpu = new CPU(mem, bus, new Cache(mem, bus, cacheConfig), new RomLoader(mem));
+        for (int i = 0; i < program.length; i++)
+            mem.writeMemory(6 + i, program[i]);
+        cpu.setPC(6);
+        return cpu;
+    }
+
+    /** Everything a program can observe, plus the run's summary. */
+    private static String state(CPU cpu, RunResult result) {
+        return result.reason() + " after " + result.instructions()
+                + " PC=" + cpu.PC + " IR=" + cpu.IR + " MFR=" + cpu.MFR
+                + " MAR=" + cpu.memory.getMAR() + " MBR=" + cpu.memory.getMBR()
+                + " GPR=" + Arrays.toString(cpu.GPR) + " IXR=" + Arrays.toString(cpu.IXR)
+                + " CC=" + Arrays.toString(cpu.CC)
+                + " memory=" + Arrays.hashCode(cpu.memory.memory)
+                + " cache=" + cpu.getCache().getStats()
+                + " branches=" + cpu.getBranchPredictor().getBranchCount()
+                + "/" + cpu.getBranchPredictor().getCorrectPredictions();
+    }
+
+    private static String run(boolean fused, long budget, int r0, int... program) {
+        CPU cpu = machine(program);
+        try {
+            cpu.GPR[0] = r0;
+            cpu.getEngine().setBlockFusion(fused);
+            return state(cpu, cpu.getEngine().runUntilHalt(budget));
+        } finally {
+            cpu.close();
+        }
+    }
+
+    // 6: LDX X1,30  7: LDR R1,1,0  8: AIR R1,3  9: STR R1,1,0  10: SIR R2,1
+    // 11: AMR R2,31  12: SRC R2,1,L,L  13: SOB R0,6  14: HLT   30: 20 (pointer)  31: 7
+    private static final int[] LOOP = {
+            enc(041, 0, 1, 0, 30), enc(001, 1, 1, 0, 0), enc(006, 1, 0, 0, 3), enc(002, 1, 1, 0, 0),
+            enc(007, 2, 0, 0, 1), enc(004, 2, 0, 0, 31), (031 << 10) | (2 << 8) | (1 << 4) | (1 << 3) | (1 << 2),
+            enc(016, 0, 0, 0, 6), 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 20, 7 };
+
+    @Test
+    void loop_fusedMatchesStepped() {
+        assertEquals(run(false, 1_000_000, 200, LOOP), run(true, 1_000_000, 200, LOOP));
+    }
+
+    @Test
+    void budget_endsInsideABlockLikeStepping() {
+        for (long budget = 1; budget < 40; budget++)
+            assertEquals(run(false, budget, 5, LOOP), run(true, budget, 5, LOOP), "budget " + budget);
+    }
+
+    @Test
+    void faultInsideBlock_isPrecise() {
+        // 6: AIR R1,1  7: LDX X1,20  8: LDR R2,1,5 (past the end of memory)  9: AIR R1,1  10: HLT
+        int[] program = { enc(006, 1, 0, 0, 1), enc(041, 0, 1, 0, 20), enc(001, 2, 1, 0, 5), enc(006, 1, 0, 0, 1), 0,
+                0, 0, 0, 0, 0, 0, 0, 0, 0, 2047 };
+
+        String stepped = run(false, 100, 0, program);
+
+        assertTrue(stepped.startsWith("MACHINE_FAULT after 3 PC=9"), stepped);
+        assertEquals(stepped, run(true, 100, 0, program));
+    }
+
+    @Test
+    void storeAheadInTheSameBlock_runsTheRewrittenInstruction() {
+        // 6: STR R0,8  7: AIR R1,1  8: AIR R1,1 (becomes AIR R1,5)  9: HLT
+        int[] program = { enc(002, 0, 0, 0, 8), enc(006, 1, 0, 0, 1), enc(006, 1, 0, 0, 1), 0 };
+        int airR1by5 = enc(006, 1, 0, 0, 5);
+
+        String fused = run(true, 100, airR1by5, program);
+
+        assertTrue(fused.contains("GPR=[" + airR1by5 + ", 6, 0, 0]"), fused);
+        assertEquals(run(false, 100, airR1by5, program), fused);
+    }
+
+    @Test
+    void storeHeldInWriteBackLine_stillDropsTheBlock() {
+        // 6: STR R0,8  7: AIR R1,1  8: AIR R1,1 (becomes AIR R1,5)  9: HLT
+        CPU cpu = machine(CacheConfig.DEFAULT.withWritePolicy(CacheConfig.WritePolicy.WRITE_BACK, true),
+                enc(002, 0, 0, 0, 8), enc(006, 1, 0, 0, 1), enc(006, 1, 0, 0, 1), 0);
+        try {
+            cpu.GPR[0] = enc(006, 1, 0, 0, 5);
+            cpu.getEngine().runUntilHalt(100);
+
+            assertEquals(6, cpu.GPR[1]);
+        } finally {
+            cpu.close();
+        }
+    }
+
+    @Test
+    void codeRewrittenBetweenRuns_isFetchedFresh() {
+        // 6: AIR R1,1  7: AIR R1,1  8: HLT
+        CPU cpu = machine(enc(006, 1, 0, 0, 1), enc(006, 1, 0, 0, 1), 0);
+        try {
+            cpu.getEngine().runUntilHalt(100);
+            cpu.memory.writeMemory(7, enc(006, 1, 0, 0, 5)); // front panel store
+            cpu.setPC(6);
+            cpu.getEngine().runUntilHalt(100);
+
+            assertEquals(2 + 6, cpu.GPR[1]);
+        } finally {
+            cpu.close();
+        }
+    }
+
+    @Test
+    void program2_fusedMatchesStepped() throws Exception {
+        String[] results = new String[2];
+        for (int f = 0; f < 2; f++) {
+            CPU cpu = machine();
+            try {
+                cpu.romLoader.load(ResourceUtil.extractResourceToTemp("/test-files/load-file-program-2.txt", "rom-", ".txt"));
+                cpu.setPC(6);
+                ExecutionEngine engine = cpu.getEngine();
+                engine.setBlockFusion(f == 1);
+                RunResult result = engine.runUntilHalt(5_000_000);
+                assertEquals(StopReason.INPUT_PENDING, result.reason());
+                engine.stop();
+                cpu.submitConsoleInput("the");
+                results[f] = state(cpu, engine.runUntilHalt(5_000_000));
+            } finally {
+                cpu.close();
+            }
+        }
+        assertTrue(results[0].startsWith("HALTED"), results[0]);
+        assertEquals(results[0], results[1]);
+    }
+}
@@ -0,0 +1,116 @@
+package group11.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.util.Arrays;
+
+import group11.core.ExecutionEngine.RunResult;
+import group11.events.EventBus;
+
+/**
+ * Tests that translated blocks behave exactly like interpreted ones.
+ */
+public class BlockTranslatorTest {
+
+    private static int enc(int opcodeOct, int r, int ix, int i, int addr5) {
+        return ((opcodeOct & 0x3F) << 10)
+                | ((r & 0x03) << 8)
+                | ((ix & 0x03) << 6)
+                | ((i & 0x01) << 5)
+                | (addr5 & 0x1F);
+    }
+
+    private CPU cpu;
+
+    @AfterEach
+    void teardown() {
+        if (cpu != null)
+            cpu.close();
+    }
+
+    private CPU machine(int... program) {
+        Memory mem = new Memory();
+        EventBus bus = new EventBus();
+        cpu = new CPU(mem, bus, new Cache(mem, bus), new RomLoader(mem));
+        for (int i = 0; i < program.length; i++)
+            mem.writeMemory(6 + i, program[i]);
+        cpu.setPC(6);
+        return cpu;
+    }
+
+    /** Enters the body at 6 until it is translated, without running its terminator. */
+    private void makeHot(int bodyLength) {
+        cpu.beginRun();
+        for (int i = 0; i < BlockTranslator.HOT_ENTRIES; i++) {
+            cpu.PC = 6;
+            cpu.stepBlock(bodyLength, true);
+        }
+        assertEquals(1, cpu.translatedBlocks());
+        cpu.PC = 6;
+    }
+
+    // 6: LDX X1,30  7: LDR R1,1,0  8: AIR R1,3  9: STR R1,1,0  10: SIR R2,1
+    // 11: AMR R2,31  12: SRC R2,1,L,L  13: SOB R0,6  14: HLT   30: 20 (pointer)  31: 7
+    private static final int[] LOOP = {
+            enc(041, 0, 1, 0, 30), enc(001, 1, 1, 0, 0), enc(006, 1, 0, 0, 3), enc(002, 1, 1, 0, 0),
+            enc(007, 2, 0, 0, 1), enc(004, 2, 0, 0, 31), (031 << 10) | (2 << 8) | (1 << 4) | (1 << 3) | (1 << 2),
+            enc(016, 0, 0, 0, 6), 0,
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 20, 7 };
+
+    private String runLoop(boolean translate) {
+        machine(LOOP);
+        cpu.GPR[0] = 3 * BlockTranslator.HOT_ENTRIES;
+        cpu.getEngine().setTranslation(translate);
+        RunResult result = cpu.getEngine().runUntilHalt(1_000_000);
+        assertEquals(translate ? 1 : 0, cpu.translatedBlocks());
+        String state = result.reason() + " after " + result.instructions()
+                + " PC=" + cpu.PC + " IR=" + cpu.IR + " MAR=" + cpu.memory.getMAR() + " MBR=" + cpu.memory.getMBR()
+                + " GPR=" + Arrays.toString(cpu.GPR) + " IXR=" + Arrays.toString(cpu.IXR)
+                + " CC=" + Arrays.toString(cpu.CC) + " memory=" + Arrays.hashCode(cpu.memory.memory)
+                + " cache=" + cpu.getCache().getStats();
+        cpu.close();
+        cpu = null;
+        return state;
+    }
+
+    @Test
+    void hotLoop_translatedMatchesInterpreted() {
+        assertEquals(runLoop(false), runLoop(true));
+    }
+
+    @Test
+    void faultInsideTranslatedBlock_isPrecise() {
+        // 6: AIR R1,1  7: LDR R2,1,5  8: AIR R1,1   X1 indexes a word of data until it is moved past memory
+        machine(enc(006, 1, 0, 0, 1), enc(001, 2, 1, 0, 5), enc(006, 1, 0, 0, 1));
+        cpu.IXR[1] = 20;
+        makeHot(3);
+        int r1 = cpu.GPR[1];
+
+        cpu.IXR[1] = 2047;
+        cpu.stepBlock(3, true);
+
+        assertTrue(cpu.isFaulted());
+        assertEquals(2, cpu.blockExecuted());
+        assertEquals(8, cpu.PC);
+        assertEquals(r1 + 1, cpu.GPR[1]);
+    }
+
+    @Test
+    void storeIntoTranslatedBlock_runsTheRewrittenInstruction() {
+        // 6: STR R0,1,0  7: AIR R1,1  8: AIR R1,1 (becomes AIR R1,5 once X1 points at it)
+        machine(enc(002, 0, 1, 0, 0), enc(006, 1, 0, 0, 1), enc(006, 1, 0, 0, 1));
+        cpu.IXR[1] = 40;
+        cpu.GPR[0] = enc(006, 1, 0, 0, 5);
+        makeHot(3);
+        int r1 = cpu.GPR[1];
+
+        cpu.IXR[1] = 8;
+        cpu.stepBlock(3, true);
+        assertEquals(1, cpu.blockExecuted()); // left after the store
+        assertEquals(7, cpu.PC);
+        cpu.stepBlock(2, true);
+
+        assertEquals(r1 + 6, cpu.GPR[1]);
+    }
+}
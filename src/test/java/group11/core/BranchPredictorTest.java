@@ -0,0 +1,112 @@
+package group11.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Tests for the branch predictor family.
+ */
+public class BranchPredictorTest {
+
+    /** Feeds outcomes for the branch at pc through the predictor like the CPU does. */
+    private static void run(BranchPredictor predictor, int pc, int target, boolean... outcomes) {
+        for (boolean taken : outcomes) {
+            predictor.recordPredictionResult(predictor.predictTaken(pc, target) == taken);
+            predictor.update(pc, target, taken);
+        }
+    }
+
+    private static boolean[] alternating(int n) {
+        boolean[] outcomes = new boolean[n];
+        for (int i = 0; i < n; i++)
+            outcomes[i] = i % 2 == 0;
+        return outcomes;
+    }
+
+    @Test
+    void bimodal_startsWeaklyNotTakenAndSaturates() {
+        BranchPredictor predictor = BranchPredictor.create(BranchPredictorConfig.DEFAULT);
+
+        assertFalse(predictor.predictTaken(10, 6));
+        run(predictor, 10, 6, true);
+        assertTrue(predictor.predictTaken(10, 6));
+        run(predictor, 10, 6, true, true, false);
+        assertTrue(predictor.predictTaken(10, 6)); // one not-taken does not flip a strong counter
+        assertTrue(predictor.predictTaken(10 + 128, 6)); // aliased entry
+        assertEquals(4, predictor.getBranchCount());
+    }
+
+    @Test
+    void staticKinds_predictWithoutLearning() {
+        BranchPredictor btfn = BranchPredictor.create(BranchPredictorConfig.backwardTaken());
+        run(btfn, 10, 6, false, false, false);
+
+        assertTrue(btfn.predictTaken(10, 6));
+        assertFalse(btfn.predictTaken(10, 20));
+        assertTrue(BranchPredictor.create(BranchPredictorConfig.alwaysTaken()).predictTaken(10, 20));
+        assertFalse(BranchPredictor.create(BranchPredictorConfig.neverTaken()).predictTaken(10, 6));
+    }
+
+    @Test
+    void gshare_learnsAPatternBimodalCannot() {
+        BranchPredictor bimodal = BranchPredictor.create(BranchPredictorConfig.bimodal(64));
+        BranchPredictor gshare = BranchPredictor.create(BranchPredictorConfig.gshare(64, 4));
+        BranchPredictor tournament = BranchPredictor.create(BranchPredictorConfig.tournament(64, 4));
+
+        for (BranchPredictor predictor : new BranchPredictor[] { bimodal, gshare, tournament })
+            run(predictor, 10, 6, alternating(200));
+
+        assertTrue(bimodal.getAccuracy() <= 0.5, "bimodal " + bimodal.getAccuracy());
+        assertTrue(gshare.getAccuracy() > 0.95, "gshare " + gshare.getAccuracy());
+        assertTrue(tournament.getAccuracy() > 0.9, "tournament " + tournament.getAccuracy());
+    }
+
+    @Test
+    void returnAddressStack_predictsReturnsToEachCaller() {
+        BranchPredictor btbOnly = BranchPredictor.create(BranchPredictorConfig.DEFAULT.withTargets(16, 0));
+        BranchPredictor withStack = BranchPredictor.create(BranchPredictorConfig.DEFAULT.withTargets(16, 4));
+        assertEquals(-1, BranchPredictor.create(BranchPredictorConfig.DEFAULT).predictTarget(100, BranchTargetBuffer.RFS));
+
+        for (BranchPredictor predictor : new BranchPredictor[] { btbOnly, withStack }) {
+            for (int i = 0; i < 10; i++) {
+                int call = i % 2 == 0 ? 20 : 40; // JSR 100 from two places, RFS at 105
+                for (int[] transfer : new int[][] { { call, BranchTargetBuffer.JSR, 100 },
+                        { 105, BranchTargetBuffer.RFS, call + 1 } }) {
+                    int predicted = predictor.predictTarget(transfer[0], transfer[1]);
+                    predictor.recordPredictionResult(predicted == transfer[2]);
+                    predictor.updateTarget(transfer[0], transfer[1], transfer[2], transfer[0] + 1);
+                }
+            }
+        }
+
+        assertEquals(20, btbOnly.getBranchCount());
+        assertEquals(8, btbOnly.getCorrectPredictions()); // JSRs after each call site's first; returns never
+        assertEquals(18, withStack.getCorrectPredictions()); // only the first JSR from each site misses
+    }
+
+    @Test
+    void copyCountersAndRestore_roundTripAndCheckTheLayout() {
+        BranchPredictorConfig config = BranchPredictorConfig.tournament(32, 5).withTargets(8, 2);
+        BranchPredictor trained = BranchPredictor.create(config);
+        run(trained, 10, 6, alternating(50));
+        trained.updateTarget(20, BranchTargetBuffer.JSR, 100, 21);
+
+        BranchPredictor copy = BranchPredictor.create(config);
+        copy.restore(trained.copyCounters(), trained.getBranchCount(), trained.getCorrectPredictions());
+
+        assertArrayEquals(trained.copyCounters(), copy.copyCounters());
+        assertEquals(trained.predictTaken(10, 6), copy.predictTaken(10, 6));
+        assertEquals(21, copy.predictTarget(30, BranchTargetBuffer.RFS));
+        BranchPredictor bimodal = BranchPredictor.create(BranchPredictorConfig.DEFAULT);
+        assertThrows(IllegalArgumentException.class, () -> bimodal.restore(trained.copyCounters(), 0, 0));
+    }
+
+    @Test
+    void config_rejectsBadSizes() {
+        assertThrows(IllegalArgumentException.class, () -> BranchPredictorConfig.bimodal(100));
+        assertThrows(IllegalArgumentException.class, () -> BranchPredictorConfig.gshare(64, 0));
+        assertThrows(IllegalArgumentException.class, () -> BranchPredictorConfig.DEFAULT.withTargets(12, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BranchPredictorConfig(BranchPredictorConfig.Kind.NEVER_TAKEN, 64, 0, 0, 0));
+    }
+}
@@ -0,0 +1,101 @@
+package group11.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import group11.events.BranchPredictionStatsChanged;
+import group11.events.EventBus;
+
+/**
+ * Tests for the per-address branch profile and how the CPU fills and
+ * publishes it.
+ */
+public class BranchProfileTest {
+
+    private static int enc(int opcodeOct, int r, int ix, int i, int addr5) {
+        return ((opcodeOct & 0x3F) << 10)
+                | ((r & 0x03) << 8)
+                | ((ix & 0x03) << 6)
+                | ((i & 0x01) << 5)
+                | (addr5 & 0x1F);
+    }
+
+    private static BranchProfile sample() {
+        BranchProfile profile = new BranchProfile(2048);
+        for (int i = 0; i < 10; i++)
+            profile.record(8, 016, i < 9, true);
+        profile.record(20, 010, true, false);
+        profile.record(20, 010, false, true);
+        profile.record(12, 011, false, true);
+        return profile;
+    }
+
+    @Test
+    void sites_worstPredictedFirst() {
+        BranchProfile profile = sample();
+
+        assertArrayEquals(new int[] { 20, 8, 12 }, profile.sites());
+        assertEquals(10, profile.getExecutions(8));
+        assertEquals(9, profile.getTaken(8));
+        assertEquals(1, profile.getMispredictions(20));
+        assertEquals(016, profile.getOpcode(8));
+
+        profile.reset();
+        assertEquals(0, profile.sites().length);
+    }
+
+    @Test
+    void export_writesCsvOrJsonByFileName(@TempDir Path dir) throws Exception {
+        BranchProfile profile = sample();
+        Path csv = dir.resolve("profile.csv");
+        Path json = dir.resolve("profile.json");
+
+        profile.save(csv);
+        profile.save(json);
+
+        assertEquals(List.of(
+                "address,octal,instruction,executions,taken,mispredictions,accuracy",
+                "20,24,JZ,2,1,1,0.5000",
+                "8,10,SOB,10,9,0,1.0000",
+                "12,14,JNE,1,0,0,1.0000"), Files.readAllLines(csv));
+        String text = Files.readString(json);
+        assertTrue(text.startsWith("[\n  {\"address\": 20, \"octal\": \"24\", \"instruction\": \"JZ\","), text);
+        assertTrue(text.contains("{\"address\": 12, \"octal\": \"14\", \"instruction\": \"JNE\", \"executions\": 1,"
+                + " \"taken\": 0, \"mispredictions\": 0, \"accuracy\": 1.0000}\n]"), text);
+    }
+
+    @Test
+    void cpu_profilesEachBranchAndPostsStatsOncePerRun() {
+        Memory mem = new Memory();
+        EventBus bus = new EventBus();
+        CPU cpu = new CPU(mem, bus, new Cache(mem, bus, CacheConfig.DEFAULT), new RomLoader(mem));
+        List<BranchPredictionStatsChanged> posted = new ArrayList<>();
+        bus.subscribe(BranchPredictionStatsChanged.class, posted::add);
+        try {
+            // 6: SOB R0,6  7: HLT
+            mem.writeMemory(6, enc(016, 0, 0, 0, 6));
+            mem.writeMemory(7, 0);
+            cpu.setPC(6);
+            cpu.GPR[0] = 5;
+
+            cpu.getEngine().runUntilHalt(1_000);
+
+            BranchProfile profile = cpu.getBranchProfile();
+            assertEquals(5, profile.getExecutions(6));
+            assertEquals(4, profile.getTaken(6));
+            assertEquals(2, profile.getMispredictions(6)); // the first taken and the exit
+            assertEquals(List.of(new BranchPredictionStatsChanged(5, 3, 0.6)), posted);
+
+            cpu.reset();
+            assertEquals(0, cpu.getBranchProfile().getExecutions(6));
+        } finally {
+            cpu.close();
+        }
+    }
+}
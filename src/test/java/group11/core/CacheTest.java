@@ -0,0 +1,358 @@
+package group11.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import group11.events.CacheChanged;
+import group11.events.CacheStatsChanged;
+import group11.events.EventBus;
+
+/**
+ * Tests for the fully-associative cache: hit/miss behaviour, LRU
+ * replacement, write-through/write-allocate and the snapshot view.
+ */
+class CacheTest {
+
+    private Memory mem;
+    private Cache cache;
+
+    @BeforeEach
+    void setup() {
+        mem = new Memory();
+        cache = new Cache(mem, new EventBus());
+    }
+
+    /** first address of block b */
+    private static int blockBase(int b) {
+        return b << Cache.OFFSET_BITS;
+    }
+
+    private List<Integer> tagsInLruOrder() {
+        return cache.snapshot().lines().stream()
+                .filter(CacheSnapshot.Line::valid)
+                .map(CacheSnapshot.Line::tag)
+                .toList();
+    }
+
+    private static List<Integer> blocksOf(Cache c) {
+        return c.snapshot().lines().stream().map(CacheSnapshot.Line::block).toList();
+    }
+
+    @Test
+    void load_missFillsWholeBlockAndHitServesFromCache() {
+        for (int i = 0; i < Cache.LINE_SIZE_WORDS; i++)
+            mem.writeMemoryDirect(blockBase(3) + i, 100 + i);
+
+        assertEquals(102, cache.load(blockBase(3) + 2));
+        // change memory behind the cache's back: a hit must still return the cached word
+        mem.writeMemoryDirect(blockBase(3) + 5, 999);
+        assertEquals(105, cache.load(blockBase(3) + 5));
+        assertEquals(List.of(3), tagsInLruOrder());
+    }
+
+    @Test
+    void load_evictsLeastRecentlyUsedLine() {
+        for (int b = 0; b < Cache.CACHE_LINES; b++)
+            cache.load(blockBase(b));
+        cache.load(blockBase(0)); // block 0 becomes most recent, block 1 is now LRU
+
+        cache.load(blockBase(Cache.CACHE_LINES)); // miss with a full cache
+
+        List<Integer> tags = tagsInLruOrder();
+        assertEquals(Cache.CACHE_LINES, tags.size());
+        assertFalse(tags.contains(1));
+        assertEquals(2, tags.get(0));
+        assertEquals(List.of(0, Cache.CACHE_LINES), tags.subList(tags.size() - 2, tags.size()));
+        assertNull(cache.findLine(1));
+        assertNotNull(cache.findLine(0));
+    }
+
+    @Test
+    void store_writesThroughAndAllocates() {
+        mem.writeMemoryDirect(blockBase(7) + 1, 42);
+
+        cache.store(blockBase(7), 0x1_2345); // truncated to 16 bits
+
+        assertEquals(0x2345, mem.getMemoryValueAt(blockBase(7)));
+        assertEquals(List.of(7), tagsInLruOrder());
+        assertEquals(0x2345, cache.load(blockBase(7)));
+        assertEquals(42, cache.load(blockBase(7) + 1));
+    }
+
+    @Test
+    void reset_invalidatesAllLines() {
+        cache.load(blockBase(1));
+        cache.load(blockBase(2));
+
+        cache.reset();
+
+        assertTrue(tagsInLruOrder().isEmpty());
+        assertNull(cache.findLine(1));
+        mem.writeMemoryDirect(blockBase(1), 77);
+        assertEquals(77, cache.load(blockBase(1)));
+    }
+
+    @Test
+    void directMapped_conflictingBlocksEvictEachOther() {
+        Cache dm = new Cache(mem, new EventBus(), CacheConfig.directMapped(4, 8));
+        mem.writeMemoryDirect(blockBase(1), 11);
+        mem.writeMemoryDirect(blockBase(5), 55);
+
+        assertEquals(11, dm.load(blockBase(1)));
+        assertEquals(55, dm.load(blockBase(5))); // same set (5 & 3 == 1)
+
+        assertNull(dm.findLine(1));
+        assertNotNull(dm.findLine(5));
+        assertEquals(1, dm.findLine(5).tag);
+    }
+
+    @Test
+    void fifo_ignoresHitsWhenChoosingVictim() {
+        CacheConfig twoWay = CacheConfig.setAssociative(2, 8, 2);
+        Cache lru = new Cache(mem, new EventBus(), twoWay);
+        Cache fifo = new Cache(mem, new EventBus(), twoWay.withReplacement(CacheConfig.ReplacementPolicy.FIFO));
+        for (Cache c : List.of(lru, fifo)) {
+            c.load(blockBase(0));
+            c.load(blockBase(1));
+            c.load(blockBase(0)); // hit
+            c.load(blockBase(2));
+        }
+
+        assertNotNull(lru.findLine(0));
+        assertNull(lru.findLine(1));
+        assertNull(fifo.findLine(0));
+        assertNotNull(fifo.findLine(1));
+    }
+
+    @Test
+    void plru_evictsWayNotRecentlyTouched() {
+        Cache plru = new Cache(mem, new EventBus(),
+                CacheConfig.fullyAssociative(4, 8).withReplacement(CacheConfig.ReplacementPolicy.PLRU));
+        for (int b = 0; b < 4; b++)
+            plru.load(blockBase(b));
+        plru.load(blockBase(0));
+        plru.load(blockBase(2));
+
+        plru.load(blockBase(9));
+
+        // tree: 0 and 2 were touched last, so the victim is in the other half of each subtree
+        assertNotNull(plru.findLine(0));
+        assertNotNull(plru.findLine(2));
+        assertNull(plru.findLine(1));
+    }
+
+    @Test
+    void random_isRepeatableForSameSeed() {
+        CacheConfig cfg = CacheConfig.fullyAssociative(4, 8)
+                .withReplacement(CacheConfig.ReplacementPolicy.RANDOM).withRandomSeed(42);
+        Cache a = new Cache(mem, new EventBus(), cfg);
+        Cache b = new Cache(mem, new EventBus(), cfg);
+        for (int blk = 0; blk < 40; blk += 3) {
+            a.load(blockBase(blk));
+            b.load(blockBase(blk));
+        }
+        assertEquals(blocksOf(a), blocksOf(b));
+        for (int blk = 0; blk < 40; blk++)
+            assertEquals(a.findLine(blk) == null, b.findLine(blk) == null);
+    }
+
+    @Test
+    void writeBack_defersMemoryUpdateUntilEviction() {
+        Cache wb = new Cache(mem, new EventBus(), CacheConfig.directMapped(2, 8)
+                .withWritePolicy(CacheConfig.WritePolicy.WRITE_BACK, true));
+
+        wb.store(blockBase(0) + 3, 1234);
+        assertEquals(0, mem.getMemoryValueAt(blockBase(0) + 3));
+        assertTrue(wb.snapshot().lines().get(0).dirty());
+
+        wb.load(blockBase(2)); // same set, evicts the dirty line
+        assertEquals(1234, mem.getMemoryValueAt(blockBase(0) + 3));
+    }
+
+    @Test
+    void pokeBlock_updatesCachedBlocksAndKeepsOtherDirtyWords() {
+        Cache wb = new Cache(mem, new EventBus(), CacheConfig.directMapped(2, 8)
+                .withWritePolicy(CacheConfig.WritePolicy.WRITE_BACK, true));
+        wb.store(blockBase(0) + 1, 77); // dirty word outside the poked range
+        int[] words = { 10, 11, 12, 13, 14, 15, 16, 17, 18, 19 };
+
+        wb.pokeBlock(blockBase(0) + 4, words, 0, words.length); // spans blocks 0 and 1; only 0 is cached
+
+        for (int i = 0; i < words.length; i++)
+            assertEquals(words[i], mem.getMemoryValueAt(blockBase(0) + 4 + i));
+        assertEquals(77, wb.peek(blockBase(0) + 1));
+        assertEquals(0, mem.getMemoryValueAt(blockBase(0) + 1));
+        assertEquals(13, wb.load(blockBase(0) + 7));
+        assertEquals(1, wb.getStats().readHits());
+    }
+
+    @Test
+    void noWriteAllocate_storeMissBypassesCache() {
+        Cache wt = new Cache(mem, new EventBus(), CacheConfig.DEFAULT
+                .withWritePolicy(CacheConfig.WritePolicy.WRITE_THROUGH, false));
+
+        wt.store(blockBase(6), 9);
+
+        assertEquals(9, mem.getMemoryValueAt(blockBase(6)));
+        assertNull(wt.findLine(6));
+    }
+
+    @Test
+    void flush_writesDirtyLinesBackAndKeepsThemCached() {
+        Cache wb = new Cache(mem, new EventBus(), CacheConfig.DEFAULT
+                .withWritePolicy(CacheConfig.WritePolicy.WRITE_BACK, true));
+        wb.store(blockBase(2), 21);
+        wb.store(blockBase(9) + 7, 97);
+        wb.load(blockBase(3));
+
+        assertEquals(2, wb.flush());
+
+        assertEquals(21, mem.getMemoryValueAt(blockBase(2)));
+        assertEquals(97, mem.getMemoryValueAt(blockBase(9) + 7));
+        assertFalse(wb.snapshot().lines().stream().anyMatch(CacheSnapshot.Line::dirty));
+        assertNotNull(wb.findLine(2));
+        assertEquals(0, wb.flush());
+    }
+
+    @Test
+    void peekAndPoke_stayCoherentWithoutFilling() {
+        Cache wb = new Cache(mem, new EventBus(), CacheConfig.DEFAULT
+                .withWritePolicy(CacheConfig.WritePolicy.WRITE_BACK, true));
+        wb.store(blockBase(1), 10);
+
+        assertEquals(10, wb.peek(blockBase(1))); // dirty word, memory still 0
+        wb.poke(blockBase(1), 11);
+        assertEquals(11, mem.getMemoryValueAt(blockBase(1)));
+        assertEquals(11, wb.load(blockBase(1)));
+
+        mem.writeMemoryDirect(blockBase(5), 55);
+        assertEquals(55, wb.peek(blockBase(5)));
+        wb.poke(blockBase(6), 66);
+        assertNull(wb.findLine(5));
+        assertNull(wb.findLine(6));
+    }
+
+    @Test
+    void writeBackCpu_frontPanelFetchAndRunSeeLatestValues() {
+        EventBus bus = new EventBus();
+        Cache wb = new Cache(mem, bus, CacheConfig.DEFAULT
+                .withWritePolicy(CacheConfig.WritePolicy.WRITE_BACK, true));
+        CPU cpu = new CPU(mem, bus, wb, new RomLoader(mem));
+        try {
+            // STR R0,7 writes an instruction into the next word through the cache; it is then fetched
+            cpu.GPR[0] = (006 << 10) | (1 << 8) | 4; // AIR R1,4
+            mem.writeMemoryDirect(6, (002 << 10) | 7); // STR R0,7
+            cpu.PC = 6;
+            cpu.getEngine().runUntilHalt(10);
+
+            assertEquals(4, cpu.GPR[1]); // fetch saw the stored instruction
+            assertEquals(cpu.GPR[0], mem.getMemoryValueAt(7)); // flushed when the run stopped
+
+            wb.store(30, 123);
+            mem.MAR = 30;
+            cpu.loadFrontPanel();
+            assertEquals(123, mem.MBR);
+
+            mem.MBR = 456;
+            cpu.storeFrontPanel();
+            assertEquals(456, wb.load(30));
+            assertEquals(456, mem.getMemoryValueAt(30));
+        } finally {
+            cpu.close();
+        }
+    }
+
+    @Test
+    void stats_countHitsMissesEvictionsAndTraffic() {
+        Cache small = new Cache(mem, new EventBus(), CacheConfig.directMapped(2, 8));
+        small.load(blockBase(0)); // read miss, fill 8
+        small.load(blockBase(0) + 1); // read hit
+        small.store(blockBase(0) + 2, 1); // write hit, 1 word through
+        small.store(blockBase(2), 2); // write miss, evicts block 0, fill 8, 1 word through
+
+        CacheStats stats = small.getStats();
+        assertEquals(new CacheStats(1, 1, 1, 1, 1, 16, 2, 0), stats);
+        assertEquals(0.5, stats.hitRate());
+        assertEquals(18, stats.memoryTraffic());
+
+        small.resetStats();
+        assertEquals(0, small.getStats().accesses());
+        assertNotNull(small.findLine(2)); // contents untouched
+    }
+
+    @Test
+    void stats_postedOnlyWhenPublishedAndChanged() {
+        EventBus bus = new EventBus();
+        Cache c = new Cache(mem, bus);
+        List<CacheStatsChanged> seen = new ArrayList<>();
+        c.load(0);
+        c.publishStats();
+        assertTrue(seen.isEmpty());
+
+        bus.subscribe(CacheStatsChanged.class, seen::add);
+        c.load(0);
+        c.store(1, 5);
+        assertTrue(seen.isEmpty()); // accesses only count
+        c.publishStats();
+        c.publishStats();
+        assertEquals(1, seen.size());
+        assertEquals(1, seen.get(0).readHits());
+        assertEquals(1, seen.get(0).readMisses());
+        assertEquals(1, seen.get(0).writeHits());
+    }
+
+    @Test
+    void config_rejectsBadGeometry() {
+        assertThrows(IllegalArgumentException.class, () -> CacheConfig.fullyAssociative(12, 8));
+        assertThrows(IllegalArgumentException.class, () -> CacheConfig.setAssociative(4, 8, 8));
+        assertThrows(IllegalArgumentException.class, () -> CacheConfig.directMapped(512, 8));
+    }
+
+    @Test
+    void snapshot_isImmutableAndVersioned() {
+        long before = cache.getVersion();
+        cache.store(blockBase(4), 5);
+        CacheSnapshot snap = cache.snapshot();
+
+        assertTrue(snap.version() > before);
+        cache.store(blockBase(4), 6);
+        int[] data = snap.lines().get(Cache.CACHE_LINES - 1).data();
+        assertEquals(5, data[0]);
+        data[0] = 123;
+        assertEquals(5, snap.lines().get(Cache.CACHE_LINES - 1).data()[0]);
+    }
+
+    @Test
+    void cacheChanged_carriesContentsAsPostedAndBatchesUntilATick() {
+        EventBus bus = new EventBus();
+        Cache batched = new Cache(mem, bus);
+        List<CacheChanged> posted = new ArrayList<>();
+        bus.subscribe(CacheChanged.class, posted::add);
+        bus.enableCoalescing(0, Runnable::run);
+
+        batched.store(blockBase(4), 5);
+        bus.flush();
+        assertEquals(1, posted.size());
+        String first = posted.get(0).cacheContent();
+        batched.store(blockBase(4), 6);
+        assertEquals(first, posted.get(0).cacheContent()); // not the live cache
+
+        batched.beginBatch();
+        for (int b = 0; b < Cache.CACHE_LINES; b++)
+            batched.load(blockBase(b));
+        bus.flush();
+        assertEquals(2, posted.size()); // only the store made outside the batch
+        batched.requestSnapshot();
+        batched.load(blockBase(100));
+        batched.load(blockBase(101));
+        batched.endBatch();
+        bus.flush();
+
+        assertEquals(3, posted.size()); // the requested one and the final one fold into one slot
+        assertEquals(batched.dumpSummary(), posted.get(2).cacheContent());
+        assertEquals(batched.getVersion(), posted.get(2).version());
+    }
+}
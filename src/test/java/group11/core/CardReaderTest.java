@@ -0,0 +1,100 @@
+package group11.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.nio.charset.StandardCharsets;
+
+import group11.core.ExecutionEngine.StopReason;
+import group11.events.EventBus;
+import group11.util.ResourceUtil;
+
+/**
+ * Tests for the card reader device and IN from device 2.
+ */
+public class CardReaderTest {
+
+    private CPU cpu;
+    private Memory mem;
+
+    @BeforeEach
+    void setup() {
+        mem = new Memory();
+        EventBus eventBus = new EventBus();
+        cpu = new CPU(mem, eventBus, new Cache(mem, eventBus), new RomLoader(mem));
+        mem.writeMemory(6, (061 << 10) | (2 << 3)); // IN R0,card reader
+        mem.writeMemory(7, 0); // HLT
+    }
+
+    @AfterEach
+    void teardown() {
+        cpu.close();
+    }
+
+    private void readCard() {
+        cpu.setPC(6);
+        assertEquals(StopReason.HALTED, cpu.getEngine().runUntilHalt(10).reason());
+    }
+
+    private String cardInMemory() {
+        StringBuilder sb = new StringBuilder();
+        for (int a = 300; mem.getMemoryValueAt(a) != 0; a++)
+            sb.append((char) mem.getMemoryValueAt(a));
+        return sb.toString();
+    }
+
+    @Test
+    void nextDeck_takesDecksInOrderThenRepeatsTheLast() {
+        CardReader reader = CardReader.ofText("ab", "c");
+
+        assertArrayEquals(new int[] { 'a', 'b', 0 }, reader.nextDeck());
+        assertArrayEquals(new int[] { 'c', 0 }, reader.nextDeck());
+        assertArrayEquals(new int[] { 'c', 0 }, reader.nextDeck());
+        reader.rewind();
+        assertArrayEquals(new int[] { 'a', 'b', 0 }, reader.nextDeck());
+    }
+
+    @Test
+    void in_transfersOneDeckPerInstruction() {
+        cpu.setCardReader(CardReader.ofText("Quick brown", "fox"));
+
+        readCard();
+        assertEquals("Quick brown", cardInMemory());
+        readCard();
+        assertEquals("fox", cardInMemory());
+        assertEquals('k', mem.getMemoryValueAt(304)); // left from the first deck past the terminator
+    }
+
+    @Test
+    void in_keepsCachedCopyCoherent() {
+        cpu.setCardDeck("xyz");
+        cpu.getCache().load(300); // block holding the card buffer is cached
+
+        readCard();
+
+        assertEquals('x', cpu.getCache().load(300));
+        assertEquals(0, cpu.getCache().load(303));
+    }
+
+    @Test
+    void in_stopsAtTheEndOfMemory() {
+        cpu.setCardDeck("q".repeat(mem.MEMORY_SIZE));
+
+        readCard();
+
+        assertEquals('q', mem.getMemoryValueAt(mem.MEMORY_SIZE - 1));
+        assertEquals(0, mem.getMemoryValueAt(0));
+    }
+
+    @Test
+    void defaultReader_holdsTheBundledParagraph() throws Exception {
+        String paragraph = new String(ResourceUtil.readResource(CardReader.DEFAULT_DECK_RESOURCE),
+                StandardCharsets.US_ASCII);
+
+        int[] deck = CardReader.defaultReader().nextDeck();
+
+        assertEquals(paragraph.length() + 1, deck.length);
+        assertEquals(paragraph.charAt(0), deck[0]);
+        assertEquals(0, deck[deck.length - 1]);
+    }
+}
@@ -0,0 +1,67 @@
+package group11.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import group11.core.ExecutionEngine.StopReason;
+import group11.events.EventBus;
+
+/**
+ * Tests for the pre-decoded instruction cache and the interpreter's use of it.
+ */
+class DecodeCacheTest {
+
+    private static int enc(int opcodeOct, int r, int ix, int i, int addr5) {
+        return ((opcodeOct & 0x3F) << 10)
+                | ((r & 0x03) << 8)
+                | ((ix & 0x03) << 6)
+                | ((i & 0x01) << 5)
+                | (addr5 & 0x1F);
+    }
+
+    @Test
+    void decode_extractsFieldsAndReusesEntry() {
+        DecodeCache dc = new DecodeCache(2048);
+        int ldr = enc(001, 2, 3, 1, 17);
+
+        int e = dc.decode(100, ldr);
+        assertEquals(001, dc.opcode[e]);
+        assertEquals(2, dc.r[e]);
+        assertEquals(3, dc.ix[e]);
+        assertEquals(1, dc.i[e]);
+        assertEquals(17, dc.address[e]);
+        assertTrue(dc.indexedEA[e]);
+
+        dc.decode(100, ldr);
+        assertEquals(1, dc.getMisses());
+        assertEquals(1, dc.getHits());
+
+        int e2 = dc.decode(100, enc(041, 0, 1, 0, 9)); // different word at the same address
+        assertEquals(041, dc.opcode[e2]);
+        assertFalse(dc.indexedEA[e2]);
+        assertEquals(2, dc.getMisses());
+    }
+
+    @Test
+    void selfModifyingLoop_executesRewrittenInstruction() {
+        Memory mem = new Memory();
+        EventBus bus = new EventBus();
+        CPU cpu = new CPU(mem, bus, new Cache(mem, bus), new RomLoader(mem));
+        try {
+            // 6: AIR R1,1   7: STR R0,6   8: JMA 6   with R0 = AIR R1,5
+            // first pass runs AIR R1,1 and overwrites word 6, second pass must see AIR R1,5
+            mem.writeMemory(6, enc(006, 1, 0, 0, 1));
+            mem.writeMemory(7, enc(002, 0, 0, 0, 6));
+            mem.writeMemory(8, enc(013, 0, 0, 0, 6));
+            cpu.GPR[0] = enc(006, 1, 0, 0, 5);
+            cpu.PC = 6;
+
+            ExecutionEngine.RunResult result = cpu.getEngine().runUntilHalt(4);
+
+            assertEquals(StopReason.INSTRUCTION_LIMIT, result.reason());
+            assertEquals(6, cpu.GPR[1]);
+        } finally {
+            cpu.close();
+        }
+    }
+}
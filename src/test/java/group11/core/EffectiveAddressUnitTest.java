@@ -0,0 +1,88 @@
+package group11.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import group11.core.ExecutionEngine.RunResult;
+import group11.core.ExecutionEngine.StopReason;
+import group11.events.EventBus;
+
+/**
+ * Tests for effective address calculation and how the CPU acts on an invalid
+ * address.
+ */
+public class EffectiveAddressUnitTest {
+
+    private static int enc(int opcodeOct, int r, int ix, int i, int addr5) {
+        return ((opcodeOct & 0x3F) << 10)
+                | ((r & 0x03) << 8)
+                | ((ix & 0x03) << 6)
+                | ((i & 0x01) << 5)
+                | (addr5 & 0x1F);
+    }
+
+    @Test
+    void direct_addsIndexRegisterUnlessLdxOrStx() {
+        DecodeCache dc = new DecodeCache(2048);
+        EffectiveAddressUnit ea = new EffectiveAddressUnit(dc, 2048);
+        int[] ixr = { 0, 0100, 0, 04007 };
+
+        assertEquals(7, ea.direct(dc.decode(6, enc(001, 0, 0, 0, 7)), ixr)); // LDR R0,0,7
+        assertEquals(0107, ea.direct(dc.decode(7, enc(001, 0, 1, 0, 7)), ixr)); // LDR R0,1,7
+        assertEquals(7, ea.direct(dc.decode(8, enc(041, 0, 1, 0, 7)), ixr)); // LDX X1,7
+        assertEquals(016, ea.direct(dc.decode(9, enc(001, 0, 3, 0, 7)), ixr)); // IXR masked to 11 bits
+    }
+
+    @Test
+    void validate_reportsFaultIds() {
+        EffectiveAddressUnit ea = new EffectiveAddressUnit(new DecodeCache(2048), 2048);
+
+        assertEquals(EffectiveAddressUnit.NO_FAULT, ea.validate(2047, true, true));
+        assertEquals(EffectiveAddressUnit.FAULT_BEYOND_MEMORY, ea.validate(2048, true, true));
+        assertEquals(EffectiveAddressUnit.FAULT_RESERVED, ea.validate(3, false, true));
+        assertEquals(EffectiveAddressUnit.NO_FAULT, ea.validate(3, false, false)); // front panel
+    }
+
+    @Test
+    void invalidAddressWhileRunning_faultsWithoutExecuting() {
+        Memory mem = new Memory();
+        EventBus bus = new EventBus();
+        CPU cpu = new CPU(mem, bus, new Cache(mem, bus), new RomLoader(mem));
+        try {
+            // LDR R2,1,31 with X1 = 2047 addresses word 2078
+            mem.writeMemory(6, enc(001, 2, 1, 0, 31));
+            cpu.IXR[1] = 2047;
+            cpu.GPR[2] = 0123;
+            cpu.PC = 6;
+
+            RunResult result = cpu.getEngine().runUntilHalt(10);
+
+            assertEquals(StopReason.MACHINE_FAULT, result.reason());
+            assertEquals(3, cpu.MFR);
+            assertEquals(0123, cpu.GPR[2]);
+        } finally {
+            cpu.close();
+        }
+    }
+
+    @Test
+    void indirect_followsPointerThroughCache() {
+        Memory mem = new Memory();
+        EventBus bus = new EventBus();
+        CPU cpu = new CPU(mem, bus, new Cache(mem, bus), new RomLoader(mem));
+        try {
+            // LDR R1,0,20,I with Mem[20] = 100 and Mem[100] = 0555
+            mem.writeMemory(6, enc(001, 1, 0, 1, 20));
+            mem.writeMemory(20, 100);
+            mem.writeMemory(100, 0555);
+            cpu.PC = 6;
+
+            cpu.step();
+
+            assertEquals(0555, cpu.GPR[1]);
+            assertEquals(100, cpu.effectiveAddress);
+        } finally {
+            cpu.close();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package group11.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import group11.core.ExecutionEngine.RunResult;
+import group11.core.ExecutionEngine.StopReason;
+import group11.events.EventBus;
+import group11.events.MessageChanged;
+
+/**
+ * Tests for the headless run loop: stop conditions, budgets and the
+ * dedicated engine thread.
+ */
+public class ExecutionEngineTest {
+
+    private CPU cpu;
+    private Memory mem;
+    private ExecutionEngine engine;
+    private EventBus eventBus;
+
+    @BeforeEach
+    void setup() {
+        mem = new Memory();
+        eventBus = new EventBus();
+        RomLoader romLoader = new RomLoader(mem);
+        Cache cache = new Cache(mem, eventBus);
+        cpu = new CPU(mem, eventBus, cache, romLoader);
+        cpu.PC = 6;
+        engine = cpu.getEngine();
+    }
+
+    @AfterEach
+    void teardown() {
+        cpu.close();
+    }
+
+    private void poke(int addr, int word) {
+        mem.writeMemory(addr & 0xFFF, word & 0xFFFF);
+    }
+
+    private static int enc(int opcodeOct, int r, int ix, int i, int addr5) {
+        return ((opcodeOct & 0x3F) << 10)
+                | ((r & 0x03) << 8)
+                | ((ix & 0x03) << 6)
+                | ((i & 0x01) << 5)
+                | (addr5 & 0x1F);
+    }
+
+    private static int encIO(int opcodeOct, int r, int devid) {
+        return ((opcodeOct & 0x3F) << 10) | ((r & 0x03) << 8) | ((devid & 0x1F) << 3);
+    }
+
+    @Test
+    void runUntilHalt_stopsOnHlt() {
+        poke(6, enc(006, 0, 0, 0, 5)); // AIR R0,5
+        poke(7, enc(006, 0, 0, 0, 7)); // AIR R0,7
+        poke(8, 0); // HLT
+
+        RunResult result = engine.runUntilHalt(1_000);
+
+        assertEquals(StopReason.HALTED, result.reason());
+        assertEquals(3, result.instructions());
+        assertEquals(12, cpu.GPR[0]);
+        assertFalse(cpu.running);
+    }
+
+    @Test
+    void runUntilHalt_stopsOnMachineFault() {
+        poke(6, enc(077, 0, 0, 0, 0)); // illegal opcode
+
+        RunResult result = engine.runUntilHalt(1_000);
+
+        assertEquals(StopReason.MACHINE_FAULT, result.reason());
+        assertEquals(1, result.instructions());
+        assertEquals(2, cpu.MFR);
+    }
+
+    @Test
+    void runUntilHalt_stopsOnPendingConsoleInput() {
+        poke(6, enc(003, 0, 0, 0, 20)); // LDA R0,20 (input buffer address)
+        poke(7, encIO(061, 0, 0)); // IN R0,keyboard
+        poke(8, 0);
+
+        RunResult result = engine.runUntilHalt(1_000);
+
+        assertEquals(StopReason.INPUT_PENDING, result.reason());
+        assertEquals(2, result.instructions());
+        assertTrue(cpu.isWaitingForConsoleInput());
+        assertTrue(cpu.running);
+    }
+
+    @Test
+    void runUntilHalt_respectsInstructionBudget() {
+        poke(6, enc(013, 0, 0, 0, 6)); // JMA 6 (spin)
+
+        RunResult result = engine.runUntilHalt(5_000);
+
+        assertEquals(StopReason.INSTRUCTION_LIMIT, result.reason());
+        assertEquals(5_000, result.instructions());
+        assertFalse(cpu.running);
+    }
+
+    @Test
+    void runFor_respectsTimeBudget() {
+        poke(6, enc(013, 0, 0, 0, 6)); // JMA 6 (spin)
+
+        RunResult result = engine.runFor(Duration.ofMillis(50));
+
+        assertEquals(StopReason.TIME_LIMIT, result.reason());
+        assertTrue(result.instructions() > 0);
+        assertTrue(result.wallTime().toMillis() >= 50);
+    }
+
+    @Test
+    void startUntilHalt_runsOnEngineThread() throws Exception {
+        poke(6, enc(006, 1, 0, 0, 3)); // AIR R1,3
+        poke(7, 0);
+
+        RunResult result = engine.startUntilHalt(1_000).get(5, TimeUnit.SECONDS);
+
+        assertEquals(StopReason.HALTED, result.reason());
+        assertEquals(3, cpu.GPR[1]);
+        assertSame(result, engine.getLastResult());
+    }
+
+    @Test
+    void frontPanel_isRefusedWhileTheEngineRuns() throws Exception {
+        poke(6, enc(006, 1, 0, 0, 1)); // AIR R1,1
+        poke(7, enc(013, 0, 0, 0, 6)); // JMA 6
+        List<String> messages = new ArrayList<>();
+        eventBus.subscribe(MessageChanged.class, m -> messages.add(m.value()));
+
+        CompletableFuture<RunResult> run = engine.startUntilHalt(Long.MAX_VALUE);
+        assertTrue(engine.isActive());
+        while (!cpu.running) // let the loop start so stop() below ends it
+            Thread.onSpinWait();
+        assertThrows(IllegalStateException.class, () -> engine.startUntilHalt(1));
+        cpu.run();
+        cpu.step();
+        cpu.reset();
+        engine.stop();
+        RunResult result = run.get(5, TimeUnit.SECONDS);
+
+        assertEquals(StopReason.HALTED, result.reason());
+        assertFalse(engine.isActive());
+        assertEquals(List.of("Run ignored while the program is running; halt it first.",
+                "Step ignored while the program is running; halt it first.",
+                "Reset ignored while the program is running; halt it first."), messages);
+    }
+}
@@ -0,0 +1,123 @@
+package group11.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import group11.util.ResourceUtil;
+
+/**
+ * Tests for the binary load image and RomLoader's handling of both formats.
+ */
+public class LoadImageTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Memory memory;
+    private RomLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        memory = new Memory();
+        loader = new RomLoader(memory);
+    }
+
+    @Test
+    void encode_groupsConsecutiveAddressesIntoSegments() {
+        Map<Integer, Integer> words = new HashMap<>();
+        words.put(6, 1);
+        words.put(7, 2);
+        words.put(8, 3);
+        words.put(100, 0177777);
+
+        byte[] image = LoadImage.encode(words);
+
+        // header, two segment headers, four words, checksum
+        assertEquals(8 + 2 * 4 + 4 * 2 + 4, image.length);
+    }
+
+    @Test
+    void load_binaryImageMatchesTextLoadFile() throws Exception {
+        Path text = ResourceUtil.extractResourceToTemp("/test-files/load-file-program-2.txt", "rom-", ".txt");
+        Memory fromText = new Memory();
+        int textWords = new RomLoader(fromText).load(text);
+
+        Map<Integer, Integer> words = new HashMap<>();
+        for (int a = 0; a < fromText.MEMORY_SIZE; a++) {
+            if (fromText.memory[a] != 0)
+                words.put(a, fromText.memory[a]);
+        }
+        Path image = tempDir.resolve("program-2.bin");
+        LoadImage.write(image, words);
+
+        assertTrue(LoadImage.isImage(image));
+        assertFalse(LoadImage.isImage(text));
+        assertEquals(words.size(), loader.load(image));
+        assertArrayEquals(fromText.memory, memory.memory);
+        assertTrue(textWords >= words.size());
+    }
+
+    @Test
+    void load_badChecksumLeavesMemoryUntouched() throws Exception {
+        byte[] image = LoadImage.encode(Map.of(10, 0123, 11, 0456));
+        image[12] ^= 1; // first word
+        Path file = Files.write(tempDir.resolve("bad.bin"), image);
+
+        IOException e = assertThrows(IOException.class, () -> loader.load(file));
+        assertTrue(e.getMessage().contains("checksum"));
+        assertEquals(0, memory.memory[10]);
+        assertEquals(0, memory.memory[11]);
+    }
+
+    @Test
+    void load_rejectsSegmentPastEndOfMemory() throws Exception {
+        Path file = tempDir.resolve("high.bin");
+        LoadImage.write(file, Map.of(memory.MEMORY_SIZE - 1, 1, memory.MEMORY_SIZE, 2));
+
+        IOException e = assertThrows(IOException.class, () -> loader.load(file));
+        assertTrue(e.getMessage().contains("runs past memory"));
+        assertEquals(0, memory.memory[memory.MEMORY_SIZE - 1]);
+    }
+
+    @Test
+    void load_rejectsBytesAfterTheLastSegment() throws Exception {
+        byte[] image = LoadImage.encode(Map.of(10, 0123));
+        // two stray bytes before a checksum that covers them
+        ByteBuffer padded = ByteBuffer.allocate(image.length + 2);
+        padded.put(image, 0, image.length - 4).putShort((short) 0777);
+        CRC32 crc = new CRC32();
+        crc.update(padded.array(), 0, padded.position());
+        padded.putInt((int) crc.getValue());
+        Path file = Files.write(tempDir.resolve("padded.bin"), padded.array());
+
+        IOException e = assertThrows(IOException.class, () -> loader.load(file));
+        assertTrue(e.getMessage().contains("after the last segment"), e.getMessage());
+        assertEquals(0, memory.memory[10]);
+    }
+
+    @Test
+    void load_badTextLineLeavesMemoryUntouched() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("bad.txt"), "000006 000012\n000007 9\n");
+
+        assertThrows(RomLoader.LoadException.class, () -> loader.load(file));
+        assertEquals(0, memory.memory[6]);
+    }
+
+    @Test
+    void load_textFormatStillSupported() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("load.txt"), "000006 000012 ; comment\n000007 177777\n");
+
+        assertEquals(2, loader.load(file));
+        assertEquals(012, memory.memory[6]);
+        assertEquals(0177777, memory.memory[7]);
+    }
+}
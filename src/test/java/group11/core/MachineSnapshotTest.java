@@ -0,0 +1,191 @@
+package group11.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import group11.core.ExecutionEngine.StopReason;
+import group11.events.EventBus;
+
+/**
+ * Tests for checkpointing a machine in memory and on disk.
+ */
+public class MachineSnapshotTest {
+
+    private CPU cpu;
+    private Memory mem;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setup() {
+        mem = new Memory();
+        EventBus bus = new EventBus();
+        CacheConfig config = CacheConfig.setAssociative(8, 4, 2).withWritePolicy(CacheConfig.WritePolicy.WRITE_BACK, true);
+        cpu = new CPU(mem, bus, new Cache(mem, bus, config), new RomLoader(mem));
+
+        // 6: AIR R1,1  7: STR R1,20  8: SOB R0,6  9: HLT
+        mem.writeMemory(6, enc(006, 1, 0, 0, 1));
+        mem.writeMemory(7, enc(002, 1, 0, 0, 20));
+        mem.writeMemory(8, enc(016, 0, 0, 0, 6));
+        cpu.GPR[0] = 10;
+        cpu.setPC(6);
+    }
+
+    @AfterEach
+    void teardown() {
+        cpu.close();
+    }
+
+    private static int enc(int opcodeOct, int r, int ix, int i, int addr5) {
+        return ((opcodeOct & 0x3F) << 10)
+                | ((r & 0x03) << 8)
+                | ((ix & 0x03) << 6)
+                | ((i & 0x01) << 5)
+                | (addr5 & 0x1F);
+    }
+
+    @Test
+    void saveAndRestore_resumesWhereTheSnapshotWasTaken() throws IOException {
+        cpu.getEngine().runUntilHalt(7);
+        // the engine flushes when a run stops, so dirty a line by hand
+        cpu.getCache().store(21, 0777);
+        String cacheAtSave = cpu.getCache().dumpSummary();
+        int pcAtSave = cpu.PC;
+        Path file = tempDir.resolve("machine.snap");
+        cpu.save(file);
+
+        assertEquals(StopReason.HALTED, cpu.getEngine().runUntilHalt(1_000).reason());
+        int finalR1 = cpu.GPR[1];
+        int finalWord = mem.getMemoryValueAt(20);
+
+        cpu.restore(file);
+        assertEquals(cacheAtSave, cpu.getCache().dumpSummary());
+        assertEquals(pcAtSave, cpu.PC);
+        assertEquals(0777, cpu.getCache().peek(21)); // dirty line came back
+
+        assertEquals(StopReason.HALTED, cpu.getEngine().runUntilHalt(1_000).reason());
+        assertEquals(finalR1, cpu.GPR[1]);
+        assertEquals(finalWord, mem.getMemoryValueAt(20));
+    }
+
+    @Test
+    void fork_givesIndependentMachines() {
+        cpu.getEngine().runUntilHalt(3);
+        MachineSnapshot warm = cpu.snapshot();
+
+        CPU a = warm.fork(new EventBus());
+        CPU b = warm.fork(new EventBus());
+        try {
+            b.GPR[0] = 2; // shorter run from the same state
+            a.getEngine().runUntilHalt(1_000);
+            b.getEngine().runUntilHalt(1_000);
+
+            assertEquals(10, a.GPR[1]);
+            assertEquals(3, b.GPR[1]);
+            assertEquals(warm.cacheConfig(), a.getCache().getConfig());
+            assertEquals(1, warm.wordAt(20)); // snapshot unaffected by either run
+        } finally {
+            a.close();
+            b.close();
+        }
+    }
+
+    @Test
+    void snapshotAgainstBase_sharesUnchangedPages() {
+        MachineSnapshot base = cpu.snapshot();
+        cpu.getEngine().runUntilHalt(1_000); // writes word 20 only
+
+        MachineSnapshot next = cpu.snapshot(base);
+
+        int pages = mem.MEMORY_SIZE / MachineSnapshot.PAGE_WORDS;
+        assertEquals(pages - 1, next.sharedPagesWith(base));
+        assertEquals(10, next.wordAt(20));
+        assertEquals(0, base.wordAt(20));
+    }
+
+    @Test
+    void load_rejectsCorruptFiles() throws IOException {
+        Path file = tempDir.resolve("machine.snap");
+        cpu.save(file);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[100] ^= 1;
+        Files.write(file, bytes);
+
+        IOException e = assertThrows(IOException.class, () -> cpu.restore(file));
+        assertTrue(e.getMessage().contains("checksum"));
+        assertThrows(IOException.class, () -> MachineSnapshot.load(Files.write(tempDir.resolve("x"), new byte[64])));
+    }
+
+    @Test
+    void load_rejectsOtherFormatVersions() throws IOException {
+        Path file = tempDir.resolve("machine.snap");
+        cpu.save(file);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[5] = 1; // low byte of the version after the magic
+        Files.write(file, bytes);
+
+        IOException e = assertThrows(IOException.class, () -> cpu.restore(file));
+        assertTrue(e.getMessage().contains("unsupported snapshot version 1"));
+    }
+
+    @Test
+    void save_keepsNegativeRegisters() throws IOException {
+        cpu.GPR[2] = -3;
+        cpu.IXR[1] = 0xFFFD;
+        cpu.FR[0] = -32768;
+        Path file = tempDir.resolve("negative.snap");
+        cpu.save(file);
+        cpu.GPR[2] = cpu.IXR[1] = cpu.FR[0] = 0;
+
+        cpu.restore(file);
+        assertEquals(-3, cpu.GPR[2]);
+        assertEquals(0xFFFD, cpu.IXR[1]);
+        assertEquals(-32768, cpu.FR[0]);
+    }
+
+    @Test
+    void restore_rejectsOtherCacheGeometry() {
+        MachineSnapshot snapshot = cpu.snapshot();
+        Memory other = new Memory();
+        EventBus bus = new EventBus();
+        CPU directMapped = new CPU(other, bus, new Cache(other, bus, CacheConfig.directMapped(16, 8)), new RomLoader(other));
+        try {
+            assertThrows(IllegalArgumentException.class, () -> directMapped.restore(snapshot));
+        } finally {
+            directMapped.close();
+        }
+    }
+
+    @Test
+    void predictorConfiguration_travelsWithTheSnapshot() throws IOException {
+        Memory other = new Memory();
+        EventBus bus = new EventBus();
+        BranchPredictorConfig gshare = BranchPredictorConfig.gshare(64, 6).withTargets(16, 4);
+        try (CPU source = new CPU(other, bus, new Cache(other, bus), new RomLoader(other),
+                BranchPredictor.create(gshare))) {
+            for (int a = 6; a <= 8; a++)
+                other.writeMemory(a, mem.getMemoryValueAt(a));
+            source.GPR[0] = 10;
+            source.setPC(6);
+            source.getEngine().runUntilHalt(1_000);
+            Path file = tempDir.resolve("gshare.snap");
+            source.save(file);
+
+            CPU forked = MachineSnapshot.load(file).fork(new EventBus());
+            try {
+                assertEquals(gshare, forked.getBranchPredictor().config());
+                assertArrayEquals(source.getBranchPredictor().copyCounters(), forked.getBranchPredictor().copyCounters());
+                assertEquals(source.getBranchPredictor().getBranchCount(), forked.getBranchPredictor().getBranchCount());
+            } finally {
+                forked.close();
+            }
+            assertThrows(IllegalArgumentException.class, () -> cpu.restore(source.snapshot())); // bimodal machine
+        }
+    }
+}
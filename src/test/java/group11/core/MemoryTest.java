@@ -0,0 +1,105 @@
+package group11.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for the bulk memory operations and code write reporting.
+ */
+class MemoryTest {
+
+    private Memory mem;
+
+    @BeforeEach
+    void setup() {
+        mem = new Memory();
+    }
+
+    @Test
+    void writeBlockAndReadBlock_roundTripWithoutTouchingLatches() {
+        int[] src = { 0, 1, 2, 3, 4, 5 };
+        mem.writeBlock(100, src, 1, 4);
+
+        int[] dst = new int[6];
+        mem.readBlock(99, dst, 0, 6);
+
+        assertArrayEquals(new int[] { 0, 1, 2, 3, 4, 0 }, dst);
+        assertFalse(mem.isMARSet());
+        assertFalse(mem.isMBRSet());
+    }
+
+    @Test
+    void writeBlock_shortBufferWidensToUnsignedWords() {
+        mem.writeBlock(10, ShortBuffer.wrap(new short[] { 1, (short) 0177777, (short) 0100000 }));
+
+        assertEquals(1, mem.getMemoryValueAt(10));
+        assertEquals(0177777, mem.getMemoryValueAt(11));
+        assertEquals(0100000, mem.getMemoryValueAt(12));
+    }
+
+    @Test
+    void fillAndCopy_handleOverlappingRanges() {
+        mem.fill(200, 4, 7);
+        mem.writeMemoryDirect(204, 9);
+
+        mem.copy(200, 202, 5); // overlapping forward copy
+
+        int[] dst = new int[7];
+        mem.readBlock(200, dst, 0, 7);
+        assertArrayEquals(new int[] { 7, 7, 7, 7, 7, 7, 9 }, dst);
+    }
+
+    @Test
+    void blockOperations_checkTheWholeRange() {
+        int[] buf = new int[4];
+        int end = mem.MEMORY_SIZE;
+
+        assertThrows(IllegalArgumentException.class, () -> mem.readBlock(end - 3, buf, 0, 4));
+        assertThrows(IllegalArgumentException.class, () -> mem.writeBlock(-1, buf, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> mem.fill(0, end + 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> mem.copy(0, end - 1, 2));
+        mem.readBlock(end - 4, buf, 0, 4);
+        mem.fill(end, 0, 1); // empty range at the end is fine
+    }
+
+    @Test
+    void asIntBuffer_isALiveView() {
+        IntBuffer view = mem.asIntBuffer();
+        view.put(5, 42);
+        mem.writeMemoryDirect(6, 43);
+
+        assertEquals(42, mem.getMemoryValueAt(5));
+        assertEquals(43, view.get(6));
+        assertEquals(mem.MEMORY_SIZE, view.capacity());
+    }
+
+    @Test
+    void codeWrites_areReportedOnlyForMarkedPages() {
+        List<String> reported = new ArrayList<>();
+        mem.setCodeWriteListener((address, len) -> reported.add(address + "+" + len));
+        mem.markCode(40, 3); // page 32..63
+
+        mem.writeMemory(10, 1);
+        mem.writeMemoryDirect(64, 1);
+        mem.fill(100, 20, 1);
+        assertTrue(reported.isEmpty());
+
+        mem.writeMemory(63, 1);
+        mem.writeMemoryDirect(32, 1);
+        mem.writeBlock(60, new int[8], 0, 8);
+        mem.copy(0, 20, 20);
+        mem.written(50, 1); // e.g. a store held in a write-back line
+        assertEquals(List.of("63+1", "32+1", "60+8", "20+20", "50+1"), reported);
+        assertTrue(mem.isCode(33));
+        assertFalse(mem.isCode(31));
+
+        mem.clearCodeMarks();
+        mem.writeMemory(40, 2);
+        assertEquals(5, reported.size());
+    }
+}
@@ -0,0 +1,112 @@
+package group11.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.lang.management.ManagementFactory;
+
+import group11.events.EventBus;
+
+/**
+ * Tests for the primitive PC/IR/MAR/MBR registers: "unset" tracking and an
+ * allocation-free fetch/execute path.
+ */
+public class RegisterFileTest {
+
+    /** Allocation tolerated over the measured loop, for compiler and TLAB bookkeeping. */
+    private static final long ALLOCATION_NOISE_BYTES = 1024;
+
+    private CPU cpu;
+    private Memory mem;
+
+    @BeforeEach
+    void setup() {
+        mem = new Memory();
+        EventBus eventBus = new EventBus();
+        cpu = new CPU(mem, eventBus, new Cache(mem, eventBus), new RomLoader(mem));
+    }
+
+    @AfterEach
+    void teardown() {
+        cpu.close();
+    }
+
+    private static int enc(int opcodeOct, int r, int ix, int i, int addr5) {
+        return ((opcodeOct & 0x3F) << 10)
+                | ((r & 0x03) << 8)
+                | ((ix & 0x03) << 6)
+                | ((i & 0x01) << 5)
+                | (addr5 & 0x1F);
+    }
+
+    @Test
+    void registers_startUnsetAndAreMarkedWhenWritten() {
+        assertFalse(cpu.isPCSet());
+        assertFalse(mem.isMARSet());
+        assertNull(mem.getMBR());
+
+        cpu.setPC(6);
+        mem.writeMARAddress(30);
+        mem.writeMBR(0123);
+
+        assertTrue(cpu.isPCSet());
+        assertEquals(30, mem.getMAR());
+        assertEquals(0123, mem.getMBR());
+
+        mem.clearMBR();
+        assertFalse(mem.isMBRSet());
+        mem.reset();
+        assertFalse(mem.isMARSet());
+    }
+
+    @Test
+    void frontPanel_refusesUnsetMAR() {
+        mem.writeMemory(30, 0777);
+        mem.reset(); // clears memory and the MAR/MBR latched by writeMemory
+        mem.writeMemoryDirect(30, 0777);
+
+        cpu.loadFrontPanel();
+        assertFalse(mem.isMBRSet());
+
+        mem.writeMARAddress(30);
+        cpu.loadFrontPanel();
+        assertEquals(0777, mem.MBR);
+    }
+
+    @Test
+    void steadyState_allocatesNothingPerInstruction() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeAllocationCounting(threads);
+
+        // 6: LDR R2,20  7: AMR R2,21  8: STR R2,20  9: AIR R1,1  10: SOB R0,6  11: HLT
+        mem.writeMemory(6, enc(001, 2, 0, 0, 20));
+        mem.writeMemory(7, enc(004, 2, 0, 0, 21));
+        mem.writeMemory(8, enc(002, 2, 0, 0, 20));
+        mem.writeMemory(9, enc(006, 1, 0, 0, 1));
+        mem.writeMemory(10, enc(016, 0, 0, 0, 6));
+        mem.writeMemory(21, 1);
+        cpu.GPR[0] = 30_000;
+        cpu.setPC(6);
+        cpu.running = true;
+
+        for (int n = 0; n < 20_000; n++) {
+            cpu.step(); // warm up: decode cache, cache lines, dispatch plans
+        }
+        int instructions = 50_000;
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int n = 0; n < instructions; n++) {
+            cpu.step();
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertTrue(cpu.running, "loop should still be running");
+        // 0 bytes in most runs, a few hundred when the JIT swaps code in mid-loop; one boxed
+        // Integer per instruction would be 800 KB, one per 50 instructions still 16 KB
+        assertTrue(allocated < ALLOCATION_NOISE_BYTES, allocated + " bytes allocated in " + instructions + " steps");
+    }
+
+    private static void assumeAllocationCounting(com.sun.management.ThreadMXBean threads) {
+        Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+}
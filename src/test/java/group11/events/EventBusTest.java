@@ -0,0 +1,185 @@
+package group11.events;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class EventBusTest {
+
+    private EventBus bus;
+    private List<Object> received;
+
+    @BeforeEach
+    void setup() {
+        bus = new EventBus();
+        received = new ArrayList<>();
+    }
+
+    @Test
+    void synchronousByDefault() {
+        bus.subscribe(PCChanged.class, received::add);
+
+        bus.post(new PCChanged(1));
+        bus.post(new PCChanged(2));
+
+        assertEquals(List.of(new PCChanged(1), new PCChanged(2)), received);
+    }
+
+    @Test
+    void superTypeSubscribersSeeEvents() {
+        bus.subscribe(CPUEvent.class, received::add);
+        bus.subscribe(Object.class, received::add);
+
+        bus.post(new MFRChanged(2));
+
+        assertEquals(List.of(new MFRChanged(2), new MFRChanged(2)), received);
+    }
+
+    @Test
+    void dispatchPlan_isRebuiltWhenSubscriptionsChange() throws Exception {
+        bus.post(new PCChanged(1)); // caches an empty plan
+        assertFalse(bus.hasSubscribers(PCChanged.class));
+
+        AutoCloseable sub = bus.subscribe(CPUEvent.class, received::add);
+        assertTrue(bus.hasSubscribers(PCChanged.class));
+        bus.post(new PCChanged(2));
+
+        sub.close();
+        assertFalse(bus.hasSubscribers(PCChanged.class));
+        bus.post(new PCChanged(3));
+
+        assertEquals(List.of(new PCChanged(2)), received);
+    }
+
+    @Test
+    void coalescing_keepsLatestValuePerType() {
+        bus.enableCoalescing(0, Runnable::run);
+        bus.subscribe(PCChanged.class, received::add);
+
+        for (int pc = 0; pc < 1_000; pc++)
+            bus.post(new PCChanged(pc));
+        assertTrue(received.isEmpty());
+
+        bus.flush();
+        assertEquals(List.of(new PCChanged(999)), received);
+    }
+
+    @Test
+    void coalescing_keepsLatestValuePerRegister() {
+        bus.enableCoalescing(0, Runnable::run);
+        bus.subscribe(GPRChanged.class, received::add);
+
+        bus.post(new GPRChanged(0, 1));
+        bus.post(new GPRChanged(1, 5));
+        bus.post(new GPRChanged(0, 2));
+        bus.flush();
+
+        assertEquals(2, received.size());
+        assertTrue(received.contains(new GPRChanged(0, 2)));
+        assertTrue(received.contains(new GPRChanged(1, 5)));
+    }
+
+    @Test
+    void coalescing_concatenatesMessages() {
+        bus.enableCoalescing(0, Runnable::run);
+        bus.subscribe(MessageChanged.class, received::add);
+
+        bus.post(new MessageChanged("H"));
+        bus.post(new MessageChanged("i"));
+        bus.flush();
+
+        assertEquals(List.of(new MessageChanged("Hi")), received);
+    }
+
+    @Test
+    void coalescing_runsTickSourcesBeforeEachFlush() throws Exception {
+        bus.enableCoalescing(0, Runnable::run);
+        bus.subscribe(PCChanged.class, received::add);
+        int[] ticks = new int[1];
+        AutoCloseable source = bus.onTick(() -> bus.post(new PCChanged(++ticks[0])));
+
+        bus.flush();
+        bus.flush();
+        source.close();
+        bus.flush();
+
+        assertEquals(List.of(new PCChanged(1), new PCChanged(2)), received);
+    }
+
+    @Test
+    void coalescing_keepsTickingWhenATickSourceThrows() throws Exception {
+        bus.enableCoalescing(1_000, Runnable::run);
+        CountDownLatch ticks = new CountDownLatch(3);
+        bus.onTick(() -> {
+            throw new IllegalStateException("broken source");
+        });
+        bus.onTick(ticks::countDown);
+
+        try {
+            assertTrue(ticks.await(5, TimeUnit.SECONDS));
+        } finally {
+            bus.disableCoalescing();
+        }
+    }
+
+    @Test
+    void coalescing_reportsTickSourceErrorsToTheHandler() {
+        List<Object> failed = new ArrayList<>();
+        bus.setErrorHandler((source, e) -> failed.add(source));
+        bus.enableCoalescing(0, Runnable::run);
+        Runnable broken = () -> {
+            throw new IllegalStateException("broken source");
+        };
+        bus.onTick(broken);
+        bus.subscribe(PCChanged.class, received::add);
+        bus.onTick(() -> bus.post(new PCChanged(3)));
+
+        bus.flush();
+        bus.flush();
+
+        assertEquals(List.of(broken, broken), failed);
+        assertEquals(List.of(new PCChanged(3), new PCChanged(3)), received);
+    }
+
+    @Test
+    void coalescing_leavesUiCommandsSynchronous() {
+        bus.enableCoalescing(0, Runnable::run);
+        bus.subscribe(SetPC.class, received::add);
+
+        bus.post(new SetPC(7));
+
+        assertEquals(List.of(new SetPC(7)), received);
+    }
+
+    @Test
+    void coalescing_timerDeliversOnExecutor() throws Exception {
+        List<Object> delivered = java.util.Collections.synchronizedList(new ArrayList<>());
+        bus.subscribe(PCChanged.class, delivered::add);
+        bus.enableCoalescing(100, Runnable::run);
+
+        bus.post(new PCChanged(3));
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (delivered.isEmpty() && System.currentTimeMillis() < deadline)
+            Thread.sleep(5);
+
+        assertEquals(List.of(new PCChanged(3)), delivered);
+        bus.disableCoalescing();
+    }
+
+    @Test
+    void disableCoalescing_deliversPendingEvents() {
+        bus.enableCoalescing(0, Runnable::run);
+        bus.subscribe(IRChanged.class, received::add);
+
+        bus.post(new IRChanged(42));
+        bus.disableCoalescing();
+
+        assertEquals(List.of(new IRChanged(42)), received);
+        bus.post(new IRChanged(43));
+        assertEquals(2, received.size());
+    }
+}
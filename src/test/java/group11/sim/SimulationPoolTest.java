@@ -0,0 +1,110 @@
+package group11.sim;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import group11.core.CacheConfig;
+import group11.core.ExecutionEngine.StopReason;
+import group11.core.MachineSnapshot;
+
+/**
+ * Tests for running many headless machines from one loaded program.
+ */
+public class SimulationPoolTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static int enc(int opcodeOct, int r, int ix, int i, int addr5) {
+        return ((opcodeOct & 0x3F) << 10)
+                | ((r & 0x03) << 8)
+                | ((ix & 0x03) << 6)
+                | ((i & 0x01) << 5)
+                | (addr5 & 0x1F);
+    }
+
+    private static int encIO(int opcodeOct, int r, int devid) {
+        return ((opcodeOct & 0x3F) << 10) | ((r & 0x03) << 8) | ((devid & 0x1F) << 3);
+    }
+
+    private MachineSnapshot boot(int... program) throws Exception {
+        StringBuilder loadFile = new StringBuilder();
+        for (int i = 0; i < program.length; i++) {
+            loadFile.append(String.format("%06o %06o%n", 6 + i, program[i]));
+        }
+        loadFile.append(String.format("%06o %06o%n", 21, 300)); // pointer to the card buffer
+        Path file = Files.writeString(tempDir.resolve("program.txt"), loadFile);
+        return SimulationPool.boot(file, 6, CacheConfig.DEFAULT);
+    }
+
+    // prints the first character of two console lines
+    private MachineSnapshot echoTwice() throws Exception {
+        return boot(
+                enc(003, 0, 0, 0, 20), encIO(061, 0, 0), encIO(062, 0, 1),
+                enc(003, 0, 0, 0, 20), encIO(061, 0, 0), encIO(062, 0, 1),
+                0);
+    }
+
+    @Test
+    void run_capturesOutputPerJobInJobOrder() throws Exception {
+        MachineSnapshot program = echoTwice();
+        List<SimulationJob> jobs = new ArrayList<>();
+        for (char c = 'a'; c < 'a' + 8; c++) {
+            jobs.add(SimulationJob.of("job-" + c, program, String.valueOf(c), String.valueOf((char) (c + 1))));
+        }
+
+        SimulationReport report;
+        try (SimulationPool pool = new SimulationPool(4)) {
+            report = pool.run(jobs);
+        }
+
+        assertEquals(8, report.results().size());
+        for (int j = 0; j < 8; j++) {
+            SimulationResult result = report.results().get(j);
+            char c = (char) ('a' + j);
+            assertEquals("job-" + c, result.name());
+            assertEquals(StopReason.HALTED, result.reason());
+            assertEquals("" + c + (char) (c + 1), result.output());
+            assertEquals(2, result.consoleLinesUsed());
+            assertEquals(7, result.instructions());
+        }
+        assertEquals(56, report.totalInstructions());
+        assertEquals(4, report.parallelism());
+        assertTrue(report.cacheStats().accesses() > 0);
+    }
+
+    @Test
+    void runJob_stopsWhenConsoleInputRunsOut() throws Exception {
+        SimulationResult result = SimulationPool.runJob(SimulationJob.of("short", echoTwice(), "x"));
+
+        assertEquals(StopReason.INPUT_PENDING, result.reason());
+        assertEquals("x", result.output());
+        assertEquals(1, result.consoleLinesUsed());
+    }
+
+    @Test
+    void runJob_readsTheJobsCardDeck() throws Exception {
+        // IN R0,card reader; LDR R1,0,21,I (first card character); OUT R1,printer; HLT
+        MachineSnapshot program = boot(encIO(061, 0, 2), enc(001, 1, 0, 1, 21), encIO(062, 1, 1), 0);
+
+        SimulationResult result = SimulationPool.runJob(SimulationJob.of("deck", program).withCardDeck("Quick brown"));
+
+        assertEquals(StopReason.HALTED, result.reason());
+        assertEquals("Q", result.output());
+    }
+
+    @Test
+    void runJob_respectsInstructionBudget() throws Exception {
+        SimulationResult result = SimulationPool.runJob(
+                SimulationJob.of("budget", echoTwice(), "a", "b").withMaxInstructions(4));
+
+        assertEquals(StopReason.INSTRUCTION_LIMIT, result.reason());
+        assertEquals(4, result.instructions());
+    }
+}
@@ -0,0 +1,101 @@
+package group11.siminterface;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+
+import group11.events.EventBus;
+
+/**
+ * Tests for the bounded console buffer and the document it keeps up to date.
+ */
+class ConsoleBufferTest {
+
+    @Test
+    void drain_returnsOnlyTextSinceLastDrain() {
+        ConsoleBuffer buffer = new ConsoleBuffer(10);
+        buffer.append("ab");
+        buffer.append("c\nd");
+
+        assertEquals(new ConsoleBuffer.Update("abc\nd", 0, false), buffer.drain());
+        assertTrue(buffer.drain().isEmpty());
+
+        buffer.append("e");
+        assertEquals(new ConsoleBuffer.Update("e", 0, false), buffer.drain());
+        assertEquals("abc\nde", buffer.text());
+    }
+
+    @Test
+    void append_keepsOnlyTheScrollback() {
+        ConsoleBuffer buffer = new ConsoleBuffer(3);
+        for (int i = 0; i < 10; i++)
+            buffer.append("line " + i + "\n");
+
+        assertEquals(3, buffer.lineCount());
+        assertEquals("line 7\nline 8\nline 9\n", buffer.text());
+    }
+
+    @Test
+    void drain_reportsLinesThatScrolledOutOfTheView() {
+        ConsoleBuffer buffer = new ConsoleBuffer(3);
+        buffer.append("a\nb\nc");
+        buffer.drain();
+
+        buffer.append("\nd\n");
+
+        // c was partly shown and is still retained; a was dropped
+        assertEquals(new ConsoleBuffer.Update("\nd\n", 1, false), buffer.drain());
+        assertEquals("b\nc\nd\n", buffer.text());
+    }
+
+    @Test
+    void drain_replacesTheViewWhenItFellBehindTheScrollback() {
+        ConsoleBuffer buffer = new ConsoleBuffer(2);
+        buffer.append("a\n");
+        buffer.drain();
+
+        buffer.append("b\nc\nd\ne");
+
+        assertEquals(new ConsoleBuffer.Update("c\nd\ne", 0, true), buffer.drain());
+    }
+
+    @Test
+    void append_breaksOverlongLines() {
+        ConsoleBuffer buffer = new ConsoleBuffer(4);
+        buffer.append("x".repeat(ConsoleBuffer.MAX_LINE_LENGTH + 5));
+
+        assertEquals(1, buffer.lineCount());
+        assertEquals("x".repeat(ConsoleBuffer.MAX_LINE_LENGTH) + "\n" + "xxxxx", buffer.text());
+    }
+
+    @Test
+    void consoleOutput_documentMatchesBufferAcrossTicks() throws Exception {
+        JTextArea area = new JTextArea();
+        ConsoleBuffer buffer = new ConsoleBuffer(5);
+        EventBus bus = new EventBus();
+        bus.enableCoalescing(0, Runnable::run); // ticks only on flush()
+        try (ConsoleOutput output = new ConsoleOutput(area, buffer, bus)) {
+            for (int tick = 0; tick < 20; tick++) {
+                for (char c : ("tick " + tick + "\nmore").toCharArray())
+                    output.append(String.valueOf(c)); // one character per OUT
+                output.refresh();
+                assertEquals(buffer.text(), area.getText());
+            }
+            // everything in one tick, far past the scrollback
+            for (int i = 0; i < 50; i++)
+                output.append("burst " + i + "\n");
+            output.refresh();
+            assertEquals(buffer.text(), area.getText());
+            assertEquals(5, area.getText().split("\n").length);
+
+            // the bus tick hands the refresh to the event dispatch thread
+            output.append("from the tick\n");
+            bus.flush();
+            SwingUtilities.invokeAndWait(() -> {
+            });
+            assertEquals(buffer.text(), area.getText());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package group11.trace;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class TracerTest {
+
+    private List<String> lines;
+
+    @BeforeEach
+    void setup() {
+        lines = new CopyOnWriteArrayList<>();
+    }
+
+    /** Argument whose toString() records that formatting happened. */
+    private static final class Probe {
+        boolean formatted;
+
+        @Override
+        public String toString() {
+            formatted = true;
+            return "probe";
+        }
+    }
+
+    @Test
+    void off_doesNotFormatOrWrite() {
+        Tracer tracer = new Tracer(TraceLevel.OFF, lines::add, 16);
+        Probe probe = new Probe();
+
+        tracer.log(TraceLevel.SUMMARY, "value %s", probe);
+        tracer.flush(200);
+
+        assertFalse(probe.formatted);
+        assertTrue(lines.isEmpty());
+        tracer.close();
+    }
+
+    @Test
+    void levelsIncludeEverythingBelowThem() {
+        Tracer tracer = new Tracer(TraceLevel.INSTRUCTION, lines::add, 16);
+
+        tracer.log(TraceLevel.SUMMARY, "summary");
+        tracer.log(TraceLevel.INSTRUCTION, "EA=%o", 8);
+        tracer.log(TraceLevel.MICRO_OP, "micro");
+        tracer.flush(1_000);
+
+        assertEquals(List.of("summary", "EA=10"), lines);
+        tracer.close();
+    }
+
+    @Test
+    void fullBufferDropsInsteadOfBlocking() throws Exception {
+        Object gate = new Object();
+        Tracer tracer = new Tracer(TraceLevel.SUMMARY, line -> {
+            synchronized (gate) {
+                lines.add(line);
+            }
+        }, 4);
+
+        synchronized (gate) {
+            for (int i = 0; i < 100; i++)
+                tracer.log(TraceLevel.SUMMARY, "line");
+        }
+        tracer.flush(1_000);
+
+        assertTrue(tracer.getDroppedCount() > 0);
+        assertEquals(100, lines.size() + tracer.getDroppedCount());
+        tracer.close();
+    }
+
+    @Test
+    void parse_isLenient() {
+        assertEquals(TraceLevel.MICRO_OP, TraceLevel.parse("micro-op"));
+        assertEquals(TraceLevel.INSTRUCTION, TraceLevel.parse(" Instruction "));
+        assertEquals(TraceLevel.OFF, TraceLevel.parse("verbose"));
+        assertEquals(TraceLevel.OFF, TraceLevel.parse(null));
+    }
+}